@@ -28,6 +28,7 @@ import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
@@ -186,6 +187,84 @@ public class CompilerConfiguration {
     /** value of <code>-implicit:</code> of java compiler */
     private String implicitOption;
 
+    /**
+     * have a forked java compiler report its diagnostics as records, with exact start and end positions, instead of
+     * parsing its text output (implement for javac only)
+     * @since 2.17.1
+     */
+    private boolean structuredDiagnostics;
+
+    /**
+     * count the warnings of the same kind and code instead of reporting each of them
+     * @since 2.17.1
+     * @see CompilerMessageCollector
+     */
+    private boolean aggregateWarnings;
+
+    /**
+     * the messages not to report
+     * @since 2.17.1
+     */
+    private List<CompilerMessageSuppression> messageSuppressions = new ArrayList<>();
+
+    /**
+     * the number of messages of each kind to report at most, errors excepted
+     * @since 2.17.1
+     */
+    private Map<CompilerMessage.Kind, Integer> maxMessagesPerKind = new EnumMap<>(CompilerMessage.Kind.class);
+
+    /**
+     * the characters of output of a forked compiler kept in memory, beyond which it is written to a temporary file
+     * @since 2.17.1
+     * @see org.codehaus.plexus.compiler.util.OutputCapture
+     */
+    private int outputMemoryLimit = 1024 * 1024;
+
+    /**
+     * the characters of output of a forked compiler kept at most, the following lines being discarded, or a negative
+     * value for no limit
+     * @since 2.17.1
+     */
+    private long outputLimit = 256L * 1024 * 1024;
+
+    /**
+     * with {@link CompilerReuseStrategy#ReuseSame}, keep what an in-process compiler can safely share between
+     * compilations warm, instead of starting each from scratch
+     * @since 2.17.1
+     */
+    private boolean warmContext;
+
+    /**
+     * measure the time spent in each checker a compiler runs, such as the bug checkers of error-prone, and report it in
+     * {@link CompilerResult#getCheckerTimings()}
+     * @since 2.17.1
+     */
+    private boolean checkerProfiling;
+
+    /**
+     * the share of the compilation time, between <code>0</code> and <code>1</code>, beyond which the most expensive
+     * checkers which cannot fail the build are turned off for the following compilations, to be run in a separate
+     * build instead, or <code>0</code> to never turn checkers off
+     * @since 2.17.1
+     */
+    private double checkerTimeBudget;
+
+    /**
+     * the directory of a cache shared with the other JVMs of the machine, such as <code>~/.cache/plexus-compiler</code>,
+     * or <code>null</code> for none
+     * @see org.codehaus.plexus.compiler.util.SharedCache
+     * @since 2.17.1
+     */
+    private File sharedCacheDirectory;
+
+    /**
+     * the file of the manifest of the outputs of each source, kept up to date by the compilations and used to delete
+     * the outputs no source produces any more, or <code>null</code> for none
+     * @see org.codehaus.plexus.compiler.util.OutputManifest
+     * @since 2.17.1
+     */
+    private File outputManifest;
+
     // ----------------------------------------------------------------------
     //
     // ----------------------------------------------------------------------
@@ -683,6 +762,106 @@ public class CompilerConfiguration {
         this.implicitOption = implicitOption;
     }
 
+    public boolean isStructuredDiagnostics() {
+        return structuredDiagnostics;
+    }
+
+    public void setStructuredDiagnostics(boolean structuredDiagnostics) {
+        this.structuredDiagnostics = structuredDiagnostics;
+    }
+
+    public boolean isAggregateWarnings() {
+        return aggregateWarnings;
+    }
+
+    public void setAggregateWarnings(boolean aggregateWarnings) {
+        this.aggregateWarnings = aggregateWarnings;
+    }
+
+    public List<CompilerMessageSuppression> getMessageSuppressions() {
+        return messageSuppressions;
+    }
+
+    public void setMessageSuppressions(List<CompilerMessageSuppression> messageSuppressions) {
+        this.messageSuppressions = messageSuppressions;
+    }
+
+    public void addMessageSuppression(CompilerMessageSuppression messageSuppression) {
+        messageSuppressions.add(messageSuppression);
+    }
+
+    public Map<CompilerMessage.Kind, Integer> getMaxMessagesPerKind() {
+        return maxMessagesPerKind;
+    }
+
+    public void setMaxMessagesPerKind(Map<CompilerMessage.Kind, Integer> maxMessagesPerKind) {
+        this.maxMessagesPerKind = maxMessagesPerKind;
+    }
+
+    /**
+     * @param kind        the kind of messages, other than {@link CompilerMessage.Kind#ERROR}
+     * @param maxMessages the number of messages of that kind to report at most
+     */
+    public void setMaxMessages(CompilerMessage.Kind kind, int maxMessages) {
+        maxMessagesPerKind.put(kind, maxMessages);
+    }
+
+    public int getOutputMemoryLimit() {
+        return outputMemoryLimit;
+    }
+
+    public void setOutputMemoryLimit(int outputMemoryLimit) {
+        this.outputMemoryLimit = outputMemoryLimit;
+    }
+
+    public long getOutputLimit() {
+        return outputLimit;
+    }
+
+    public void setOutputLimit(long outputLimit) {
+        this.outputLimit = outputLimit;
+    }
+
+    public boolean isWarmContext() {
+        return warmContext;
+    }
+
+    public void setWarmContext(boolean warmContext) {
+        this.warmContext = warmContext;
+    }
+
+    public boolean isCheckerProfiling() {
+        return checkerProfiling;
+    }
+
+    public void setCheckerProfiling(boolean checkerProfiling) {
+        this.checkerProfiling = checkerProfiling;
+    }
+
+    public double getCheckerTimeBudget() {
+        return checkerTimeBudget;
+    }
+
+    public void setCheckerTimeBudget(double checkerTimeBudget) {
+        this.checkerTimeBudget = checkerTimeBudget;
+    }
+
+    public File getSharedCacheDirectory() {
+        return sharedCacheDirectory;
+    }
+
+    public void setSharedCacheDirectory(File sharedCacheDirectory) {
+        this.sharedCacheDirectory = sharedCacheDirectory;
+    }
+
+    public File getOutputManifest() {
+        return outputManifest;
+    }
+
+    public void setOutputManifest(File outputManifest) {
+        this.outputManifest = outputManifest;
+    }
+
     public String describe() {
         List<String> params = new ArrayList<>();
 
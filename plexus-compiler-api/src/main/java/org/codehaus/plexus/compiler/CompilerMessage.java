@@ -88,6 +88,28 @@ public class CompilerMessage {
      */
     private final String message;
 
+    /**
+     * The number of times the message was reported, more than one once identical warnings are aggregated
+     */
+    private int occurrences = 1;
+
+    /**
+     * The identifier the language processor gives to this kind of message, if any
+     */
+    private String code;
+
+    /**
+     * The category of the message, such as the lint option which enabled a warning, if any
+     */
+    private String category;
+
+    /**
+     * The character offsets of the offending program text in its file, <code>-1</code> if unknown
+     */
+    private int startOffset = -1;
+
+    private int endOffset = -1;
+
     /**
      * Constructs a compiler message.
      *
@@ -265,8 +287,118 @@ public class CompilerMessage {
         return kind;
     }
 
+    /**
+     * Returns the identifier the language processor gives to this kind of message, e.g.
+     * <code>compiler.warn.has.been.deprecated</code> for javac or the problem ID for ecj.
+     *
+     * @return The code of the message, or <code>null</code> if the language processor did not report it
+     * @since 2.17.1
+     */
+    public String getCode() {
+        return code;
+    }
+
+    /**
+     * Sets the identifier the language processor gives to this kind of message.
+     *
+     * @param code The code of the message
+     * @return this message
+     * @since 2.17.1
+     */
+    public CompilerMessage code(String code) {
+        this.code = code;
+        return this;
+    }
+
+    /**
+     * Returns the category of the message, e.g. the lint option which enabled a javac warning, such as
+     * <code>deprecation</code>, or the option key of an ecj problem, such as <code>unusedImport</code>.
+     *
+     * @return The category of the message, or <code>null</code> if it has none
+     * @since 2.17.1
+     */
+    public String getCategory() {
+        return category;
+    }
+
+    /**
+     * Sets the category of the message.
+     *
+     * @param category The category of the message
+     * @return this message
+     * @since 2.17.1
+     */
+    public CompilerMessage category(String category) {
+        this.category = category;
+        return this;
+    }
+
+    /**
+     * Returns the offset of the first character of the offending program text in its file.
+     *
+     * @return The start offset, or <code>-1</code> if unknown
+     * @since 2.17.1
+     */
+    public int getStartOffset() {
+        return startOffset;
+    }
+
+    /**
+     * Returns the offset following the last character of the offending program text in its file.
+     *
+     * @return The exclusive end offset, or <code>-1</code> if unknown
+     * @since 2.17.1
+     */
+    public int getEndOffset() {
+        return endOffset;
+    }
+
+    /**
+     * Sets the character offsets of the offending program text in its file.
+     *
+     * @param startOffset The offset of its first character
+     * @param endOffset   The offset following its last character
+     * @return this message
+     * @since 2.17.1
+     */
+    public CompilerMessage offsets(int startOffset, int endOffset) {
+        this.startOffset = startOffset;
+        this.endOffset = endOffset;
+        return this;
+    }
+
+    /**
+     * Returns the number of times this message was reported. This is more than one only when the warnings
+     * are aggregated, in which case this message stands for all the warnings of its kind and code.
+     *
+     * @return The number of times this message was reported
+     * @since 2.17.1
+     * @see CompilerMessageCollector
+     */
+    public int getOccurrences() {
+        return occurrences;
+    }
+
+    void addOccurrence() {
+        occurrences++;
+    }
+
+    /**
+     * Replaces the file name by an equal instance shared with other messages.
+     */
+    void shareFile(String sharedFile) {
+        this.file = sharedFile;
+    }
+
     @Override
     public String toString() {
+        if (occurrences > 1) {
+            return toString0() + " (" + occurrences + " occurrences)";
+        }
+        return toString0();
+    }
+
+    private String toString0() {
         if (file != null) {
             if (startline != 0) {
                 if (startcolumn != 0) {
@@ -283,10 +415,11 @@ public class CompilerMessage {
     }
 
     private String cleanupMessage(String msg) {
-        if (kind == Kind.NOTE && msg.toLowerCase().startsWith(JDK_6_NOTE_PREFIX)) {
+        // compared in place, as lower-casing would copy every message
+        if (kind == Kind.NOTE && msg.regionMatches(true, 0, JDK_6_NOTE_PREFIX, 0, JDK_6_NOTE_PREFIX.length())) {
             msg = msg.substring(JDK_6_NOTE_PREFIX.length());
         } else if ((kind == Kind.WARNING || kind == Kind.MANDATORY_WARNING)
-                && msg.toLowerCase().startsWith(JDK_6_WARNING_PREFIX)) {
+                && msg.regionMatches(true, 0, JDK_6_WARNING_PREFIX, 0, JDK_6_WARNING_PREFIX.length())) {
             msg = msg.substring(JDK_6_WARNING_PREFIX.length());
         }
 
@@ -0,0 +1,218 @@
+package org.codehaus.plexus.compiler;
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Collects the messages of one compilation, keeping their memory footprint down when there are many of them.
+ * <p>
+ * The file names of the messages are shared: each distinct file name is held once, however many messages refer to it.
+ * In aggregate mode, warnings of the same kind and code are not kept one by one: the first is kept, and counts the
+ * others as its {@link CompilerMessage#getOccurrences() occurrences}. Warnings without a
+ * {@link CompilerMessage#getCode() code} are grouped by the category their text starts with, such as
+ * <code>[deprecation]</code>, or else by their whole text.
+ * <p>
+ * Messages matching one of the {@link CompilerMessageSuppression suppressions} are dropped, as are the messages of a
+ * kind beyond its limit, which are only counted and summed up in a last message. Compilers reporting diagnostics
+ * through a listener can ask {@link #accepts(CompilerMessage.Kind, String, String, String, String)} before they create
+ * a message at all. Errors are always kept.
+ *
+ * @since 2.17.1
+ * @see CompilerConfiguration#isAggregateWarnings()
+ * @see CompilerConfiguration#getMessageSuppressions()
+ * @see CompilerConfiguration#getMaxMessagesPerKind()
+ */
+public class CompilerMessageCollector {
+    private final boolean aggregate;
+
+    private final List<CompilerMessageSuppression> suppressions;
+
+    private final Map<CompilerMessage.Kind, Integer> maxMessagesPerKind;
+
+    private final List<CompilerMessage> messages = new ArrayList<>();
+
+    private final Map<String, String> files = new HashMap<>();
+
+    private final Map<String, CompilerMessage> firstMessagePerCode = new HashMap<>();
+
+    private final Map<CompilerMessage.Kind, Integer> keptPerKind = new EnumMap<>(CompilerMessage.Kind.class);
+
+    private final Map<CompilerMessage.Kind, Integer> droppedPerKind = new EnumMap<>(CompilerMessage.Kind.class);
+
+    /**
+     * Constructs a collector keeping every message.
+     */
+    public CompilerMessageCollector() {
+        this(false);
+    }
+
+    /**
+     * @param aggregate whether to count the warnings of the same kind and code rather than keep each of them
+     */
+    public CompilerMessageCollector(boolean aggregate) {
+        this(aggregate, Collections.emptyList(), Collections.emptyMap());
+    }
+
+    /**
+     * Constructs a collector applying the aggregation, suppressions and limits of a compiler configuration.
+     *
+     * @param config the compiler configuration
+     */
+    public CompilerMessageCollector(CompilerConfiguration config) {
+        this(config.isAggregateWarnings(), config.getMessageSuppressions(), config.getMaxMessagesPerKind());
+    }
+
+    private CompilerMessageCollector(
+            boolean aggregate,
+            List<CompilerMessageSuppression> suppressions,
+            Map<CompilerMessage.Kind, Integer> maxMessagesPerKind) {
+        this.aggregate = aggregate;
+        this.suppressions = suppressions;
+        this.maxMessagesPerKind = maxMessagesPerKind;
+    }
+
+    /**
+     * Tells whether messages may be suppressed, in which case {@link #accepts(CompilerMessage.Kind, String, String,
+     * String, String) accepts} needs their category to be known, so that compilers can avoid working it out for the
+     * messages which are dropped anyway.
+     *
+     * @return whether there are suppressions
+     */
+    public boolean hasSuppressions() {
+        return !suppressions.isEmpty();
+    }
+
+    /**
+     * Tells whether a message would be kept or aggregated, so that compilers can avoid creating the messages which
+     * would be dropped. A message of a kind whose limit is reached is counted as dropped.
+     *
+     * @param kind     the kind of the message
+     * @param code     the code of the message, <code>null</code> if unknown
+     * @param category the category of the message, <code>null</code> if unknown
+     * @param file     the file of the message, <code>null</code> if it has none
+     * @param text     the text of the message
+     * @return <code>false</code> if the message is suppressed or beyond the limit of its kind
+     */
+    public boolean accepts(CompilerMessage.Kind kind, String code, String category, String file, String text) {
+        if (kind == CompilerMessage.Kind.ERROR) {
+            return true;
+        }
+        for (CompilerMessageSuppression suppression : suppressions) {
+            if (suppression.matches(kind, code, category, file, text)) {
+                return false;
+            }
+        }
+        if (aggregate && isWarning(kind) && firstMessagePerCode.containsKey(getAggregationKey(kind, code, text))) {
+            return true;
+        }
+        Integer max = maxMessagesPerKind.get(kind);
+        if (max != null && keptPerKind.getOrDefault(kind, 0) >= max) {
+            droppedPerKind.merge(kind, 1, Integer::sum);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Adds a message, unless it is suppressed, beyond the limit of its kind or a warning aggregated into an earlier
+     * one.
+     *
+     * @param message the message
+     */
+    public void add(CompilerMessage message) {
+        CompilerMessage.Kind kind = message.getKind();
+        if (!accepts(kind, message.getCode(), message.getCategory(), message.getFile(), message.getMessage())) {
+            return;
+        }
+
+        String file = message.getFile();
+        if (file != null) {
+            String sharedFile = files.putIfAbsent(file, file);
+            if (sharedFile != null) {
+                message.shareFile(sharedFile);
+            }
+        }
+
+        if (aggregate && isWarning(kind)) {
+            String key = getAggregationKey(kind, message.getCode(), message.getMessage());
+            CompilerMessage first = firstMessagePerCode.putIfAbsent(key, message);
+            if (first != null) {
+                first.addOccurrence();
+                return;
+            }
+        }
+        messages.add(message);
+        keptPerKind.merge(kind, 1, Integer::sum);
+    }
+
+    /**
+     * @param messages the messages to add
+     */
+    public void addAll(List<CompilerMessage> messages) {
+        for (CompilerMessage message : messages) {
+            add(message);
+        }
+    }
+
+    /**
+     * @return the messages kept, in the order they were added, followed by the tally of the messages dropped for
+     *         being beyond the limit of their kind, if any
+     */
+    public List<CompilerMessage> getMessages() {
+        if (droppedPerKind.isEmpty()) {
+            return messages;
+        }
+        List<CompilerMessage> messagesAndTally = new ArrayList<>(messages);
+        for (Map.Entry<CompilerMessage.Kind, Integer> dropped : droppedPerKind.entrySet()) {
+            messagesAndTally.add(new CompilerMessage(
+                    dropped.getValue() + " more " + dropped.getKey().name().toLowerCase(Locale.ROOT)
+                            + " messages not reported, beyond the limit of " + maxMessagesPerKind.get(dropped.getKey()),
+                    CompilerMessage.Kind.OTHER));
+        }
+        return messagesAndTally;
+    }
+
+    private static boolean isWarning(CompilerMessage.Kind kind) {
+        return kind == CompilerMessage.Kind.WARNING || kind == CompilerMessage.Kind.MANDATORY_WARNING;
+    }
+
+    private static String getAggregationKey(CompilerMessage.Kind kind, String code, String text) {
+        return kind.name() + ' ' + (code != null ? code : getCode(text));
+    }
+
+    /**
+     * @return the leading <code>[category]</code> of the message, or the message itself if there is none
+     */
+    private static String getCode(String message) {
+        if (message.startsWith("[")) {
+            int end = message.indexOf(']');
+            if (end > 0) {
+                return message.substring(0, end + 1);
+            }
+        }
+        return message;
+    }
+}
@@ -0,0 +1,143 @@
+package org.codehaus.plexus.compiler;
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.nio.file.FileSystems;
+import java.nio.file.InvalidPathException;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.regex.Pattern;
+
+/**
+ * Describes compiler messages not to report. A message is suppressed if it matches every criterion set; criteria
+ * left unset match any message. Errors are never suppressed.
+ *
+ * @since 2.17.1
+ * @see CompilerConfiguration#addMessageSuppression(CompilerMessageSuppression)
+ */
+public class CompilerMessageSuppression {
+    private CompilerMessage.Kind kind;
+
+    private String code;
+
+    private String path;
+
+    private String message;
+
+    private PathMatcher pathMatcher;
+
+    private Pattern messagePattern;
+
+    public CompilerMessageSuppression() {}
+
+    /**
+     * @param kind    the kind of the messages to suppress, <code>null</code> for any
+     * @param code    the code or category of the messages to suppress, <code>null</code> for any
+     * @param path    a glob the file of the messages to suppress must match, <code>null</code> for any
+     * @param message a regular expression found in the messages to suppress, <code>null</code> for any
+     */
+    public CompilerMessageSuppression(CompilerMessage.Kind kind, String code, String path, String message) {
+        this.kind = kind;
+        this.code = code;
+        setPath(path);
+        setMessage(message);
+    }
+
+    public CompilerMessage.Kind getKind() {
+        return kind;
+    }
+
+    public void setKind(CompilerMessage.Kind kind) {
+        this.kind = kind;
+    }
+
+    /**
+     * @return the {@link CompilerMessage#getCode() code} or {@link CompilerMessage#getCategory() category} of the
+     *         messages to suppress, such as <code>compiler.warn.has.been.deprecated</code> or <code>deprecation</code>
+     */
+    public String getCode() {
+        return code;
+    }
+
+    public void setCode(String code) {
+        this.code = code;
+    }
+
+    /**
+     * @return a glob, such as <code>**&#47;generated-sources/**</code>, the file of the messages to suppress must
+     *         match
+     */
+    public String getPath() {
+        return path;
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+        this.pathMatcher = path == null ? null : FileSystems.getDefault().getPathMatcher("glob:" + path);
+    }
+
+    /**
+     * @return a regular expression found in the text of the messages to suppress
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+        this.messagePattern = message == null ? null : Pattern.compile(message);
+    }
+
+    /**
+     * Tells whether a message is to be suppressed, before the message is created.
+     *
+     * @param kind    the kind of the message
+     * @param code    the code of the message, <code>null</code> if unknown
+     * @param category the category of the message, <code>null</code> if unknown
+     * @param file    the file of the message, <code>null</code> if it has none
+     * @param text    the text of the message
+     * @return whether the message matches every criterion set
+     */
+    public boolean matches(CompilerMessage.Kind kind, String code, String category, String file, String text) {
+        if (kind == CompilerMessage.Kind.ERROR || this.kind != null && this.kind != kind) {
+            return false;
+        }
+        if (this.code != null && !this.code.equals(code) && !this.code.equals(category)) {
+            return false;
+        }
+        if (pathMatcher != null && (file == null || !matchesPath(file))) {
+            return false;
+        }
+        return messagePattern == null
+                || text != null && messagePattern.matcher(text).find();
+    }
+
+    private boolean matchesPath(String file) {
+        try {
+            return pathMatcher.matches(Paths.get(file));
+        } catch (InvalidPathException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "kind=" + kind + ", code=" + code + ", path=" + path + ", message=" + message;
+    }
+}
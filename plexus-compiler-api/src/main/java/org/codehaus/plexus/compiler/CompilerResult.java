@@ -18,8 +18,12 @@ package org.codehaus.plexus.compiler;
  * under the License.
  */
 
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * The result returned from a compiling language processor (aka compiler), possibly including
@@ -33,6 +37,12 @@ public class CompilerResult {
 
     private List<CompilerMessage> compilerMessages;
 
+    private Map<String, Duration> phaseTimings;
+
+    private Map<String, Duration> checkerTimings;
+
+    private long discardedOutputLines;
+
     /**
      * Constructs a successful compiler result with no messages.
      */
@@ -79,4 +89,95 @@ public class CompilerResult {
         this.setCompilerMessages(compilerMessages);
         return this;
     }
+
+    /**
+     * Returns the wall-clock time spent in each phase of the compilation, in the order the phases ran. Compilers
+     * which do not measure their phases leave this empty.
+     *
+     * @return the elapsed time per phase name, never <code>null</code>
+     * @since 2.17.1
+     */
+    public Map<String, Duration> getPhaseTimings() {
+        if (phaseTimings == null) {
+            return Collections.emptyMap();
+        }
+        return Collections.unmodifiableMap(phaseTimings);
+    }
+
+    /**
+     * Records the time spent in a phase of the compilation. Recording the same phase again adds to its total.
+     *
+     * @param phase the name of the phase, e.g. <code>compile</code> or <code>weave</code>
+     * @param elapsed the time spent in that phase
+     * @return this result
+     * @since 2.17.1
+     */
+    public CompilerResult phaseTiming(String phase, Duration elapsed) {
+        if (phaseTimings == null) {
+            phaseTimings = new LinkedHashMap<>();
+        }
+        phaseTimings.merge(phase, elapsed, Duration::plus);
+        return this;
+    }
+
+    /**
+     * Returns the cumulative time spent in each checker the compiler ran, such as the bug checkers of error-prone,
+     * slowest first. Only measured with {@link CompilerConfiguration#isCheckerProfiling() checker profiling}.
+     *
+     * @return the time spent per checker name, never <code>null</code>
+     * @since 2.17.1
+     */
+    public Map<String, Duration> getCheckerTimings() {
+        if (checkerTimings == null) {
+            return Collections.emptyMap();
+        }
+        return Collections.unmodifiableMap(checkerTimings);
+    }
+
+    /**
+     * Records the time spent in a checker. Recording the same checker again adds to its total.
+     *
+     * @param checker the name of the checker
+     * @param elapsed the time spent in that checker
+     * @return this result
+     * @since 2.17.1
+     */
+    public CompilerResult checkerTiming(String checker, Duration elapsed) {
+        if (checkerTimings == null) {
+            checkerTimings = new LinkedHashMap<>();
+        }
+        checkerTimings.merge(checker, elapsed, Duration::plus);
+        return this;
+    }
+
+    /**
+     * Returns the number of lines of compiler output discarded beyond
+     * {@link CompilerConfiguration#getOutputLimit() the output limit}, which were not parsed for messages.
+     *
+     * @return the number of discarded lines, <code>0</code> if the output was complete
+     * @since 2.17.1
+     */
+    public long getDiscardedOutputLines() {
+        return discardedOutputLines;
+    }
+
+    /**
+     * @return whether some compiler output was discarded
+     * @since 2.17.1
+     */
+    public boolean isOutputTruncated() {
+        return discardedOutputLines > 0;
+    }
+
+    /**
+     * Records the number of lines of compiler output discarded beyond the output limit.
+     *
+     * @param discardedOutputLines the number of discarded lines
+     * @return this result
+     * @since 2.17.1
+     */
+    public CompilerResult discardedOutputLines(long discardedOutputLines) {
+        this.discardedOutputLines = discardedOutputLines;
+        return this;
+    }
 }
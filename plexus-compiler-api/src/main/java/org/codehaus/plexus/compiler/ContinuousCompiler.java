@@ -0,0 +1,280 @@
+package org.codehaus.plexus.compiler;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+import org.codehaus.plexus.util.SelectorUtils;
+
+/**
+ * Compiles the sources of a configuration again each time some of them change, for a development loop without a
+ * build per change.
+ * <p>
+ * The {@link CompilerConfiguration#getSourceLocations() source locations} are watched by a {@link WatchService}.
+ * Changes are gathered until none happened for a debounce window, such as the saves of several files at once, then
+ * only the created and modified sources matching the includes and excludes are compiled, with the output location on
+ * the class path for the others. Sources depending on a changed one are not compiled again, unless the compiler does it
+ * by itself, as javac does for the sources it finds stale on its source path. Deleted sources leave their output as it
+ * is. The compiler is kept warm between compilations by
+ * {@link CompilerConfiguration.CompilerReuseStrategy#ReuseSame reusing the same one}, with a
+ * {@link CompilerConfiguration#isWarmContext() warm context}.
+ * <p>
+ * The configuration is owned by the continuous compiler, which sets its source files for each compilation, run one
+ * after the other on a thread of its own. The results are passed to a {@link Listener} on that thread.
+ *
+ * @since 2.17.1
+ */
+public class ContinuousCompiler implements Closeable {
+    /**
+     * Receives the results of the compilations.
+     */
+    public interface Listener {
+        /**
+         * @param sources the compiled sources, empty for the initial compilation of all of them
+         * @param result  the result of the compilation
+         */
+        void compiled(Set<File> sources, CompilerResult result);
+
+        /**
+         * @param sources the sources which could not be compiled, empty for the initial compilation of all of them
+         * @param e       the reason why
+         */
+        default void failed(Set<File> sources, Exception e) {}
+    }
+
+    private final Compiler compiler;
+
+    private final CompilerConfiguration config;
+
+    private final Duration debounce;
+
+    private final Listener listener;
+
+    private final Map<WatchKey, Path> directories = new HashMap<>();
+
+    private WatchService watchService;
+
+    private Thread thread;
+
+    /**
+     * @param compiler the compiler, such as javac in-process or ecj
+     * @param config   the configuration of the compilations
+     * @param debounce how long to wait for more changes after one, before compiling
+     * @param listener the listener of the results
+     */
+    public ContinuousCompiler(Compiler compiler, CompilerConfiguration config, Duration debounce, Listener listener) {
+        this.compiler = compiler;
+        this.config = config;
+        this.debounce = debounce;
+        this.listener = listener;
+        config.setCompilerReuseStrategy(CompilerConfiguration.CompilerReuseStrategy.ReuseSame);
+        config.setWarmContext(true);
+        if (!config.getClasspathEntries().contains(config.getOutputLocation())) {
+            config.addClasspathEntry(config.getOutputLocation());
+        }
+    }
+
+    /**
+     * Starts watching the source locations, then compiles all the sources, then the changed ones as they change.
+     *
+     * @throws IOException if the source locations cannot be watched
+     */
+    public synchronized void start() throws IOException {
+        if (watchService != null) {
+            throw new IllegalStateException("Already started");
+        }
+        watchService = FileSystems.getDefault().newWatchService();
+        for (String sourceLocation : config.getSourceLocations()) {
+            Path root = new File(sourceLocation).toPath().toAbsolutePath();
+            if (Files.isDirectory(root)) {
+                register(root, null);
+            }
+        }
+        thread = new Thread(this::run, "plexus-compiler-continuous");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops watching, waiting for the compilation in progress, if any.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (watchService == null) {
+            return;
+        }
+        watchService.close();
+        if (thread != Thread.currentThread()) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void run() {
+        compile(Collections.emptySet());
+        try {
+            while (true) {
+                Set<File> changed = new TreeSet<>();
+                WatchKey key = watchService.take();
+                // gather the changes until none happened for the debounce window
+                while (key != null) {
+                    collect(key, changed);
+                    key = watchService.poll(debounce.toNanos(), TimeUnit.NANOSECONDS);
+                }
+                if (!changed.isEmpty()) {
+                    compile(changed);
+                }
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            // closed
+        }
+    }
+
+    private void compile(Set<File> sources) {
+        config.setSourceFiles(sources);
+        try {
+            listener.compiled(sources, compiler.performCompile(config));
+        } catch (CompilerException | RuntimeException e) {
+            listener.failed(sources, e);
+        }
+    }
+
+    /**
+     * Adds the created and modified sources of the events of a key to the changed ones, and watches the created
+     * directories, whose sources are changed too.
+     */
+    private void collect(WatchKey key, Set<File> changed) {
+        Path directory = directories.get(key);
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW || directory == null) {
+                continue;
+            }
+            Path path = directory.resolve((Path) event.context());
+            if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+                changed.remove(path.toFile());
+            } else if (Files.isDirectory(path)) {
+                if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE) {
+                    try {
+                        register(path, changed);
+                    } catch (IOException e) {
+                        listener.failed(Collections.singleton(path.toFile()), e);
+                    }
+                }
+            } else if (isSource(path)) {
+                changed.add(path.toFile());
+            }
+        }
+        if (!key.reset()) {
+            directories.remove(key);
+        }
+    }
+
+    /**
+     * Watches a directory and its subdirectories, adding their sources to the changed ones, if any.
+     */
+    private void register(Path root, Set<File> changed) throws IOException {
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path directory, BasicFileAttributes attributes)
+                    throws IOException {
+                WatchKey key = directory.register(
+                        watchService,
+                        StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY,
+                        StandardWatchEventKinds.ENTRY_DELETE);
+                directories.put(key, directory);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                if (changed != null && isSource(file)) {
+                    changed.add(file.toFile());
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * @return whether the file matches the includes, by default all the files of the input file ending of the
+     * compiler, and not the excludes
+     */
+    private boolean isSource(Path file) {
+        String relativePath = getRelativePath(file);
+        if (relativePath == null) {
+            return false;
+        }
+        List<String> includes = new ArrayList<>(config.getIncludes());
+        if (includes.isEmpty()) {
+            try {
+                includes.add("**/*" + compiler.getInputFileEnding(config));
+            } catch (CompilerException e) {
+                return false;
+            }
+        }
+        return matches(includes, relativePath) && !matches(config.getExcludes(), relativePath);
+    }
+
+    private String getRelativePath(Path file) {
+        for (String sourceLocation : config.getSourceLocations()) {
+            Path root = new File(sourceLocation).toPath().toAbsolutePath();
+            if (file.startsWith(root)) {
+                return root.relativize(file).toString();
+            }
+        }
+        return null;
+    }
+
+    private static boolean matches(Iterable<String> patterns, String relativePath) {
+        for (String pattern : patterns) {
+            String normalised = pattern.replace('/', File.separatorChar).replace('\\', File.separatorChar);
+            if (SelectorUtils.matchPath(normalised, relativePath)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,124 @@
+package org.codehaus.plexus.compiler.util;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.IOException;
+import java.io.Writer;
+
+import org.codehaus.plexus.util.cli.StreamConsumer;
+
+/**
+ * Splits what an in-process compiler writes into lines, passed to a consumer as soon as they are terminated, so that
+ * its output is never held as a whole. Lines end with a line feed, a carriage return or both, as for
+ * {@link java.io.BufferedReader#readLine()}; a last unterminated line is passed on {@link #close()}.
+ *
+ * @since 2.17.1
+ */
+public class LineWriter extends Writer {
+    private final StreamConsumer consumer;
+
+    private final StringBuilder line = new StringBuilder();
+
+    /** Whether the last character was a carriage return, which a line feed then completes. */
+    private boolean carriageReturn;
+
+    private boolean closed;
+
+    /**
+     * @param consumer the consumer of the lines
+     */
+    public LineWriter(StreamConsumer consumer) {
+        this.consumer = consumer;
+    }
+
+    @Override
+    public void write(char[] chars, int offset, int length) throws IOException {
+        synchronized (lock) {
+            ensureOpen();
+            int end = offset + length;
+            int start = offset;
+            for (int i = offset; i < end; i++) {
+                char c = chars[i];
+                if (c == '\n' && carriageReturn) {
+                    // the line was already ended by the carriage return
+                    carriageReturn = false;
+                    start = i + 1;
+                    continue;
+                }
+                carriageReturn = c == '\r';
+                if (c == '\n' || c == '\r') {
+                    line.append(chars, start, i - start);
+                    start = i + 1;
+                    endLine();
+                }
+            }
+            line.append(chars, start, end - start);
+        }
+    }
+
+    @Override
+    public void write(String text, int offset, int length) throws IOException {
+        char[] chars = new char[length];
+        text.getChars(offset, offset + length, chars, 0);
+        write(chars, 0, length);
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+        write(new char[] {(char) c}, 0, 1);
+    }
+
+    /**
+     * Does nothing, as an unterminated line may still be continued.
+     */
+    @Override
+    public void flush() throws IOException {
+        synchronized (lock) {
+            ensureOpen();
+        }
+    }
+
+    /**
+     * Passes the last line, if it is not terminated.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (line.length() > 0) {
+                endLine();
+            }
+        }
+    }
+
+    private void endLine() throws IOException {
+        consumer.consumeLine(line.toString());
+        line.setLength(0);
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Writer closed");
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package org.codehaus.plexus.compiler.util;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.codehaus.plexus.compiler.CompilerConfiguration;
+import org.codehaus.plexus.compiler.CompilerMessage;
+import org.codehaus.plexus.util.cli.StreamConsumer;
+
+/**
+ * Captures the lines of output of a forked compiler, to parse them once it has exited, without holding all of them in
+ * memory.
+ * <p>
+ * The lines are kept in memory up to a number of characters, beyond which all of them are written to a temporary
+ * file instead, read back by {@link #newReader()} as they would have been from memory. Lines beyond a second, larger
+ * limit, and all the following ones, are only counted, and reported by {@link #getTruncationMessage()}. The file is deleted on {@link #close()}.
+ *
+ * @since 2.17.1
+ */
+public class OutputCapture implements StreamConsumer, Closeable {
+    private final int memoryLimit;
+
+    private final long limit;
+
+    private final File directory;
+
+    private final StringBuilder memory = new StringBuilder();
+
+    private Path file;
+
+    private Writer fileWriter;
+
+    private long length;
+
+    private long discardedLines;
+
+    /**
+     * Captures the output with the limits of the configuration, spilling it to its build directory.
+     *
+     * @param config the compiler configuration
+     */
+    public OutputCapture(CompilerConfiguration config) {
+        this(config.getOutputMemoryLimit(), config.getOutputLimit(), config.getBuildDirectory());
+    }
+
+    /**
+     * @param memoryLimit the characters kept in memory, line terminators included
+     * @param limit       the characters kept at most, or a negative value for no limit
+     * @param directory   the directory of the temporary file, the default temporary directory if <code>null</code>
+     */
+    public OutputCapture(int memoryLimit, long limit, File directory) {
+        this.memoryLimit = memoryLimit;
+        this.limit = limit;
+        this.directory = directory;
+    }
+
+    @Override
+    public synchronized void consumeLine(String line) throws IOException {
+        int lineLength = line.length() + 1;
+        // once a line is discarded, so are all the following ones, the output parsed being a head of the whole
+        if (discardedLines > 0 || limit >= 0 && length + lineLength > limit) {
+            discardedLines++;
+            return;
+        }
+        length += lineLength;
+
+        if (fileWriter == null && memory.length() + lineLength > memoryLimit) {
+            spill();
+        }
+        if (fileWriter != null) {
+            fileWriter.write(line);
+            fileWriter.write('\n');
+        } else {
+            memory.append(line).append('\n');
+        }
+    }
+
+    /**
+     * Captures the lines of another capture after those of this one, as well as the count of its discarded lines.
+     *
+     * @param other the capture to append
+     */
+    public void append(OutputCapture other) throws IOException {
+        try (BufferedReader reader = other.newReader()) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                consumeLine(line);
+            }
+        }
+        long otherDiscardedLines = other.getDiscardedLines();
+        synchronized (this) {
+            discardedLines += otherDiscardedLines;
+        }
+    }
+
+    private void spill() throws IOException {
+        if (directory != null) {
+            Files.createDirectories(directory.toPath());
+            file = Files.createTempFile(directory.toPath(), "compiler-output-", ".txt");
+        } else {
+            file = Files.createTempFile("compiler-output-", ".txt");
+        }
+        fileWriter = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+        fileWriter.append(memory);
+        memory.setLength(0);
+        memory.trimToSize();
+    }
+
+    /**
+     * @return a reader of the lines captured so far, to close once read
+     */
+    public synchronized BufferedReader newReader() throws IOException {
+        if (fileWriter != null) {
+            fileWriter.flush();
+            return Files.newBufferedReader(file, StandardCharsets.UTF_8);
+        }
+        return new BufferedReader(new StringReader(memory.toString()));
+    }
+
+    /**
+     * @return whether the output was written to a temporary file
+     */
+    public synchronized boolean isSpilled() {
+        return fileWriter != null;
+    }
+
+    /**
+     * @return the number of lines discarded beyond the limit
+     */
+    public synchronized long getDiscardedLines() {
+        return discardedLines;
+    }
+
+    /**
+     * @return a message telling how many lines were discarded, or <code>null</code> if none was
+     */
+    public synchronized CompilerMessage getTruncationMessage() {
+        if (discardedLines == 0) {
+            return null;
+        }
+        return new CompilerMessage(
+                discardedLines + " more lines of compiler output not parsed, beyond the limit of " + limit
+                        + " characters",
+                CompilerMessage.Kind.OTHER);
+    }
+
+    /**
+     * Deletes the temporary file, if any.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (fileWriter != null) {
+            try {
+                fileWriter.close();
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package org.codehaus.plexus.compiler.util;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import javax.tools.FileObject;
+import javax.tools.StandardJavaFileManager;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The outputs of each source of a compilation, such as <code>Foo.class</code> and <code>Foo$Bar.class</code> for
+ * <code>Foo.java</code>, recorded from the file manager of the compiler and persisted from one compilation to the
+ * next. It tells exactly which outputs a source is stale against, and which outputs no source produces any more: the
+ * nested classes removed from a recompiled source, and all the classes of a deleted source.
+ * <p>
+ * The manifest is a UTF-8 text file listing each source on a line, followed by its outputs on lines starting with a
+ * tab. All paths are absolute and normalised.
+ *
+ * @since 2.17.1
+ */
+public final class OutputManifest {
+    private static final String HEADER = "# plexus-compiler output manifest";
+
+    private final Map<File, Set<File>> outputsPerSource = new TreeMap<>();
+
+    /**
+     * Reads the manifest of a file.
+     *
+     * @param file the file of the manifest
+     * @return the manifest, empty if the file does not exist
+     * @throws IOException if the file cannot be read
+     */
+    public static OutputManifest read(File file) throws IOException {
+        OutputManifest manifest = new OutputManifest();
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            Set<File> outputs = null;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                if (line.charAt(0) != '\t') {
+                    outputs = manifest.outputsPerSource.computeIfAbsent(new File(unescape(line)), s -> new TreeSet<>());
+                } else if (outputs != null) {
+                    outputs.add(new File(unescape(line.substring(1))));
+                }
+            }
+        } catch (NoSuchFileException e) {
+            // nothing compiled yet
+        }
+        return manifest;
+    }
+
+    /**
+     * Writes the manifest to a temporary file first, then moves it in place, so that it is read whole or not at all.
+     *
+     * @param file the file of the manifest, whose directory is created if need be
+     * @throws IOException if the file cannot be written
+     */
+    public void write(File file) throws IOException {
+        Path path = file.toPath().toAbsolutePath();
+        Files.createDirectories(path.getParent());
+        Path temporary =
+                Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+                writer.write(HEADER);
+                writer.write('\n');
+                for (Map.Entry<File, Set<File>> entry : outputsPerSource.entrySet()) {
+                    writer.write(escape(entry.getKey().getPath()));
+                    writer.write('\n');
+                    for (File output : entry.getValue()) {
+                        writer.write('\t');
+                        writer.write(escape(output.getPath()));
+                        writer.write('\n');
+                    }
+                }
+            }
+            try {
+                Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * @return the sources of the manifest
+     */
+    public Set<File> getSources() {
+        return Collections.unmodifiableSet(outputsPerSource.keySet());
+    }
+
+    /**
+     * @param source a source file
+     * @return the outputs of the source, empty if it is not in the manifest
+     */
+    public Set<File> getOutputs(File source) {
+        Set<File> outputs = outputsPerSource.get(normalize(source));
+        return outputs == null ? Collections.emptySet() : Collections.unmodifiableSet(outputs);
+    }
+
+    /**
+     * Updates the manifest with the outputs of the sources of a compilation. Once a compilation has succeeded, the
+     * outputs the compiled sources no longer produce are deleted, as well as those of the sources which no longer
+     * exist, unless another source produces them now. A failed compilation only adds its outputs, as it may have
+     * stopped before writing them all.
+     *
+     * @param outputs the outputs per compiled source
+     * @param success whether the compilation succeeded
+     * @return the deleted outputs
+     * @throws IOException if an output cannot be deleted
+     */
+    public Set<File> update(Map<File, Set<File>> outputs, boolean success) throws IOException {
+        Set<File> orphans = new HashSet<>();
+        for (Map.Entry<File, Set<File>> entry : outputs.entrySet()) {
+            Set<File> newOutputs = new TreeSet<>();
+            for (File output : entry.getValue()) {
+                newOutputs.add(normalize(output));
+            }
+            File source = normalize(entry.getKey());
+            Set<File> oldOutputs = outputsPerSource.put(source, newOutputs);
+            if (oldOutputs != null) {
+                if (success) {
+                    oldOutputs.removeAll(newOutputs);
+                    orphans.addAll(oldOutputs);
+                } else {
+                    newOutputs.addAll(oldOutputs);
+                }
+            }
+        }
+        if (!success) {
+            return Collections.emptySet();
+        }
+
+        for (Iterator<Map.Entry<File, Set<File>>> entries =
+                        outputsPerSource.entrySet().iterator();
+                entries.hasNext(); ) {
+            Map.Entry<File, Set<File>> entry = entries.next();
+            if (!entry.getKey().exists()) {
+                orphans.addAll(entry.getValue());
+                entries.remove();
+            }
+        }
+        for (Set<File> claimed : outputsPerSource.values()) {
+            orphans.removeAll(claimed);
+        }
+
+        Set<File> deleted = new TreeSet<>();
+        for (File orphan : orphans) {
+            if (Files.deleteIfExists(orphan.toPath())) {
+                deleted.add(orphan);
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Reads the manifest of a file, {@link #update(Map, boolean) updates} it and writes it back.
+     *
+     * @param file the file of the manifest
+     * @param outputs the outputs per compiled source
+     * @param success whether the compilation succeeded
+     * @return the deleted outputs
+     * @throws IOException if the manifest cannot be read or written, or an output cannot be deleted
+     */
+    public static Set<File> update(File file, Map<File, Set<File>> outputs, boolean success) throws IOException {
+        OutputManifest manifest = read(file);
+        Set<File> deleted = manifest.update(outputs, success);
+        manifest.write(file);
+        return deleted;
+    }
+
+    /**
+     * Wraps a file manager so that the outputs it opens are recorded under their source, the sibling the compiler
+     * gives with each output. A proxy rather than a forwarding file manager is used, so that the methods of all the
+     * versions of {@link StandardJavaFileManager} are delegated, not only those of the version compiled against.
+     *
+     * @param fileManager the file manager of the compilation
+     * @param outputs the map to record the outputs per source in, which the compiler may write from several threads
+     * @return the recording file manager
+     */
+    public static StandardJavaFileManager recordOutputs(
+            StandardJavaFileManager fileManager, Map<File, Set<File>> outputs) {
+        return (StandardJavaFileManager) Proxy.newProxyInstance(
+                OutputManifest.class.getClassLoader(),
+                new Class<?>[] {StandardJavaFileManager.class},
+                (proxy, method, args) -> {
+                    Object result;
+                    try {
+                        result = method.invoke(fileManager, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                    if (("getJavaFileForOutput".equals(method.getName()) || "getFileForOutput".equals(method.getName()))
+                            && args.length == 4
+                            && args[3] instanceof FileObject
+                            && result instanceof FileObject) {
+                        File source = toFile(((FileObject) args[3]).toUri());
+                        File output = toFile(((FileObject) result).toUri());
+                        if (source != null && output != null) {
+                            outputs.computeIfAbsent(source, s -> ConcurrentHashMap.newKeySet())
+                                    .add(output);
+                        }
+                    }
+                    return result;
+                });
+    }
+
+    private static File toFile(URI uri) {
+        if (!"file".equals(uri.getScheme())) {
+            return null;
+        }
+        return Paths.get(uri).toFile();
+    }
+
+    private static File normalize(File file) {
+        return file.toPath().toAbsolutePath().normalize().toFile();
+    }
+
+    private static String escape(String path) {
+        return path.replace("\\", "\\\\").replace("\n", "\\n").replace("\r", "\\r");
+    }
+
+    private static String unescape(String path) {
+        StringBuilder unescaped = new StringBuilder(path.length());
+        for (int i = 0; i < path.length(); i++) {
+            char c = path.charAt(i);
+            if (c == '\\' && i + 1 < path.length()) {
+                c = path.charAt(++i);
+                unescaped.append(c == 'n' ? '\n' : c == 'r' ? '\r' : c);
+            } else {
+                unescaped.append(c);
+            }
+        }
+        return unescaped.toString();
+    }
+}
@@ -0,0 +1,172 @@
+package org.codehaus.plexus.compiler.util;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.charset.Charset;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.codehaus.plexus.util.cli.CommandLineException;
+import org.codehaus.plexus.util.cli.Commandline;
+import org.codehaus.plexus.util.cli.StreamConsumer;
+
+/**
+ * Runs the processes of forked compilers, as {@link org.codehaus.plexus.util.cli.CommandLineUtils} does, with one
+ * thread less per process.
+ * <p>
+ * The standard output is pumped by the calling thread, which has nothing else to do until the process exits, and only
+ * the standard error by another thread: a virtual thread when the JVM has them, which costs no platform thread while
+ * blocked on the stream, or else a daemon platform thread. Both streams are decoded with the platform charset.
+ *
+ * @since 2.17.1
+ */
+public final class ProcessRunner {
+    private static final ThreadFactory PUMP_THREADS = createThreadFactory();
+
+    private ProcessRunner() {}
+
+    /**
+     * Runs the command line until the process exits and both its output streams are consumed. The standard input of
+     * the process is closed, forked compilers do not read it.
+     *
+     * @param cli the command line to run
+     * @param out the consumer of the lines of standard output
+     * @param err the consumer of the lines of standard error, which may be the same as <code>out</code>: calls to a
+     *            consumer are never concurrent
+     * @return the exit code of the process
+     * @throws CommandLineException if the process cannot be started, its output cannot be consumed, or the calling
+     *                              thread is interrupted, in which case the process is destroyed
+     */
+    public static int execute(Commandline cli, StreamConsumer out, StreamConsumer err) throws CommandLineException {
+        Consumer<String> outConsumer = lines(out);
+        Consumer<String> errConsumer = out == err ? outConsumer : lines(err);
+        if (out == err) {
+            Object lock = new Object();
+            Consumer<String> consumer = outConsumer;
+            outConsumer = line -> {
+                synchronized (lock) {
+                    consumer.accept(line);
+                }
+            };
+            errConsumer = outConsumer;
+        }
+
+        Process process = cli.execute();
+        Thread destroyer = new Thread(process::destroy);
+        boolean hooked = addShutdownHook(destroyer);
+        try {
+            process.getOutputStream().close();
+
+            Charset charset = Charset.defaultCharset();
+            StreamPumper errPumper = new StreamPumper(process.getErrorStream(), charset, errConsumer);
+            Thread errThread = PUMP_THREADS.newThread(errPumper);
+            errThread.start();
+            StreamPumper outPumper = new StreamPumper(process.getInputStream(), charset, outConsumer);
+            outPumper.run();
+
+            int exitCode = process.waitFor();
+            errThread.join();
+            if (outPumper.getException() != null) {
+                throw new CommandLineException("Failure processing stdout", outPumper.getException());
+            }
+            if (errPumper.getException() != null) {
+                throw new CommandLineException("Failure processing stderr", errPumper.getException());
+            }
+            return exitCode;
+        } catch (IOException e) {
+            throw new CommandLineException("Error while executing " + cli.getExecutable(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CommandLineException("Interrupted while waiting for " + cli.getExecutable(), e);
+        } finally {
+            if (process.isAlive()) {
+                process.destroy();
+            }
+            if (hooked) {
+                removeShutdownHook(destroyer);
+            }
+        }
+    }
+
+    private static Consumer<String> lines(StreamConsumer consumer) {
+        return line -> {
+            try {
+                consumer.consumeLine(line);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+
+    private static boolean addShutdownHook(Thread hook) {
+        try {
+            Runtime.getRuntime().addShutdownHook(hook);
+            return true;
+        } catch (IllegalStateException e) {
+            // the JVM is already shutting down
+            return false;
+        }
+    }
+
+    private static void removeShutdownHook(Thread hook) {
+        try {
+            Runtime.getRuntime().removeShutdownHook(hook);
+        } catch (IllegalStateException e) {
+            // the JVM is already shutting down
+        }
+    }
+
+    /**
+     * Looks up <code>Thread.ofVirtual().name("plexus-compiler-pump-", 0).factory()</code> reflectively, as this
+     * module is compiled for Java 8, and falls back to platform threads if the JVM has no virtual threads, or only
+     * as a preview feature.
+     */
+    private static ThreadFactory createThreadFactory() {
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass
+                    .getMethod("name", String.class, long.class)
+                    .invoke(builder, "plexus-compiler-pump-", 0L);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (ClassNotFoundException
+                | NoSuchMethodException
+                | IllegalAccessException
+                | InvocationTargetException
+                | RuntimeException e) {
+            return new PlatformThreadFactory();
+        }
+    }
+
+    private static final class PlatformThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "plexus-compiler-pump-" + count.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
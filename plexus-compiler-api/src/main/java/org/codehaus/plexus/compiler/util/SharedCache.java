@@ -0,0 +1,214 @@
+package org.codehaus.plexus.compiler.util;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A cache of immutable entries shared by all the JVMs of a machine through a directory, such as the builds running at
+ * the same time on a build agent, so that each does not redo what another one already did.
+ * <p>
+ * An entry is a text value, published once under a key which must identify its content, such as the path, size and
+ * modification time of the file it was computed from: entries are never updated, a changed input gives a new key.
+ * Each entry is a file named after the SHA-256 of its key, written to a temporary file first then moved in place, so
+ * that it is read whole or not at all. Computing an absent entry holds a file lock, so that JVMs wanting the same
+ * entry at the same time wait for the first one to publish it rather than all computing it. The cache only saves
+ * work: if its directory cannot be used, values are computed as if it were not there.
+ *
+ * @since 2.17.1
+ */
+public final class SharedCache {
+    /**
+     * Computes the value of an absent entry.
+     *
+     * @param <E> the exception thrown when the value cannot be computed
+     */
+    @FunctionalInterface
+    public interface Loader<E extends Exception> {
+        /**
+         * @return the value, or <code>null</code> for none, which is not published
+         * @throws E if the value cannot be computed
+         */
+        String load() throws E;
+    }
+
+    private static final String SUFFIX = ".entry";
+
+    /** The locks of the JVM per lock file, as a JVM cannot hold two file locks on the same file. */
+    private static final Map<Path, Object> LOCKS = new ConcurrentHashMap<>();
+
+    private final Path directory;
+
+    /**
+     * @param directory the directory of the cache, created on first use
+     */
+    public SharedCache(File directory) {
+        this.directory = directory.toPath();
+    }
+
+    /**
+     * Returns the value of an entry, computing and publishing it if no JVM did yet.
+     *
+     * @param namespace the kind of the entries, such as <code>javac-version</code>, a subdirectory of the cache
+     * @param key       the key of the entry, identifying its content
+     * @param loader    computes the value of the entry if it is absent
+     * @param <E>       the exception thrown by the loader
+     * @return the value of the entry
+     * @throws E if the value had to be computed and could not be
+     */
+    public <E extends Exception> String get(String namespace, String key, Loader<E> loader) throws E {
+        Path file = directory.resolve(namespace).resolve(sha256(key) + SUFFIX);
+        String value = readQuietly(file, key);
+        if (value != null) {
+            return value;
+        }
+        Path lockFile = file.resolveSibling(file.getFileName() + ".lock");
+        synchronized (LOCKS.computeIfAbsent(lockFile, f -> new Object())) {
+            FileLock lock = lockQuietly(lockFile);
+            try {
+                if (lock != null) {
+                    // another JVM may have published it while this one waited for the lock
+                    value = readQuietly(file, key);
+                    if (value != null) {
+                        return value;
+                    }
+                }
+                value = loader.load();
+                if (lock != null && value != null) {
+                    try {
+                        write(file, key, value);
+                    } catch (IOException e) {
+                        // the cache only saves work
+                    }
+                }
+                return value;
+            } finally {
+                if (lock != null) {
+                    try {
+                        lock.channel().close();
+                    } catch (IOException e) {
+                        // the lock is released with the channel anyway
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the lock of an entry, or <code>null</code> if the directory of the cache cannot be used
+     */
+    private static FileLock lockQuietly(Path lockFile) {
+        FileChannel channel = null;
+        try {
+            Files.createDirectories(lockFile.getParent());
+            channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            return channel.lock();
+        } catch (IOException e) {
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+            }
+            return null;
+        }
+    }
+
+    private static String readQuietly(Path file, String key) {
+        try {
+            return read(file, key);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return the value of the entry, or <code>null</code> if it is absent, or was published under another key with
+     * the same hash
+     */
+    private static String read(Path file, String key) throws IOException {
+        String content;
+        try {
+            content = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        int separator = content.indexOf('\n');
+        if (separator < 0 || !content.substring(0, separator).equals(escape(key))) {
+            return null;
+        }
+        return content.substring(separator + 1);
+    }
+
+    private static void write(Path file, String key, String value) throws IOException {
+        Path temporary =
+                Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                ByteBuffer bytes = ByteBuffer.wrap((escape(key) + '\n' + value).getBytes(StandardCharsets.UTF_8));
+                while (bytes.hasRemaining()) {
+                    channel.write(bytes);
+                }
+            }
+            try {
+                Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /** Keeps the key on the first line of the entry. */
+    private static String escape(String key) {
+        return key.replace("\\", "\\\\").replace("\n", "\\n").replace("\r", "\\r");
+    }
+
+    private static String sha256(String key) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        StringBuilder hex = new StringBuilder(64);
+        for (byte b : digest.digest(key.getBytes(StandardCharsets.UTF_8))) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+}
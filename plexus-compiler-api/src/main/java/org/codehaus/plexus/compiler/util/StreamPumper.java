@@ -25,48 +25,197 @@ package org.codehaus.plexus.compiler.util;
  */
 import java.io.BufferedInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.OutputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.util.function.Consumer;
 
 /**
+ * Copies a stream, typically the output of a forked compiler, as it is produced.
+ * <p>
+ * Reads block until data is available, so that nothing is waited for once it is, and the buffer grows while reads
+ * fill it, up to {@value #MAX_BUFFER_SIZE} bytes. The stream is copied either to an {@link OutputStream}, flushed
+ * whenever no more data is available yet, or as lines to a {@link Consumer}, the last line being passed even if it is
+ * not terminated. Either way the pumping ends at the end of the stream, which is not closed, or at the first failure to
+ * read. The first failure to read, write or consume is available from {@link #getException()} once the thread is
+ * {@link #join() joined}; after a failure to write or consume, the rest of the stream is read and discarded, so that
+ * the process writing it is not blocked on a full pipe.
+ *
  * @author <a href="mailto:jason@maven.org">Jason van Zyl</a>
  */
 public class StreamPumper extends Thread {
-    private static final int BUFFER_SIZE = 512;
-
-    private final BufferedInputStream stream;
+    private static final int INITIAL_BUFFER_SIZE = 8 * 1024;
 
-    private boolean endOfStream = false;
+    private static final int MAX_BUFFER_SIZE = 64 * 1024;
 
-    private int SLEEP_TIME = 5;
+    private final InputStream stream;
 
     private final OutputStream out;
 
+    private final Reader reader;
+
+    private final Consumer<String> lineConsumer;
+
+    private final StringBuilder line = new StringBuilder();
+
+    /** Whether the last character read was a carriage return, whose line a following line feed must not end again. */
+    private boolean afterCarriageReturn;
+
+    private byte[] bytes;
+
+    private char[] chars;
+
+    private volatile boolean endOfStream = false;
+
+    private volatile IOException exception;
+
     public StreamPumper(BufferedInputStream is, OutputStream out) {
+        this((InputStream) is, out);
+    }
+
+    /**
+     * @param is  the stream to copy
+     * @param out the stream to copy to
+     * @since 2.17.1
+     */
+    public StreamPumper(InputStream is, OutputStream out) {
         this.stream = is;
         this.out = out;
+        this.reader = null;
+        this.lineConsumer = null;
+    }
+
+    /**
+     * Passes the lines of the stream, without their terminator, to the consumer. Lines are terminated by a line feed, a
+     * carriage return or both, as for {@link java.io.BufferedReader#readLine()}.
+     *
+     * @param is           the stream to read
+     * @param charset      the encoding of the stream
+     * @param lineConsumer the consumer of the lines, called by this thread only, which may throw an
+     *                     {@link UncheckedIOException} to end the pumping
+     * @since 2.17.1
+     */
+    public StreamPumper(InputStream is, Charset charset, Consumer<String> lineConsumer) {
+        this.stream = is;
+        this.out = null;
+        this.reader = new InputStreamReader(is, charset);
+        this.lineConsumer = lineConsumer;
     }
 
+    /**
+     * Copies what one read returns, blocking until some data is available or the end of the stream is reached.
+     */
     public void pumpStream() throws IOException {
-        byte[] buf = new byte[BUFFER_SIZE];
-        if (!endOfStream) {
-            int bytesRead = stream.read(buf, 0, BUFFER_SIZE);
-
-            if (bytesRead > 0) {
-                out.write(buf, 0, bytesRead);
-            } else if (bytesRead == -1) {
-                endOfStream = true;
+        if (endOfStream) {
+            return;
+        }
+        if (reader != null) {
+            pumpLines();
+            return;
+        }
+
+        if (bytes == null) {
+            bytes = new byte[INITIAL_BUFFER_SIZE];
+        }
+        int bytesRead = stream.read(bytes, 0, bytes.length);
+        if (bytesRead > 0) {
+            out.write(bytes, 0, bytesRead);
+            if (bytesRead == bytes.length && bytes.length < MAX_BUFFER_SIZE) {
+                bytes = new byte[bytes.length * 2];
+            }
+            if (stream.available() == 0) {
+                out.flush();
             }
+        } else if (bytesRead == -1) {
+            endOfStream = true;
+            out.flush();
         }
     }
 
+    private void pumpLines() throws IOException {
+        if (chars == null) {
+            chars = new char[INITIAL_BUFFER_SIZE];
+        }
+        int charsRead = reader.read(chars, 0, chars.length);
+        if (charsRead == -1) {
+            endOfStream = true;
+            if (line.length() > 0) {
+                endLine();
+            }
+            return;
+        }
+
+        int start = 0;
+        for (int i = 0; i < charsRead; i++) {
+            char c = chars[i];
+            if (c == '\n' || c == '\r') {
+                if (c == '\r' || !afterCarriageReturn) {
+                    line.append(chars, start, i - start);
+                    endLine();
+                }
+                afterCarriageReturn = c == '\r';
+                start = i + 1;
+            } else {
+                afterCarriageReturn = false;
+            }
+        }
+        line.append(chars, start, charsRead - start);
+        if (charsRead == chars.length && chars.length < MAX_BUFFER_SIZE) {
+            chars = new char[chars.length * 2];
+        }
+    }
+
+    private void endLine() {
+        lineConsumer.accept(line.toString());
+        line.setLength(0);
+    }
+
+    @Override
     public void run() {
         try {
             while (!endOfStream) {
                 pumpStream();
-                sleep(SLEEP_TIME);
             }
-        } catch (Exception e) {
-            // getLogger().warn("Jikes.run()", e);
+        } catch (IOException e) {
+            exception = e;
+            discard();
+        } catch (UncheckedIOException e) {
+            // thrown by the line consumer
+            exception = e.getCause();
+            discard();
+        }
+    }
+
+    /**
+     * Reads the rest of the stream without copying it, until its end or a failure to read it.
+     */
+    private void discard() {
+        byte[] skipped = bytes != null ? bytes : new byte[INITIAL_BUFFER_SIZE];
+        try {
+            while (stream.read(skipped, 0, skipped.length) != -1) {
+                // nothing to copy it to any more
+            }
+        } catch (IOException e) {
+            // the stream cannot be read either
         }
     }
+
+    /**
+     * @return whether the end of the stream has been reached
+     * @since 2.17.1
+     */
+    public boolean isEndOfStream() {
+        return endOfStream;
+    }
+
+    /**
+     * @return the failure that ended the pumping before the end of the stream, if any
+     * @since 2.17.1
+     */
+    public IOException getException() {
+        return exception;
+    }
 }
@@ -17,9 +17,19 @@ package org.codehaus.plexus.compiler.util.scan;
  */
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.NotDirectoryException;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.codehaus.plexus.compiler.util.scan.mapping.SourceMapping;
@@ -28,6 +38,9 @@ import org.codehaus.plexus.compiler.util.scan.mapping.SourceMapping;
  * @author jdcasey
  */
 public class StaleSourceScanner extends AbstractSourceInclusionScanner {
+    /** The time of a file that does not exist, or whose source has not been read yet. */
+    private static final long UNKNOWN = -1;
+
     private final long lastUpdatedWithinMsecs;
 
     private final Set<String> sourceIncludes;
@@ -67,28 +80,89 @@ public class StaleSourceScanner extends AbstractSourceInclusionScanner {
 
         String[] potentialIncludes = scanForSources(sourceDir, sourceIncludes, sourceExcludes);
 
+        boolean[] stale = new boolean[potentialIncludes.length];
+        long[] sourceLastModified = new long[potentialIncludes.length];
+        Arrays.fill(sourceLastModified, UNKNOWN);
+        TargetDirectories targetDirectories = new TargetDirectories();
+
+        for (SourceMapping mapping : srcMappings) {
+            // never include files that don't have corresponding target mappings.
+            // the targets don't have to exist on the filesystem, but the
+            // mappers must tell us to look for them.
+            mapping.visitTargetFiles(targetDir, potentialIncludes, (source, directory, name) -> {
+                if (stale[source]) {
+                    return;
+                }
+                long targetLastModified = targetDirectories.lastModified(directory, name);
+                if (targetLastModified == UNKNOWN) {
+                    stale[source] = true;
+                    return;
+                }
+                if (sourceLastModified[source] == UNKNOWN) {
+                    sourceLastModified[source] = new File(sourceDir, potentialIncludes[source]).lastModified();
+                }
+                stale[source] = targetLastModified + lastUpdatedWithinMsecs < sourceLastModified[source];
+            });
+        }
+
         Set<File> matchingSources = new HashSet<>();
 
-        for (String path : potentialIncludes) {
-            File sourceFile = new File(sourceDir, path);
-
-            staleSourceFileTesting:
-            for (SourceMapping mapping : srcMappings) {
-                Set<File> targetFiles = mapping.getTargetFiles(targetDir, path);
-
-                // never include files that don't have corresponding target mappings.
-                // the targets don't have to exist on the filesystem, but the
-                // mappers must tell us to look for them.
-                for (File targetFile : targetFiles) {
-                    if (!targetFile.exists()
-                            || (targetFile.lastModified() + lastUpdatedWithinMsecs < sourceFile.lastModified())) {
-                        matchingSources.add(sourceFile);
-                        break staleSourceFileTesting;
-                    }
-                }
+        for (int i = 0; i < potentialIncludes.length; i++) {
+            if (stale[i]) {
+                matchingSources.add(new File(sourceDir, potentialIncludes[i]));
             }
         }
 
         return matchingSources;
     }
+
+    /**
+     * The files of the target directories, each listed once, so that a missing target costs no file system access
+     * and an existing one at most the reading of its attributes, which some file systems return with the listing.
+     */
+    private static final class TargetDirectories {
+        private final Map<File, Map<String, Path>> filesPerDirectory = new HashMap<>();
+
+        private File lastDirectory;
+
+        private Map<String, Path> lastFiles;
+
+        /**
+         * @return the last modification time of the target file, or {@link #UNKNOWN} if it does not exist
+         */
+        long lastModified(File directory, String name) {
+            if (directory != lastDirectory) {
+                lastFiles = filesPerDirectory.computeIfAbsent(directory, TargetDirectories::list);
+                lastDirectory = directory;
+            }
+            if (lastFiles == null) {
+                // the directory could not be listed
+                File file = new File(directory, name);
+                return file.exists() ? file.lastModified() : UNKNOWN;
+            }
+            Path file = lastFiles.get(name);
+            if (file == null) {
+                return UNKNOWN;
+            }
+            try {
+                return Files.getLastModifiedTime(file).toMillis();
+            } catch (IOException e) {
+                return UNKNOWN;
+            }
+        }
+
+        private static Map<String, Path> list(File directory) {
+            Map<String, Path> files = new HashMap<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory.toPath())) {
+                for (Path file : stream) {
+                    files.put(file.getFileName().toString(), file);
+                }
+            } catch (NoSuchFileException | NotDirectoryException e) {
+                // no target exists
+            } catch (IOException | InvalidPathException e) {
+                return null;
+            }
+            return files;
+        }
+    }
 }
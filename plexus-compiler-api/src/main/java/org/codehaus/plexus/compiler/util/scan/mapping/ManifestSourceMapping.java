@@ -0,0 +1,65 @@
+package org.codehaus.plexus.compiler.util.scan.mapping;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import org.codehaus.plexus.compiler.util.OutputManifest;
+import org.codehaus.plexus.compiler.util.scan.InclusionScanException;
+
+/**
+ * Maps each source to the outputs an {@link OutputManifest} recorded for it, all its classes rather than only the one
+ * named after it, so that a source is stale as soon as any of them is missing or older. Sources the manifest does not
+ * know, such as new ones, are mapped by another mapping.
+ *
+ * @since 2.17.1
+ */
+public class ManifestSourceMapping implements SourceMapping {
+    private final OutputManifest manifest;
+
+    private final List<File> sourceDirectories;
+
+    private final SourceMapping fallback;
+
+    /**
+     * @param manifest the manifest of the outputs of each source
+     * @param sourceDirectories the directories the source paths to map are relative to
+     * @param fallback the mapping of the sources the manifest has no outputs for
+     */
+    public ManifestSourceMapping(OutputManifest manifest, Collection<File> sourceDirectories, SourceMapping fallback) {
+        this.manifest = manifest;
+        this.sourceDirectories = new ArrayList<>(sourceDirectories);
+        this.fallback = fallback;
+    }
+
+    public Set<File> getTargetFiles(File targetDir, String source) throws InclusionScanException {
+        for (File sourceDirectory : sourceDirectories) {
+            Set<File> outputs = manifest.getOutputs(new File(sourceDirectory, source));
+            if (!outputs.isEmpty()) {
+                return outputs;
+            }
+        }
+        return fallback.getTargetFiles(targetDir, source);
+    }
+}
@@ -52,4 +52,16 @@ public class SingleTargetSourceMapping implements SourceMapping {
 
         return Collections.singleton(new File(targetDir, outputFile));
     }
+
+    @Override
+    public void visitTargetFiles(File targetDir, String[] sources, TargetFileVisitor visitor) {
+        File target = new File(targetDir, outputFile);
+        File directory = target.getParentFile();
+        String name = target.getName();
+        for (int i = 0; i < sources.length; i++) {
+            if (sources[i].endsWith(sourceSuffix)) {
+                visitor.visitTargetFile(i, directory, name);
+            }
+        }
+    }
 }
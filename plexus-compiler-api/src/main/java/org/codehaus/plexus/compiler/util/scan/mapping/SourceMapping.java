@@ -26,4 +26,39 @@ import org.codehaus.plexus.compiler.util.scan.InclusionScanException;
  */
 public interface SourceMapping {
     Set<File> getTargetFiles(File targetDir, String source) throws InclusionScanException;
+
+    /**
+     * Maps all the sources at once, giving each target as its directory and file name rather than in a new set of
+     * new files per source. Implementations should return the same directory instance for the targets of the sources
+     * of a same directory, which lets callers list each target directory once instead of checking each target.
+     *
+     * @param targetDir the target directory
+     * @param sources   the source paths, relative to their source directory
+     * @param visitor   the visitor of the targets of each source
+     * @throws InclusionScanException if a source cannot be mapped
+     * @since 2.17.1
+     */
+    default void visitTargetFiles(File targetDir, String[] sources, TargetFileVisitor visitor)
+            throws InclusionScanException {
+        for (int i = 0; i < sources.length; i++) {
+            for (File targetFile : getTargetFiles(targetDir, sources[i])) {
+                visitor.visitTargetFile(i, targetFile.getParentFile(), targetFile.getName());
+            }
+        }
+    }
+
+    /**
+     * Visits the targets of the sources given to {@link #visitTargetFiles(File, String[], TargetFileVisitor)}.
+     *
+     * @since 2.17.1
+     */
+    @FunctionalInterface
+    interface TargetFileVisitor {
+        /**
+         * @param source    the index of the source
+         * @param directory the directory of the target file
+         * @param name      the name of the target file
+         */
+        void visitTargetFile(int source, File directory, String name);
+    }
 }
@@ -54,4 +54,36 @@ public final class SuffixMapping implements SourceMapping {
 
         return targetFiles;
     }
+
+    /**
+     * Sources are usually given directory by directory, so the directory of the last target is kept and reused as
+     * long as the next targets are in the same directory.
+     */
+    @Override
+    public void visitTargetFiles(File targetDir, String[] sources, TargetFileVisitor visitor) {
+        String directoryPath = null;
+        File directory = targetDir;
+        for (int i = 0; i < sources.length; i++) {
+            String source = sources[i];
+            if (!source.endsWith(sourceSuffix)) {
+                continue;
+            }
+            String base = source.substring(0, source.length() - sourceSuffix.length());
+
+            for (String suffix : targetSuffixes) {
+                String target = base + suffix;
+                int separator = Math.max(target.lastIndexOf('/'), target.lastIndexOf(File.separatorChar));
+                if (separator < 0) {
+                    directoryPath = null;
+                    directory = targetDir;
+                } else if (directoryPath == null
+                        || directoryPath.length() != separator
+                        || !target.startsWith(directoryPath)) {
+                    directoryPath = target.substring(0, separator);
+                    directory = new File(targetDir, directoryPath);
+                }
+                visitor.visitTargetFile(i, directory, target.substring(separator + 1));
+            }
+        }
+    }
 }
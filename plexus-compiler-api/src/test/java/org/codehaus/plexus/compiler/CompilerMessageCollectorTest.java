@@ -0,0 +1,120 @@
+package org.codehaus.plexus.compiler;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CompilerMessageCollectorTest {
+    @Test
+    public void testFileNamesAreShared() {
+        CompilerMessageCollector collector = new CompilerMessageCollector();
+        collector.add(message(new String("/src/Foo.java"), CompilerMessage.Kind.WARNING, "[deprecation] a"));
+        collector.add(message(new String("/src/Foo.java"), CompilerMessage.Kind.WARNING, "[deprecation] b"));
+
+        List<CompilerMessage> messages = collector.getMessages();
+        assertEquals(2, messages.size());
+        assertSame(messages.get(0).getFile(), messages.get(1).getFile());
+        assertEquals(1, messages.get(1).getOccurrences());
+    }
+
+    @Test
+    public void testWarningsAreAggregatedPerKindAndCode() {
+        CompilerMessageCollector collector = new CompilerMessageCollector(true);
+        collector.add(message("/src/A.java", CompilerMessage.Kind.WARNING, "[deprecation] a() is deprecated"));
+        collector.add(message("/src/B.java", CompilerMessage.Kind.WARNING, "[deprecation] b() is deprecated"));
+        collector.add(message("/src/B.java", CompilerMessage.Kind.MANDATORY_WARNING, "[deprecation] c()"));
+        collector.add(message("/src/C.java", CompilerMessage.Kind.WARNING, "[rawtypes] found raw type: List"));
+        collector.add(message("/src/C.java", CompilerMessage.Kind.WARNING, "no category"));
+        collector.add(message("/src/D.java", CompilerMessage.Kind.WARNING, "no category"));
+        collector.add(message("/src/E.java", CompilerMessage.Kind.ERROR, "[deprecation] a() is deprecated"));
+        collector.add(message("/src/F.java", CompilerMessage.Kind.ERROR, "[deprecation] a() is deprecated"));
+
+        List<CompilerMessage> messages = collector.getMessages();
+        assertEquals(6, messages.size());
+        assertEquals("/src/A.java", messages.get(0).getFile());
+        assertEquals(2, messages.get(0).getOccurrences());
+        assertEquals(
+                "/src/A.java:[1,2] [deprecation] a() is deprecated (2 occurrences)",
+                messages.get(0).toString());
+        assertEquals(1, messages.get(1).getOccurrences());
+        assertEquals(1, messages.get(2).getOccurrences());
+        assertEquals(2, messages.get(3).getOccurrences());
+        assertEquals(1, messages.get(4).getOccurrences());
+        assertEquals(1, messages.get(5).getOccurrences());
+    }
+
+    @Test
+    public void testSuppressedMessagesAreDropped() {
+        CompilerConfiguration config = new CompilerConfiguration();
+        config.addMessageSuppression(new CompilerMessageSuppression(null, "deprecation", null, null));
+        config.addMessageSuppression(
+                new CompilerMessageSuppression(CompilerMessage.Kind.WARNING, null, "**/generated/**", null));
+        config.addMessageSuppression(
+                new CompilerMessageSuppression(CompilerMessage.Kind.NOTE, null, null, "unchecked"));
+        CompilerMessageCollector collector = new CompilerMessageCollector(config);
+
+        assertTrue(collector.hasSuppressions());
+        assertFalse(new CompilerMessageCollector(new CompilerConfiguration()).hasSuppressions());
+        assertFalse(collector.accepts(
+                CompilerMessage.Kind.WARNING, "compiler.warn.has.been.deprecated", "deprecation", "/src/A.java", "a"));
+        assertTrue(collector.accepts(
+                CompilerMessage.Kind.WARNING, "compiler.warn.raw.class.use", "rawtypes", "/src/A.java", "a"));
+        assertTrue(collector.accepts(CompilerMessage.Kind.ERROR, null, "deprecation", "/src/A.java", "a"));
+
+        collector.add(message("/target/generated/B.java", CompilerMessage.Kind.WARNING, "[rawtypes] found raw type"));
+        collector.add(message("/target/generated/B.java", CompilerMessage.Kind.MANDATORY_WARNING, "[rawtypes] b"));
+        collector.add(message("/target/generated/B.java", CompilerMessage.Kind.ERROR, "broken"));
+        collector.add(
+                new CompilerMessage("Note: Some input files use unchecked operations.", CompilerMessage.Kind.NOTE));
+        collector.add(new CompilerMessage("Note: Some input files use preview features.", CompilerMessage.Kind.NOTE));
+
+        List<CompilerMessage> messages = collector.getMessages();
+        assertEquals(3, messages.size());
+        assertEquals(CompilerMessage.Kind.MANDATORY_WARNING, messages.get(0).getKind());
+        assertEquals(CompilerMessage.Kind.ERROR, messages.get(1).getKind());
+        assertEquals("Some input files use preview features.", messages.get(2).getMessage());
+    }
+
+    @Test
+    public void testMessagesBeyondTheLimitOfTheirKindAreCounted() {
+        CompilerConfiguration config = new CompilerConfiguration();
+        config.setAggregateWarnings(true);
+        config.setMaxMessages(CompilerMessage.Kind.WARNING, 2);
+        config.setMaxMessages(CompilerMessage.Kind.ERROR, 1);
+        CompilerMessageCollector collector = new CompilerMessageCollector(config);
+
+        collector.add(message("/src/A.java", CompilerMessage.Kind.WARNING, "[deprecation] a"));
+        collector.add(message("/src/A.java", CompilerMessage.Kind.WARNING, "[rawtypes] a"));
+        collector.add(message("/src/A.java", CompilerMessage.Kind.WARNING, "[unchecked] a"));
+        collector.add(message("/src/A.java", CompilerMessage.Kind.WARNING, "[serial] a"));
+        // aggregated into a kept warning, hence not beyond the limit
+        collector.add(message("/src/B.java", CompilerMessage.Kind.WARNING, "[deprecation] b"));
+        collector.add(message("/src/A.java", CompilerMessage.Kind.ERROR, "a"));
+        collector.add(message("/src/B.java", CompilerMessage.Kind.ERROR, "b"));
+
+        List<CompilerMessage> messages = collector.getMessages();
+        assertEquals(5, messages.size());
+        assertEquals(2, messages.get(0).getOccurrences());
+        assertEquals(CompilerMessage.Kind.ERROR, messages.get(3).getKind());
+        assertEquals(CompilerMessage.Kind.OTHER, messages.get(4).getKind());
+        assertEquals(
+                "2 more warning messages not reported, beyond the limit of 2",
+                messages.get(4).getMessage());
+    }
+
+    @Test
+    public void testPrefixIsRemovedWhateverItsCase() {
+        assertEquals("foo", new CompilerMessage("WARNING: foo", CompilerMessage.Kind.WARNING).getMessage());
+        assertEquals("foo", new CompilerMessage("Note: foo", CompilerMessage.Kind.NOTE).getMessage());
+        assertEquals("Note: foo", new CompilerMessage("Note: foo", CompilerMessage.Kind.WARNING).getMessage());
+    }
+
+    private static CompilerMessage message(String file, CompilerMessage.Kind kind, String text) {
+        return new CompilerMessage(file, kind, 1, 2, 1, 3, text);
+    }
+}
@@ -0,0 +1,45 @@
+package org.codehaus.plexus.compiler.util;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class LineWriterTest {
+    @Test
+    public void testLinesArePassedAsSoonAsTerminated() throws IOException {
+        List<String> lines = new ArrayList<>();
+        LineWriter writer = new LineWriter(lines::add);
+
+        writer.write("first\nsec");
+        assertEquals(Arrays.asList("first"), lines);
+        writer.write("ond\r");
+        assertEquals(Arrays.asList("first", "second"), lines);
+        // the line feed completes the carriage return of the previous write
+        writer.write("\nthird\r\n\nfourth\r\rfifth");
+        writer.flush();
+        assertEquals(Arrays.asList("first", "second", "third", "", "fourth", ""), lines);
+
+        writer.close();
+        assertEquals(Arrays.asList("first", "second", "third", "", "fourth", "", "fifth"), lines);
+        assertThrows(IOException.class, () -> writer.write('x'));
+    }
+
+    @Test
+    public void testPrintWriter() {
+        List<String> lines = new ArrayList<>();
+        try (PrintWriter writer = new PrintWriter(new LineWriter(lines::add))) {
+            writer.println("Foo.java:1: error: ';' expected");
+            writer.print('x');
+            writer.println();
+            writer.print("1 error\n");
+        }
+        assertEquals(Arrays.asList("Foo.java:1: error: ';' expected", "x", "1 error"), lines);
+    }
+}
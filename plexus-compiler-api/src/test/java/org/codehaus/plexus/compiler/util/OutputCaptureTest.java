@@ -0,0 +1,95 @@
+package org.codehaus.plexus.compiler.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.codehaus.plexus.compiler.CompilerMessage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class OutputCaptureTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testOutputIsKeptInMemoryUpToTheLimit() throws IOException {
+        try (OutputCapture capture = new OutputCapture(100, -1, directory.toFile())) {
+            capture.consumeLine("first");
+            capture.consumeLine("second");
+
+            assertFalse(capture.isSpilled());
+            assertEquals("first,second", read(capture));
+            assertNull(capture.getTruncationMessage());
+        }
+    }
+
+    @Test
+    public void testOutputIsSpilledBeyondTheMemoryLimit() throws IOException {
+        try (OutputCapture capture = new OutputCapture(10, -1, directory.toFile())) {
+            capture.consumeLine("first");
+            capture.consumeLine("second");
+            capture.consumeLine("third");
+
+            assertTrue(capture.isSpilled());
+            assertEquals(1, files());
+            assertEquals("first,second,third", read(capture));
+        }
+        assertEquals(0, files());
+    }
+
+    @Test
+    public void testLinesBeyondTheLimitAreDiscarded() throws IOException {
+        try (OutputCapture capture = new OutputCapture(10, 16, directory.toFile())) {
+            capture.consumeLine("first");
+            capture.consumeLine("second");
+            capture.consumeLine("third");
+            capture.consumeLine("x");
+
+            assertEquals("first,second", read(capture));
+            assertEquals(2, capture.getDiscardedLines());
+            CompilerMessage message = capture.getTruncationMessage();
+            assertEquals(CompilerMessage.Kind.OTHER, message.getKind());
+            assertEquals(
+                    "2 more lines of compiler output not parsed, beyond the limit of 16 characters",
+                    message.getMessage());
+        }
+    }
+
+    @Test
+    public void testAppend() throws IOException {
+        try (OutputCapture out = new OutputCapture(100, 10, directory.toFile());
+                OutputCapture err = new OutputCapture(100, 4, directory.toFile())) {
+            out.consumeLine("out");
+            err.consumeLine("err");
+            err.consumeLine("more");
+
+            out.append(err);
+
+            assertEquals("out,err", read(out));
+            assertEquals(1, out.getDiscardedLines());
+        }
+    }
+
+    private static String read(OutputCapture capture) throws IOException {
+        try (BufferedReader reader = capture.newReader()) {
+            return reader.lines().collect(Collectors.joining(","));
+        }
+    }
+
+    private long files() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> list = files.collect(Collectors.toList());
+            return list.size();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package org.codehaus.plexus.compiler.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.codehaus.plexus.compiler.util.scan.StaleSourceScanner;
+import org.codehaus.plexus.compiler.util.scan.mapping.ManifestSourceMapping;
+import org.codehaus.plexus.compiler.util.scan.mapping.SuffixMapping;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class OutputManifestTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testOrphansAreDeleted() throws Exception {
+        File manifestFile = directory.resolve("manifest").toFile();
+        File foo = touch("src/p/Foo.java");
+        File bar = touch("src/p/Bar.java");
+        File fooClass = touch("classes/p/Foo.class");
+        File fooNested = touch("classes/p/Foo$Nested.class");
+        File barClass = touch("classes/p/Bar.class");
+
+        Map<File, Set<File>> outputs = new HashMap<>();
+        outputs.put(foo, set(fooClass, fooNested));
+        outputs.put(bar, set(barClass));
+        assertEquals(Collections.emptySet(), OutputManifest.update(manifestFile, outputs, true));
+
+        OutputManifest manifest = OutputManifest.read(manifestFile);
+        assertEquals(set(foo, bar), manifest.getSources());
+        assertEquals(set(fooClass, fooNested), manifest.getOutputs(foo));
+
+        // a failed compilation deletes nothing
+        assertEquals(
+                Collections.emptySet(),
+                OutputManifest.update(manifestFile, Collections.singletonMap(foo, set(fooClass)), false));
+        assertEquals(set(fooClass, fooNested), OutputManifest.read(manifestFile).getOutputs(foo));
+
+        // the nested class is removed, and the nested class of Bar moves to Foo
+        File barNested = touch("classes/p/Bar$Moved.class");
+        assertTrue(bar.delete());
+        outputs.clear();
+        outputs.put(foo, set(fooClass, barNested));
+        assertEquals(set(fooNested, barClass), OutputManifest.update(manifestFile, outputs, true));
+
+        assertFalse(fooNested.exists());
+        assertFalse(barClass.exists());
+        assertTrue(barNested.exists());
+        manifest = OutputManifest.read(manifestFile);
+        assertEquals(set(foo), manifest.getSources());
+        assertEquals(set(fooClass, barNested), manifest.getOutputs(foo));
+    }
+
+    @Test
+    public void testSourcesAreStaleAgainstAllTheirOutputs() throws Exception {
+        File src = directory.resolve("src").toFile();
+        File classes = directory.resolve("classes").toFile();
+        File foo = touch("src/p/Foo.java");
+        File added = touch("src/p/Added.java");
+        File fooClass = touch("classes/p/Foo.class");
+        File fooNested = touch("classes/p/Foo$Nested.class");
+
+        OutputManifest manifest = new OutputManifest();
+        manifest.update(Collections.singletonMap(foo, set(fooClass, fooNested)), true);
+
+        StaleSourceScanner scanner = new StaleSourceScanner();
+        scanner.addSourceMapping(
+                new ManifestSourceMapping(manifest, Collections.singleton(src), new SuffixMapping(".java", ".class")));
+        assertEquals(set(added), scanner.getIncludedSources(src, classes));
+
+        assertTrue(fooNested.delete());
+        assertEquals(set(foo, added), scanner.getIncludedSources(src, classes));
+    }
+
+    private File touch(String path) throws IOException {
+        Path file = directory.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.write(file, new byte[0]);
+        return file.toFile();
+    }
+
+    private static Set<File> set(File... files) {
+        return new HashSet<>(Arrays.asList(files));
+    }
+}
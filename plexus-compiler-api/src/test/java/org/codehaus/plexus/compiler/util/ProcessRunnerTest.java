@@ -0,0 +1,86 @@
+package org.codehaus.plexus.compiler.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.codehaus.plexus.util.cli.CommandLineException;
+import org.codehaus.plexus.util.cli.Commandline;
+import org.codehaus.plexus.util.cli.StreamConsumer;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ProcessRunnerTest {
+    @Test
+    public void testOutputAndErrorAreConsumed() throws Exception {
+        List<String> out = new ArrayList<>();
+        List<String> err = new ArrayList<>();
+
+        int exitCode = ProcessRunner.execute(java("-version"), out::add, err::add);
+
+        assertEquals(0, exitCode);
+        assertTrue(out.isEmpty());
+        assertTrue(err.stream().anyMatch(line -> line.contains("version")), err.toString());
+    }
+
+    @Test
+    public void testSameConsumerForBothStreams() throws Exception {
+        List<String> lines = new ArrayList<>();
+        StreamConsumer consumer = lines::add;
+
+        int exitCode = ProcessRunner.execute(java("-XX:+UnknownOptionOfTheTest", "-version"), consumer, consumer);
+
+        assertNotEquals(0, exitCode);
+        assertTrue(lines.stream().anyMatch(line -> line.contains("UnknownOptionOfTheTest")), lines.toString());
+    }
+
+    @Test
+    public void testThrowingConsumerDoesNotBlockTheProcess() {
+        // far more output than a pipe holds, so that the process blocks if it is no longer read
+        Commandline cli = java(
+                "-cp",
+                new File(Chatter.class
+                                .getProtectionDomain()
+                                .getCodeSource()
+                                .getLocation()
+                                .getPath())
+                        .getPath(),
+                Chatter.class.getName());
+        StreamConsumer failing = line -> {
+            throw new IOException("the consumer is full");
+        };
+
+        CommandLineException e = assertTimeoutPreemptively(
+                Duration.ofSeconds(60),
+                () -> assertThrows(CommandLineException.class, () -> ProcessRunner.execute(cli, failing, failing)));
+
+        assertEquals("the consumer is full", e.getCause().getMessage());
+    }
+
+    /**
+     * Writes a megabyte of lines to each of its output streams.
+     */
+    public static final class Chatter {
+        public static void main(String[] args) {
+            String line = new String(new char[99]).replace('\0', 'x');
+            for (int i = 0; i < 10_000; i++) {
+                System.out.println(line);
+                System.err.println(line);
+            }
+        }
+    }
+
+    private static Commandline java(String... arguments) {
+        Commandline cli = new Commandline();
+        cli.setExecutable(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        cli.addArguments(arguments);
+        return cli;
+    }
+}
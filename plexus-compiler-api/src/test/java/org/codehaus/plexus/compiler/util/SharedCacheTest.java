@@ -0,0 +1,96 @@
+package org.codehaus.plexus.compiler.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class SharedCacheTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testEntriesArePublishedOnce() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        SharedCache.Loader<RuntimeException> loader = () -> "17\n" + loads.incrementAndGet();
+
+        assertEquals("17\n1", new SharedCache(directory.toFile()).get("version", "javac|1", loader));
+        // another JVM
+        assertEquals("17\n1", new SharedCache(directory.toFile()).get("version", "javac|1", loader));
+        assertEquals("17\n2", new SharedCache(directory.toFile()).get("version", "javac|2", loader));
+        assertEquals("17\n3", new SharedCache(directory.toFile()).get("other", "javac|1", loader));
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    public void testConcurrentLoadsAreDoneOnce() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> values = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                values.add(executor.submit(() -> {
+                    start.await();
+                    return new SharedCache(directory.toFile()).get("version", "javac", () -> {
+                        Thread.sleep(50);
+                        return "v" + loads.incrementAndGet();
+                    });
+                }));
+            }
+            start.countDown();
+            for (Future<String> value : values) {
+                assertEquals("v1", value.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void testEntriesOfOtherKeysAreIgnored() throws Exception {
+        SharedCache cache = new SharedCache(directory.toFile());
+        cache.get("version", "javac", () -> "8");
+        Path entry;
+        try (Stream<Path> files = Files.list(directory.resolve("version"))) {
+            entry = files.filter(file -> file.toString().endsWith(".entry"))
+                    .findFirst()
+                    .get();
+        }
+        // as if another key had the same hash
+        Files.write(entry, "other\n11".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals("17", cache.get("version", "javac", () -> "17"));
+        assertEquals("17", cache.get("version", "javac", () -> "21"));
+    }
+
+    @Test
+    public void testValuesAreComputedWithoutAUsableDirectory() throws Exception {
+        File file = Files.createFile(directory.resolve("file")).toFile();
+        SharedCache cache = new SharedCache(file);
+
+        assertEquals("8", cache.get("version", "javac", () -> "8"));
+        assertEquals("17", cache.get("version", "javac", () -> "17"));
+        assertThrows(
+                IOException.class,
+                () -> cache.get("version", "javac", () -> {
+                    throw new IOException("boom");
+                }));
+    }
+}
@@ -0,0 +1,148 @@
+package org.codehaus.plexus.compiler.util;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the time {@link StreamPumper} takes to copy the output of a verbose compilation with the time taken by the
+ * pump it replaced, which slept 5 ms after each read of 512 bytes.
+ * <p>
+ * The JMH harness is only generated with the <code>jmh</code> profile:
+ * <pre>
+ * mvn -Pjmh test-compile dependency:build-classpath -Dmdep.outputFile=target/classpath.txt
+ * java -cp target/test-classes:target/classes:$(cat target/classpath.txt) \
+ *     org.codehaus.plexus.compiler.util.StreamPumperBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class StreamPumperBenchmark {
+    @Param({"16384", "262144"})
+    private int size;
+
+    private byte[] output;
+
+    @Setup
+    public void setUp() {
+        StringBuilder out = new StringBuilder(size);
+        for (int i = 0; out.length() < size; i++) {
+            out.append("/project/src/main/java/org/example/Service")
+                    .append(i)
+                    .append(".java:12: warning: [rawtypes] found raw type: List\n");
+        }
+        output = out.substring(0, size).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public int sleepingPump() throws InterruptedException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(size);
+        SleepingStreamPumper pumper =
+                new SleepingStreamPumper(new BufferedInputStream(new ByteArrayInputStream(output)), out);
+        pumper.start();
+        pumper.join();
+        return out.size();
+    }
+
+    @Benchmark
+    public int blockingPump() throws InterruptedException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(size);
+        StreamPumper pumper = new StreamPumper(new ByteArrayInputStream(output), out);
+        pumper.start();
+        pumper.join();
+        return out.size();
+    }
+
+    @Benchmark
+    public void blockingPumpOfLines(Blackhole blackhole) throws InterruptedException {
+        StreamPumper pumper =
+                new StreamPumper(new ByteArrayInputStream(output), StandardCharsets.UTF_8, blackhole::consume);
+        pumper.start();
+        pumper.join();
+    }
+
+    /**
+     * The pump as it was before the buffer grew and the reads blocked.
+     */
+    static class SleepingStreamPumper extends Thread {
+        private final InputStream stream;
+
+        private final OutputStream out;
+
+        private boolean endOfStream;
+
+        SleepingStreamPumper(InputStream stream, OutputStream out) {
+            this.stream = stream;
+            this.out = out;
+        }
+
+        @Override
+        public void run() {
+            byte[] buf = new byte[512];
+            try {
+                while (!endOfStream) {
+                    int bytesRead = stream.read(buf, 0, buf.length);
+                    if (bytesRead > 0) {
+                        out.write(buf, 0, bytesRead);
+                    } else if (bytesRead == -1) {
+                        endOfStream = true;
+                    }
+                    sleep(5);
+                }
+            } catch (IOException | InterruptedException e) {
+                // ended
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                        .include(StreamPumperBenchmark.class.getSimpleName())
+                        .build())
+                .run();
+    }
+}
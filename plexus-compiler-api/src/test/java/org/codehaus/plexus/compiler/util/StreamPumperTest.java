@@ -0,0 +1,89 @@
+package org.codehaus.plexus.compiler.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class StreamPumperTest {
+    @Test
+    public void testStreamIsCopiedToTheEnd() throws InterruptedException {
+        byte[] content = new byte[1024 * 1024 + 17];
+        new Random(42).nextBytes(content);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        StreamPumper pumper = new StreamPumper(new ByteArrayInputStream(content), out);
+        pumper.start();
+        pumper.join(10_000);
+
+        assertTrue(pumper.isEndOfStream());
+        assertNull(pumper.getException());
+        assertArrayEquals(content, out.toByteArray());
+    }
+
+    @Test
+    public void testLinesAreSplitOnAnyTerminator() throws InterruptedException {
+        assertEquals(Arrays.asList("a", "", "b", "c", "", "d", "last"), pumpLines("a\n\nb\r\nc\r\rd\nlast".getBytes()));
+        assertEquals(Arrays.asList("a", "b"), pumpLines("a\r\nb\r\n".getBytes()));
+        assertEquals(Arrays.asList(), pumpLines(new byte[0]));
+    }
+
+    @Test
+    public void testCarriageReturnAndLineFeedAcrossReads() throws IOException, InterruptedException {
+        PipedOutputStream process = new PipedOutputStream();
+        PipedInputStream stream = new PipedInputStream(process);
+        List<String> lines = new ArrayList<>();
+
+        StreamPumper pumper = new StreamPumper(stream, StandardCharsets.UTF_8, lines::add);
+        pumper.start();
+        process.write("one\r".getBytes(StandardCharsets.UTF_8));
+        process.flush();
+        Thread.sleep(50);
+        process.write("\ntwoé".getBytes(StandardCharsets.UTF_8));
+        process.close();
+        pumper.join(10_000);
+
+        assertEquals(Arrays.asList("one", "twoé"), lines);
+    }
+
+    @Test
+    public void testReadFailureIsKept() throws InterruptedException {
+        IOException failure = new IOException("closed");
+        InputStream stream = new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw failure;
+            }
+        };
+
+        StreamPumper pumper = new StreamPumper(stream, new ByteArrayOutputStream());
+        pumper.start();
+        pumper.join(10_000);
+
+        assertSame(failure, pumper.getException());
+    }
+
+    private static List<String> pumpLines(byte[] content) throws InterruptedException {
+        List<String> lines = new ArrayList<>();
+        StreamPumper pumper = new StreamPumper(new ByteArrayInputStream(content), StandardCharsets.UTF_8, lines::add);
+        pumper.start();
+        pumper.join(10_000);
+        assertTrue(pumper.isEndOfStream());
+        return lines;
+    }
+}
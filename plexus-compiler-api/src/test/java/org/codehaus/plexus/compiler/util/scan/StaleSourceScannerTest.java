@@ -17,7 +17,9 @@ package org.codehaus.plexus.compiler.util.scan;
  */
 
 import java.io.File;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.Set;
 
 import org.codehaus.plexus.compiler.util.scan.mapping.SingleTargetSourceMapping;
@@ -448,4 +450,42 @@ public class StaleSourceScannerTest extends AbstractSourceInclusionScannerTest {
 
         assertTrue(result.contains(fooCs));
     }
+
+    @Test
+    public void testSourcesOfSeveralPackagesWithSeveralMappings() throws Exception {
+        File src = new File(getTestBaseDir(), "test10-src");
+
+        File target = new File(getTestBaseDir(), "test10-target");
+
+        long now = System.currentTimeMillis();
+
+        File upToDate = new File(src, "p/UpToDate.java");
+        writeFile(upToDate);
+        upToDate.setLastModified(now - 60000);
+        writeFile(new File(target, "p/UpToDate.class"));
+        writeFile(new File(target, "p/UpToDate.xml"));
+
+        File staleClass = new File(src, "p/StaleClass.java");
+        writeFile(staleClass);
+        staleClass.setLastModified(now);
+        writeFile(new File(target, "p/StaleClass.class"));
+        new File(target, "p/StaleClass.class").setLastModified(now - 60000);
+        writeFile(new File(target, "p/StaleClass.xml"));
+
+        File missingXml = new File(src, "p/q/MissingXml.java");
+        writeFile(missingXml);
+        missingXml.setLastModified(now - 60000);
+        writeFile(new File(target, "p/q/MissingXml.class"));
+
+        File missingPackage = new File(src, "r/MissingPackage.java");
+        writeFile(missingPackage);
+
+        scanner = new StaleSourceScanner(0);
+        scanner.addSourceMapping(new SuffixMapping(".java", ".class"));
+        scanner.addSourceMapping(new SuffixMapping(".java", ".xml"));
+
+        Set<File> result = scanner.getIncludedSources(src, target);
+
+        assertEquals(new HashSet<>(Arrays.asList(staleClass, missingXml, missingPackage)), result);
+    }
 }
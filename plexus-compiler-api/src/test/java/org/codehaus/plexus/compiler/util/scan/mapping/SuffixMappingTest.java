@@ -17,12 +17,18 @@ package org.codehaus.plexus.compiler.util.scan.mapping;
  */
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
@@ -112,4 +118,33 @@ public class SuffixMappingTest {
 
         assertEquals(1, results.size());
     }
+
+    @Test
+    public void testVisitTargetFilesSharesTheDirectoriesOfTheTargets() {
+        File basedir = new File(".");
+
+        Set<String> targets = new HashSet<>();
+        targets.add(".class");
+        targets.add(".xml");
+
+        SuffixMapping mapping = new SuffixMapping(".java", targets);
+
+        String[] sources = {"A.java", "p/B.java", "p/C.apt", "p/C.java", "p/q/D.java"};
+        List<String> visited = new ArrayList<>();
+        Map<String, File> directories = new HashMap<>();
+        mapping.visitTargetFiles(basedir, sources, (source, directory, name) -> {
+            visited.add(source + ":" + name);
+            assertSame(directories.computeIfAbsent(directory.getPath(), path -> directory), directory);
+            for (File target : mapping.getTargetFiles(basedir, sources[source])) {
+                if (target.getName().equals(name)) {
+                    assertEquals(target.getParentFile(), directory);
+                }
+            }
+        });
+
+        assertEquals(8, visited.size());
+        assertTrue(visited.containsAll(Arrays.asList(
+                "0:A.class", "0:A.xml", "1:B.class", "1:B.xml", "3:C.class", "3:C.xml", "4:D.class", "4:D.xml")));
+        assertEquals(3, directories.size());
+    }
 }
@@ -0,0 +1,239 @@
+package org.codehaus.plexus.compiler;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import javax.inject.Inject;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.codehaus.plexus.testing.PlexusTest;
+import org.codehaus.plexus.util.FileUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs a compiler from many threads at the same time, as the modules of a parallel build do, on configurations mixing
+ * the {@link CompilerConfiguration.CompilerReuseStrategy compiler reuse strategies}.
+ * <p>
+ * Each configuration compiles a module of its own, in which a class of the module's name either has an error or only
+ * a deprecation warning. Each compilation must only write the class of its module, only report the messages of its
+ * module's source, and succeed or fail as that source does. The time the same compilations take on all the threads
+ * and one after the other is reported, not asserted, as it depends on the machine and its load.
+ */
+@PlexusTest
+public abstract class AbstractCompilerParallelTckTest {
+    private static final String EOL = System.lineSeparator();
+
+    protected String roleHint;
+
+    @Inject
+    private Map<String, Compiler> compilers;
+
+    /**
+     * @return the number of threads compiling at the same time
+     */
+    protected int threads() {
+        return 8;
+    }
+
+    /**
+     * @return the number of configurations, each compiled once by each test
+     */
+    protected int configurations() {
+        return 32;
+    }
+
+    /**
+     * Adapts a configuration to the compiler under test, for instance to fork it.
+     */
+    protected void configure(CompilerConfiguration configuration) {}
+
+    @Test
+    public void testParallelCompilationsAreIsolated() throws Exception {
+        List<CompilerConfiguration> configurations = createConfigurations("isolation");
+
+        List<CompilerResult> results = compileInParallel(configurations);
+
+        for (int i = 0; i < configurations.size(); i++) {
+            CompilerResult result = results.get(i);
+            String module = getModuleName(i);
+            boolean hasError = hasError(i);
+            assertEquals(!hasError, result.isSuccess(), module + ": " + result.getCompilerMessages());
+            assertTrue(
+                    result.getCompilerMessages().stream().anyMatch(message -> message.getFile() != null),
+                    module + ": " + result.getCompilerMessages());
+            for (CompilerMessage message : result.getCompilerMessages()) {
+                assertTrue(
+                        message.getFile() == null || message.getFile().endsWith(module + ".java"),
+                        module + " reported " + message);
+            }
+            if (hasError) {
+                String undefined = "undefined" + i;
+                assertTrue(
+                        result.getCompilerMessages().stream()
+                                .anyMatch(message -> message.isError()
+                                        && message.getMessage().contains(undefined)),
+                        module + ": " + result.getCompilerMessages());
+            }
+            assertEquals(
+                    hasError ? Arrays.asList() : Arrays.asList(module + ".class"),
+                    listClasses(configurations.get(i)),
+                    module);
+        }
+    }
+
+    @Test
+    public void testParallelCompilationsScale(TestReporter reporter) throws Exception {
+        List<CompilerConfiguration> configurations = createConfigurations("throughput");
+        // warm up the compiler and the JIT
+        compileInParallel(configurations);
+
+        long serialStart = System.nanoTime();
+        for (CompilerConfiguration configuration : configurations) {
+            getCompiler().performCompile(configuration);
+        }
+        long serial = System.nanoTime() - serialStart;
+
+        long parallelStart = System.nanoTime();
+        List<CompilerResult> results = compileInParallel(configurations);
+        long parallel = System.nanoTime() - parallelStart;
+
+        for (int i = 0; i < configurations.size(); i++) {
+            assertEquals(!hasError(i), results.get(i).isSuccess(), getModuleName(i));
+        }
+        reporter.publishEntry(
+                "speedup",
+                String.format(
+                        "%s: %d compilations took %d ms serially and %d ms on %d threads, a speedup of %.2f",
+                        roleHint,
+                        configurations.size(),
+                        TimeUnit.NANOSECONDS.toMillis(serial),
+                        TimeUnit.NANOSECONDS.toMillis(parallel),
+                        threads(),
+                        (double) serial / parallel));
+    }
+
+    protected List<CompilerResult> compileInParallel(List<CompilerConfiguration> configurations) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads());
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<CompilerResult>> futures = new ArrayList<>();
+            for (CompilerConfiguration configuration : configurations) {
+                Callable<CompilerResult> compilation = () -> {
+                    start.await();
+                    return getCompiler().performCompile(configuration);
+                };
+                futures.add(executor.submit(compilation));
+            }
+            start.countDown();
+
+            List<CompilerResult> results = new ArrayList<>();
+            for (Future<CompilerResult> future : futures) {
+                results.add(future.get(5, TimeUnit.MINUTES));
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private List<CompilerConfiguration> createConfigurations(String test) throws IOException {
+        File directory = new File("target/compiler-parallel/" + test);
+        if (directory.exists()) {
+            FileUtils.deleteDirectory(directory);
+        }
+
+        CompilerConfiguration.CompilerReuseStrategy[] strategies = CompilerConfiguration.CompilerReuseStrategy.values();
+        List<CompilerConfiguration> configurations = new ArrayList<>();
+        for (int i = 0; i < configurations(); i++) {
+            String module = getModuleName(i);
+            File src = new File(directory, module + "/src");
+            writeSource(new File(src, module + ".java"), module, i);
+
+            CompilerConfiguration configuration = new CompilerConfiguration();
+            configuration.addSourceLocation(src.getAbsolutePath());
+            configuration.setOutputLocation(new File(directory, module + "/classes").getAbsolutePath());
+            configuration.setBuildDirectory(new File(directory, module).getAbsoluteFile());
+            configuration.setWorkingDirectory(new File(directory, module).getAbsoluteFile());
+            configuration.setSourceVersion(System.getProperty("java.specification.version"));
+            configuration.setTargetVersion(System.getProperty("java.specification.version"));
+            configuration.setShowDeprecation(true);
+            configuration.setCompilerReuseStrategy(strategies[i % strategies.length]);
+            configuration.setWarmContext(i / strategies.length % 2 == 0);
+            configure(configuration);
+            configurations.add(configuration);
+        }
+        return configurations;
+    }
+
+    private static String getModuleName(int i) {
+        return "Module" + i;
+    }
+
+    private static boolean hasError(int i) {
+        return i % 2 == 1;
+    }
+
+    private static void writeSource(File path, String className, int i) throws IOException {
+        assertTrue(path.getParentFile().mkdirs());
+        String source = "public class " + className + EOL
+                + "{" + EOL
+                + "    private static java.util.Date date = new java.util.Date( \"foo\" );" + EOL
+                + (hasError(i) ? "    private static Object undefined = undefined" + i + ";" + EOL : "")
+                + "}" + EOL;
+        Files.write(path.toPath(), source.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<String> listClasses(CompilerConfiguration configuration) throws IOException {
+        Path output = new File(configuration.getOutputLocation()).toPath();
+        if (!Files.exists(output)) {
+            return Arrays.asList();
+        }
+        try (Stream<Path> files = Files.walk(output)) {
+            return files.filter(Files::isRegularFile)
+                    .map(file -> output.relativize(file).toString())
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private Compiler getCompiler() {
+        return compilers.get(roleHint);
+    }
+}
@@ -0,0 +1,139 @@
+package org.codehaus.plexus.compiler;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import javax.inject.Inject;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.codehaus.plexus.testing.PlexusTest;
+import org.codehaus.plexus.util.FileUtils;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs a compiler in a {@link ContinuousCompiler}, checking that only the changed sources are compiled again.
+ */
+@PlexusTest
+public abstract class AbstractContinuousCompilerTest {
+    protected String roleHint;
+
+    @Inject
+    private Map<String, Compiler> compilers;
+
+    @Test
+    public void testChangedSourcesAreCompiled() throws Exception {
+        File directory = new File("target/continuous-compilation").getAbsoluteFile();
+        if (directory.exists()) {
+            FileUtils.deleteDirectory(directory);
+        }
+        Path src = directory.toPath().resolve("src");
+        Path classes = directory.toPath().resolve("classes");
+        Files.createDirectories(src.resolve("p"));
+        write(src.resolve("p/A.java"), "package p; public class A {}");
+        write(src.resolve("p/B.java"), "package p; public class B { A a; }");
+
+        CompilerConfiguration config = new CompilerConfiguration();
+        config.addSourceLocation(src.toString());
+        config.setOutputLocation(classes.toString());
+        config.setBuildDirectory(directory);
+        config.setSourceVersion("1.8");
+        config.setTargetVersion("1.8");
+
+        BlockingQueue<Object[]> results = new LinkedBlockingQueue<>();
+        ContinuousCompiler.Listener listener = new ContinuousCompiler.Listener() {
+            @Override
+            public void compiled(Set<File> sources, CompilerResult result) {
+                results.add(new Object[] {sources, result});
+            }
+
+            @Override
+            public void failed(Set<File> sources, Exception e) {
+                results.add(new Object[] {sources, e});
+            }
+        };
+        try (ContinuousCompiler compiler =
+                new ContinuousCompiler(compilers.get(roleHint), config, Duration.ofMillis(200), listener)) {
+            compiler.start();
+
+            Object[] initial = next(results);
+            assertEquals(Collections.emptySet(), initial[0]);
+            assertTrue(((CompilerResult) initial[1]).isSuccess(), initial[1]::toString);
+            assertTrue(Files.exists(classes.resolve("p/A.class")));
+            assertTrue(Files.exists(classes.resolve("p/B.class")));
+            long aCompiled =
+                    Files.getLastModifiedTime(classes.resolve("p/A.class")).toMillis();
+
+            // a new package, with an error
+            Thread.sleep(1000);
+            write(src.resolve("p/B.java"), "package p; public class B { A a; void b() {} }");
+            Files.createDirectories(src.resolve("q"));
+            write(src.resolve("q/C.java"), "package q; public class C { p.A a; Undefined u; }");
+
+            Object[] changed = next(results);
+            assertEquals(
+                    new java.util.TreeSet<>(java.util.Arrays.asList(
+                            src.resolve("p/B.java").toFile(),
+                            src.resolve("q/C.java").toFile())),
+                    changed[0]);
+            CompilerResult result = (CompilerResult) changed[1];
+            assertFalse(result.isSuccess());
+            assertTrue(
+                    result.getCompilerMessages().stream()
+                            .allMatch(message -> message.getFile() == null
+                                    || message.getFile().endsWith("C.java")),
+                    result.getCompilerMessages()::toString);
+            assertEquals(
+                    aCompiled,
+                    Files.getLastModifiedTime(classes.resolve("p/A.class")).toMillis());
+
+            write(src.resolve("q/C.java"), "package q; public class C { p.A a; }");
+            changed = next(results);
+            assertEquals(Collections.singleton(src.resolve("q/C.java").toFile()), changed[0]);
+            assertTrue(((CompilerResult) changed[1]).isSuccess(), changed[1]::toString);
+            assertTrue(Files.exists(classes.resolve("q/C.class")));
+        }
+    }
+
+    private static Object[] next(BlockingQueue<Object[]> results) throws InterruptedException {
+        Object[] result = results.poll(60, TimeUnit.SECONDS);
+        assertNotNull(result, "no compilation");
+        return result;
+    }
+
+    private static void write(Path file, String content) throws IOException {
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,110 @@
+package org.codehaus.plexus.compiler;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import javax.inject.Inject;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+
+import org.codehaus.plexus.compiler.util.OutputManifest;
+import org.codehaus.plexus.testing.PlexusTest;
+import org.codehaus.plexus.util.FileUtils;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compiles with an {@link OutputManifest}, checking that the outputs no source produces any more are deleted by the
+ * next compilation, even when it only compiles some of the sources.
+ */
+@PlexusTest
+public abstract class AbstractOutputManifestTest {
+    protected String roleHint;
+
+    @Inject
+    private Map<String, Compiler> compilers;
+
+    @Test
+    public void testOrphanedOutputsAreDeleted() throws Exception {
+        File directory = new File("target/output-manifest").getAbsoluteFile();
+        if (directory.exists()) {
+            FileUtils.deleteDirectory(directory);
+        }
+        Path src = directory.toPath().resolve("src");
+        Path classes = directory.toPath().resolve("classes");
+        File manifestFile = new File(directory, "outputs.lst");
+        Files.createDirectories(src.resolve("p"));
+        write(
+                src.resolve("p/Foo.java"),
+                "package p; public class Foo { static class Nested {} Runnable r = () -> {}; }");
+        write(src.resolve("p/Gone.java"), "package p; class Gone { Object o = new Object() {}; }");
+
+        CompilerConfiguration config = new CompilerConfiguration();
+        config.addSourceLocation(src.toString());
+        config.setOutputLocation(classes.toString());
+        config.setBuildDirectory(directory);
+        config.setSourceVersion("1.8");
+        config.setTargetVersion("1.8");
+        config.setOutputManifest(manifestFile);
+
+        Compiler compiler = compilers.get(roleHint);
+        CompilerResult result = compiler.performCompile(config);
+        assertTrue(result.isSuccess(), result::toString);
+
+        OutputManifest manifest = OutputManifest.read(manifestFile);
+        assertEquals(
+                new HashSet<>(Arrays.asList(
+                        classes.resolve("p/Foo.class").toFile(),
+                        classes.resolve("p/Foo$Nested.class").toFile())),
+                manifest.getOutputs(src.resolve("p/Foo.java").toFile()));
+        assertEquals(
+                new HashSet<>(Arrays.asList(
+                        classes.resolve("p/Gone.class").toFile(),
+                        classes.resolve("p/Gone$1.class").toFile())),
+                manifest.getOutputs(src.resolve("p/Gone.java").toFile()));
+
+        write(src.resolve("p/Foo.java"), "package p; public class Foo {}");
+        Files.delete(src.resolve("p/Gone.java"));
+        config.setSourceFiles(Collections.singleton(src.resolve("p/Foo.java").toFile()));
+        result = compiler.performCompile(config);
+        assertTrue(result.isSuccess(), result::toString);
+
+        assertTrue(Files.exists(classes.resolve("p/Foo.class")));
+        assertFalse(Files.exists(classes.resolve("p/Foo$Nested.class")));
+        assertFalse(Files.exists(classes.resolve("p/Gone.class")));
+        assertFalse(Files.exists(classes.resolve("p/Gone$1.class")));
+        manifest = OutputManifest.read(manifestFile);
+        assertEquals(Collections.singleton(src.resolve("p/Foo.java").toFile()), manifest.getSources());
+    }
+
+    private static void write(Path file, String content) throws IOException {
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+}
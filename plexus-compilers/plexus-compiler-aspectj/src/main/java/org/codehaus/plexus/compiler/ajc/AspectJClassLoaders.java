@@ -0,0 +1,170 @@
+package org.codehaus.plexus.compiler.ajc;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Paths;
+import java.security.CodeSource;
+import java.util.Deque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.aspectj.ajdt.internal.core.builder.AjBuildManager;
+import org.codehaus.plexus.compiler.CompilerException;
+
+/**
+ * Runs the AspectJ builds of a parallel weaving in class loaders of their own, so that they can run at the same time.
+ * <p>
+ * AspectJ keeps the compiler adapter of the running build in static state (see
+ * <code>org.aspectj.ajdt.internal.compiler.CompilerAdapter</code>): two builds overlapping in the same class loader
+ * may weave with each other's weaver. Each build therefore takes a loader of its own, which loads AspectJ and the
+ * classes of this package again, but delegates the Plexus Compiler API, this class and
+ * {@link AspectJCompilerConfiguration} to its parent, so that configurations and results cross it unchanged. Loaders
+ * are reused by the following builds of the weaving, as loading AspectJ is costly, and all closed with it.
+ */
+final class AspectJClassLoaders implements Closeable {
+    /** The classes of this package delegated to the parent loader, so that they are the same in all the loaders. */
+    private static final String[] SHARED_CLASSES = {
+        AspectJClassLoaders.class.getName(), AspectJCompilerConfiguration.class.getName()
+    };
+
+    /** The locations of AspectJ and of this package, or <code>null</code> if one of them is unknown. */
+    private static final URL[] URLS = findUrls();
+
+    private final Deque<IsolatedClassLoader> idle = new ConcurrentLinkedDeque<>();
+
+    private final Queue<IsolatedClassLoader> loaders = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Invokes a static method of a class of this package, loaded in a class loader of its own for the time of the
+     * call. Only types shared with the parent loader can be passed and returned. If AspectJ cannot be loaded again,
+     * such as when it is not in a local file, the method is invoked on the class itself.
+     */
+    Object invoke(Class<?> type, String methodName, Class<?>[] parameterTypes, Object... args)
+            throws CompilerException {
+        IsolatedClassLoader loader = URLS == null ? null : take();
+        try {
+            Class<?> loaded = loader == null ? type : loader.loadClass(type.getName());
+            Method method = loaded.getDeclaredMethod(methodName, parameterTypes);
+            method.setAccessible(true);
+            return method.invoke(null, args);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof CompilerException) {
+                throw (CompilerException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new CompilerException("Unknown error while compiling", cause);
+        } catch (ReflectiveOperationException e) {
+            throw new CompilerException("Unable to load the AspectJ compiler in a class loader of its own", e);
+        } finally {
+            if (loader != null) {
+                idle.push(loader);
+            }
+        }
+    }
+
+    /**
+     * Closes all the loaders, which must no longer be in use.
+     */
+    @Override
+    public void close() {
+        for (IsolatedClassLoader loader; (loader = loaders.poll()) != null; ) {
+            try {
+                loader.close();
+            } catch (IOException e) {
+                // only the jar handles are left to the garbage collector
+            }
+        }
+        idle.clear();
+    }
+
+    private IsolatedClassLoader take() {
+        IsolatedClassLoader loader = idle.poll();
+        if (loader == null) {
+            loader = new IsolatedClassLoader(URLS, AspectJClassLoaders.class.getClassLoader());
+            loaders.add(loader);
+        }
+        return loader;
+    }
+
+    private static URL[] findUrls() {
+        URL aspectj = location(AjBuildManager.class);
+        URL compiler = location(AspectJClassLoaders.class);
+        return aspectj == null || compiler == null ? null : new URL[] {compiler, aspectj};
+    }
+
+    private static URL location(Class<?> type) {
+        CodeSource codeSource = type.getProtectionDomain().getCodeSource();
+        if (codeSource == null || codeSource.getLocation() == null) {
+            return null;
+        }
+        try {
+            // only local files can be loaded again
+            Paths.get(codeSource.getLocation().toURI());
+            return codeSource.getLocation();
+        } catch (URISyntaxException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Loads AspectJ and the classes of this package itself, all other classes from its parent.
+     */
+    private static final class IsolatedClassLoader extends URLClassLoader {
+        static {
+            registerAsParallelCapable();
+        }
+
+        IsolatedClassLoader(URL[] urls, ClassLoader parent) {
+            super(urls, parent);
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (!isIsolated(name)) {
+                return super.loadClass(name, resolve);
+            }
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> type = findLoadedClass(name);
+                if (type == null) {
+                    try {
+                        type = findClass(name);
+                    } catch (ClassNotFoundException e) {
+                        // a class of the package found elsewhere, such as a test
+                        return super.loadClass(name, resolve);
+                    }
+                }
+                if (resolve) {
+                    resolveClass(type);
+                }
+                return type;
+            }
+        }
+
+        private static boolean isIsolated(String name) {
+            if (name.startsWith("org.aspectj.")) {
+                return true;
+            }
+            if (!name.startsWith(AspectJClassLoaders.class.getPackage().getName() + '.')) {
+                return false;
+            }
+            for (String shared : SHARED_CLASSES) {
+                if (name.equals(shared) || name.startsWith(shared + '$')) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -9,6 +9,7 @@ import java.net.URL;
 import java.net.URLClassLoader;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
@@ -20,14 +21,12 @@ import org.aspectj.ajdt.internal.core.builder.AjBuildConfig;
 import org.aspectj.ajdt.internal.core.builder.AjBuildManager;
 import org.aspectj.bridge.AbortException;
 import org.aspectj.bridge.IMessage;
-import org.aspectj.bridge.ISourceLocation;
-import org.aspectj.bridge.MessageHandler;
 import org.aspectj.org.eclipse.jdt.internal.compiler.classfmt.ClassFileConstants;
+import org.aspectj.org.eclipse.jdt.internal.compiler.impl.CompilerOptions;
 import org.aspectj.tools.ajc.Main;
 import org.codehaus.plexus.compiler.AbstractCompiler;
 import org.codehaus.plexus.compiler.CompilerConfiguration;
 import org.codehaus.plexus.compiler.CompilerException;
-import org.codehaus.plexus.compiler.CompilerMessage;
 import org.codehaus.plexus.compiler.CompilerOutputStyle;
 import org.codehaus.plexus.compiler.CompilerResult;
 import org.codehaus.plexus.util.DirectoryScanner;
@@ -314,15 +313,36 @@ public class AspectJCompiler extends AbstractCompiler {
 
         String[] sourceFiles = getSourceFiles(config);
 
-        if (sourceFiles.length == 0) {
+        boolean parallelWeaving = isParallelWeaving(config);
+
+        if (sourceFiles.length == 0 && !parallelWeaving) {
             return new CompilerResult();
         }
 
         logCompiling(sourceFiles, config);
 
+        if (parallelWeaving) {
+            AspectJCompilerConfiguration ajCfg = (AspectJCompilerConfiguration) config;
+            AspectJParallelWeaver weaver =
+                    new AspectJParallelWeaver(ajCfg.getMessageListener(), ajCfg.getWeavingThreads());
+            return weaver.weave(sourceFiles.length > 0, ajCfg);
+        }
+
         //        String[] args = buildCompilerArguments( config, sourceFiles );
         AjBuildConfig buildConfig = buildCompilerConfig(config);
-        return new CompilerResult().compilerMessages(compileInProcess(buildConfig));
+        return compileInProcess(buildConfig, config);
+    }
+
+    /**
+     * Parallel weaving only pays off, and is only attempted, when there is more than one inpath entry to weave.
+     */
+    private static boolean isParallelWeaving(CompilerConfiguration config) {
+        if (!(config instanceof AspectJCompilerConfiguration)) {
+            return false;
+        }
+        AspectJCompilerConfiguration ajCfg = (AspectJCompilerConfiguration) config;
+        return ajCfg.isParallelWeaving()
+                && ajCfg.getInJars().size() + ajCfg.getInPath().size() > 1;
     }
 
     private static class AspectJMessagePrinter extends Main.MessagePrinter {
@@ -331,7 +351,7 @@ public class AspectJCompiler extends AbstractCompiler {
         }
     }
 
-    private AjBuildConfig buildCompilerConfig(CompilerConfiguration config) throws CompilerException {
+    AjBuildConfig buildCompilerConfig(CompilerConfiguration config) throws CompilerException {
         BuildArgParser buildArgParser = new BuildArgParser(new AspectJMessagePrinter(config.isVerbose()));
         AjBuildConfig buildConfig = new AjBuildConfig(buildArgParser);
         // Avoid NPE when AjBuildConfig.getCheckedClasspaths() is called later during compilation
@@ -352,6 +372,13 @@ public class AspectJCompiler extends AbstractCompiler {
                     ClassFileConstants.ATTR_SOURCE + ClassFileConstants.ATTR_LINES + ClassFileConstants.ATTR_VARS;
         }
 
+        // the uses of deprecated APIs are only reported on demand, as javac does with -deprecation
+        if (config.isShowDeprecation()) {
+            buildConfig
+                    .getOptions()
+                    .set(Collections.singletonMap(CompilerOptions.OPTION_ReportDeprecation, CompilerOptions.WARNING));
+        }
+
         Map<String, String> javaOpts = config.getCustomCompilerArgumentsAsMap();
         if (javaOpts != null && !javaOpts.isEmpty()) {
             // TODO support customCompilerArguments
@@ -436,18 +463,19 @@ public class AspectJCompiler extends AbstractCompiler {
         return buildConfig;
     }
 
-    private List<CompilerMessage> compileInProcess(AjBuildConfig buildConfig) throws CompilerException {
-
-        MessageHandler messageHandler = new MessageHandler();
-
-        AjBuildManager manager = new AjBuildManager(messageHandler);
-
-        try {
-            manager.batchBuild(buildConfig, messageHandler);
-        } catch (AbortException | IOException e) {
-            throw new CompilerException("Unknown error while compiling", e);
+    private CompilerResult compileInProcess(AjBuildConfig buildConfig, CompilerConfiguration config)
+            throws CompilerException {
+        AspectJMessageHandler messageHandler;
+        if (config instanceof AspectJCompilerConfiguration) {
+            AspectJCompilerConfiguration ajCfg = (AspectJCompilerConfiguration) config;
+            messageHandler =
+                    new AspectJMessageHandler(toMessageKind(ajCfg.getMessageRetention()), ajCfg.getMessageListener());
+        } else {
+            messageHandler = new AspectJMessageHandler(IMessage.WARNING, null);
         }
 
+        batchBuild(buildConfig, messageHandler);
+
         // We need the location of the maven so we have a couple of options
         // here.
         //
@@ -457,33 +485,36 @@ public class AspectJCompiler extends AbstractCompiler {
         // property or we
         // could pass in a set of parameters in a Map.
 
-        boolean errors = messageHandler.hasAnyMessage(IMessage.ERROR, true);
-
-        List<CompilerMessage> messages = new ArrayList<>();
-        if (errors) {
-            IMessage[] errorMessages = messageHandler.getMessages(IMessage.ERROR, true);
-
-            for (IMessage m : errorMessages) {
-                ISourceLocation sourceLocation = m.getSourceLocation();
-                CompilerMessage error;
-
-                if (sourceLocation == null) {
-                    error = new CompilerMessage(m.getMessage(), true);
-                } else {
-                    error = new CompilerMessage(
-                            sourceLocation.getSourceFile().getPath(),
-                            true,
-                            sourceLocation.getLine(),
-                            sourceLocation.getColumn(),
-                            sourceLocation.getEndLine(),
-                            sourceLocation.getColumn(),
-                            m.getMessage());
-                }
-                messages.add(error);
-            }
+        return messageHandler.toCompilerResult();
+    }
+
+    static void batchBuild(AjBuildConfig buildConfig, AspectJMessageHandler messageHandler) throws CompilerException {
+        AjBuildManager manager = new AjBuildManager(messageHandler);
+        manager.setProgressListener(messageHandler);
+
+        messageHandler.buildStarted();
+        try {
+            manager.batchBuild(buildConfig, messageHandler);
+        } catch (AbortException | IOException e) {
+            throw new CompilerException("Unknown error while compiling", e);
+        } finally {
+            messageHandler.buildFinished();
         }
+    }
 
-        return messages;
+    /**
+     * Resolves the name of an AspectJ message kind, errors being the most severe kind that can be asked for.
+     */
+    static IMessage.Kind toMessageKind(String name) throws CompilerException {
+        if (name == null || name.isEmpty()) {
+            return IMessage.WARNING;
+        }
+        for (IMessage.Kind kind : IMessage.KINDS) {
+            if (kind.toString().equalsIgnoreCase(name)) {
+                return kind.isSameOrLessThan(IMessage.ERROR) ? kind : IMessage.ERROR;
+            }
+        }
+        throw new CompilerException("Unknown AspectJ message kind: " + name);
     }
 
     private void checkForAspectJRT(List<String> cp) {
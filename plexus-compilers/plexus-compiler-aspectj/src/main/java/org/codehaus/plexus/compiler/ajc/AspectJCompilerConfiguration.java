@@ -7,8 +7,10 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.function.Consumer;
 
 import org.codehaus.plexus.compiler.CompilerConfiguration;
+import org.codehaus.plexus.compiler.CompilerMessage;
 
 /**
  * @author jdcasey
@@ -27,6 +29,14 @@ public class AspectJCompilerConfiguration extends CompilerConfiguration {
 
     private Map<String, File> sourcePathResources;
 
+    private String messageRetention = "warning";
+
+    private Consumer<CompilerMessage> messageListener;
+
+    private boolean parallelWeaving;
+
+    private int weavingThreads;
+
     public void setAspectPath(List<String> aspectPath) {
         this.aspectPath = new LinkedList<>(aspectPath);
     }
@@ -98,4 +108,72 @@ public class AspectJCompilerConfiguration extends CompilerConfiguration {
     public Map<String, File> getSourcePathResources() {
         return sourcePathResources;
     }
+
+    /**
+     * Sets the least severe kind of AspectJ message kept in the compiler result: <code>weaveinfo</code>,
+     * <code>info</code>, <code>warning</code> (the default) or <code>error</code>. Errors are always kept.
+     *
+     * @param messageRetention the name of the AspectJ message kind
+     */
+    public void setMessageRetention(String messageRetention) {
+        this.messageRetention = messageRetention;
+    }
+
+    public String getMessageRetention() {
+        return messageRetention;
+    }
+
+    /**
+     * Sets a listener receiving every retained message as soon as AspectJ emits it, while the build is still running.
+     *
+     * @param messageListener the listener, or <code>null</code> for none
+     */
+    public void setMessageListener(Consumer<CompilerMessage> messageListener) {
+        this.messageListener = messageListener;
+    }
+
+    public Consumer<CompilerMessage> getMessageListener() {
+        return messageListener;
+    }
+
+    /**
+     * Weaves each <code>inJars</code> and <code>inPath</code> entry in a build of its own, several at a time, instead
+     * of weaving all of them in a single build. Only useful when the aspects are fixed: they must come from the
+     * aspect path or from the sources, which are compiled first. An aspect declared inside an inpath entry only
+     * applies to that entry.
+     * <p>
+     * Whatever order the builds finish in, the outcome is deterministic:
+     * <ul>
+     * <li>the woven entries are merged into the output location, or the output jar, in the order of
+     * <code>inJars</code> followed by <code>inPath</code>, with the classes compiled from sources ahead of them;</li>
+     * <li>when several entries produce the same file, the first one in that order wins, like it would on a
+     * classpath;</li>
+     * <li>messages are reported in that same order, though a message listener gets them as they are emitted,
+     * one at a time but interleaved between entries;</li>
+     * <li>nothing is merged if any build reports an error.</li>
+     * </ul>
+     *
+     * @param parallelWeaving whether to weave inpath entries concurrently
+     */
+    public void setParallelWeaving(boolean parallelWeaving) {
+        this.parallelWeaving = parallelWeaving;
+    }
+
+    public boolean isParallelWeaving() {
+        return parallelWeaving;
+    }
+
+    /**
+     * Sets the maximum number of inpath entries woven at the same time in {@link #setParallelWeaving(boolean)
+     * parallel weaving} mode.
+     *
+     * @param weavingThreads the number of threads, or <code>0</code> (the default) for one per available processor
+     */
+    public void setWeavingThreads(int weavingThreads) {
+        this.weavingThreads = weavingThreads;
+    }
+
+    public int getWeavingThreads() {
+        return weavingThreads;
+    }
 }
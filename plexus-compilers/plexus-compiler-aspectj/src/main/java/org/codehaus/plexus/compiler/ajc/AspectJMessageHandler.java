@@ -0,0 +1,197 @@
+package org.codehaus.plexus.compiler.ajc;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.aspectj.bridge.AbortException;
+import org.aspectj.bridge.IMessage;
+import org.aspectj.bridge.IMessageHandler;
+import org.aspectj.bridge.IProgressListener;
+import org.aspectj.bridge.ISourceLocation;
+import org.codehaus.plexus.compiler.CompilerMessage;
+import org.codehaus.plexus.compiler.CompilerResult;
+
+/**
+ * Receives the messages of an AspectJ build as they are emitted and turns each of them into a
+ * {@link CompilerMessage} straight away, instead of letting AspectJ queue them until the build is over.
+ * <p>
+ * Messages below the retention threshold are reported as ignored to AspectJ, so it does not even build them.
+ * Retained messages are passed to the optional listener the moment they arrive and kept for the
+ * {@link CompilerResult}.
+ * <p>
+ * The handler is also registered as progress listener: AspectJ announces <code>compiling</code> while it runs the
+ * Java compiler and <code>woven ...</code> once the weaver has started, which is used to split the elapsed time
+ * between the <code>compile</code> and <code>weave</code> phases.
+ */
+class AspectJMessageHandler implements IMessageHandler, IProgressListener {
+    static final String COMPILE_PHASE = "compile";
+
+    static final String WEAVE_PHASE = "weave";
+
+    /** The category of the messages of <code>declare warning</code> and <code>declare error</code> statements. */
+    static final String DECLARED_CATEGORY = "declare";
+
+    private final IMessage.Kind threshold;
+
+    private final Consumer<CompilerMessage> listener;
+
+    private final List<CompilerMessage> messages = new ArrayList<>();
+
+    private boolean errors;
+
+    private long startNanos;
+
+    private long weaveStartNanos;
+
+    private long endNanos;
+
+    /**
+     * @param threshold the least severe AspectJ message kind to retain
+     * @param listener called for every retained message as soon as it is emitted, may be <code>null</code>
+     */
+    AspectJMessageHandler(IMessage.Kind threshold, Consumer<CompilerMessage> listener) {
+        this.threshold = threshold;
+        this.listener = listener;
+    }
+
+    void buildStarted() {
+        startNanos = System.nanoTime();
+    }
+
+    void buildFinished() {
+        endNanos = System.nanoTime();
+    }
+
+    @Override
+    public boolean handleMessage(IMessage message) throws AbortException {
+        IMessage.Kind kind = message.getKind();
+        if (kind == IMessage.WEAVEINFO) {
+            weavingStarted();
+        }
+        if (IMessage.ERROR.isSameOrLessThan(kind)) {
+            errors = true;
+        }
+        if (isIgnoring(kind)) {
+            return true;
+        }
+
+        CompilerMessage compilerMessage = toCompilerMessage(message);
+        messages.add(compilerMessage);
+        if (listener != null) {
+            listener.accept(compilerMessage);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean isIgnoring(IMessage.Kind kind) {
+        return kind != null && !threshold.isSameOrLessThan(kind);
+    }
+
+    @Override
+    public void dontIgnore(IMessage.Kind kind) {
+        // the retention threshold is fixed by the compiler configuration
+    }
+
+    @Override
+    public void ignore(IMessage.Kind kind) {
+        // the retention threshold is fixed by the compiler configuration
+    }
+
+    @Override
+    public void setText(String text) {
+        if (text != null && text.startsWith("woven")) {
+            weavingStarted();
+        }
+    }
+
+    @Override
+    public void setProgress(double percentDone) {}
+
+    @Override
+    public void setCancelledRequested(boolean cancelRequested) {}
+
+    @Override
+    public boolean isCancelledRequested() {
+        return false;
+    }
+
+    private void weavingStarted() {
+        if (weaveStartNanos == 0) {
+            weaveStartNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * @return whether an error, failure or abort was emitted, even if it was not retained
+     */
+    boolean hasErrors() {
+        return errors;
+    }
+
+    List<CompilerMessage> getMessages() {
+        return messages;
+    }
+
+    /**
+     * Builds the result of the compilation, including the time spent in each phase.
+     *
+     * @return the compiler result
+     */
+    CompilerResult toCompilerResult() {
+        CompilerResult result = new CompilerResult(!errors, messages);
+        if (weaveStartNanos == 0) {
+            result.phaseTiming(COMPILE_PHASE, Duration.ofNanos(endNanos - startNanos));
+        } else {
+            result.phaseTiming(COMPILE_PHASE, Duration.ofNanos(weaveStartNanos - startNanos));
+            result.phaseTiming(WEAVE_PHASE, Duration.ofNanos(endNanos - weaveStartNanos));
+        }
+        return result;
+    }
+
+    static CompilerMessage toCompilerMessage(IMessage message) {
+        CompilerMessage.Kind kind = toCompilerMessageKind(message.getKind());
+        ISourceLocation sourceLocation = message.getSourceLocation();
+        File sourceFile = sourceLocation == null ? null : sourceLocation.getSourceFile();
+
+        CompilerMessage compilerMessage;
+        if (sourceFile == null || sourceFile == ISourceLocation.NO_FILE) {
+            compilerMessage = new CompilerMessage(message.getMessage(), kind);
+        } else {
+            compilerMessage = new CompilerMessage(
+                    sourceFile.getPath(),
+                    kind,
+                    sourceLocation.getLine(),
+                    sourceLocation.getColumn(),
+                    sourceLocation.getEndLine(),
+                    sourceLocation.getColumn(),
+                    message.getMessage());
+        }
+
+        // the ID is the ecj problem ID of Java problems, 0 for those of AspectJ itself
+        if (message.getID() != 0) {
+            compilerMessage.code(String.valueOf(message.getID()));
+        }
+        if (message.getDeclared()) {
+            compilerMessage.category(DECLARED_CATEGORY);
+        }
+        if (message.getSourceStart() >= 0 && message.getSourceEnd() >= message.getSourceStart()) {
+            compilerMessage.offsets(message.getSourceStart(), message.getSourceEnd() + 1);
+        }
+        return compilerMessage;
+    }
+
+    static CompilerMessage.Kind toCompilerMessageKind(IMessage.Kind kind) {
+        if (kind == IMessage.ERROR || kind == IMessage.FAIL || kind == IMessage.ABORT) {
+            return CompilerMessage.Kind.ERROR;
+        } else if (kind == IMessage.WARNING) {
+            return CompilerMessage.Kind.WARNING;
+        } else if (kind == IMessage.INFO || kind == IMessage.WEAVEINFO) {
+            return CompilerMessage.Kind.NOTE;
+        }
+        return CompilerMessage.Kind.OTHER;
+    }
+}
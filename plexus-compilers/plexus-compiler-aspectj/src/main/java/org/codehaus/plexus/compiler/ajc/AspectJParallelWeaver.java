@@ -0,0 +1,318 @@
+package org.codehaus.plexus.compiler.ajc;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.aspectj.ajdt.internal.core.builder.AjBuildConfig;
+import org.codehaus.plexus.compiler.CompilerException;
+import org.codehaus.plexus.compiler.CompilerMessage;
+import org.codehaus.plexus.compiler.CompilerResult;
+import org.codehaus.plexus.util.FileUtils;
+
+/**
+ * Weaves the <code>inJars</code> and <code>inPath</code> entries of an {@link AspectJCompilerConfiguration} in
+ * separate, concurrent AspectJ builds, then merges their outputs. See
+ * {@link AspectJCompilerConfiguration#setParallelWeaving(boolean)} for the ordering guarantees.
+ * <p>
+ * Sources, if any, are compiled first in a build of their own, with the inpath entries on the classpath. Their
+ * output is then put on the aspect path of every weaving build, so the aspects they declare are applied. Each build
+ * runs in a class loader of its own, see {@link AspectJClassLoaders}.
+ */
+class AspectJParallelWeaver {
+    private final Consumer<CompilerMessage> listener;
+
+    private final int threads;
+
+    AspectJParallelWeaver(Consumer<CompilerMessage> listener, int threads) {
+        // builds run concurrently, but the listener is called for one message at a time
+        this.listener = listener == null
+                ? null
+                : message -> {
+                    synchronized (this) {
+                        listener.accept(message);
+                    }
+                };
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    }
+
+    CompilerResult weave(boolean hasSources, AspectJCompilerConfiguration config) throws CompilerException {
+        List<File> entries = new ArrayList<>();
+        for (String location : config.getInJars()) {
+            entries.add(new File(location));
+        }
+        for (String location : config.getInPath()) {
+            entries.add(new File(location));
+        }
+
+        File workDirectory = createWorkDirectory(config);
+        try (AspectJClassLoaders loaders = new AspectJClassLoaders()) {
+            List<CompilerMessage> messages = new ArrayList<>();
+            CompilerResult result = new CompilerResult(true, messages);
+            List<File> outputs = new ArrayList<>();
+
+            File sourcesOutput = null;
+            if (hasSources) {
+                sourcesOutput = new File(workDirectory, "sources");
+                CompilerResult sourcesResult = (CompilerResult) loaders.invoke(
+                        AspectJParallelWeaver.class,
+                        "buildSources",
+                        new Class<?>[] {AspectJCompilerConfiguration.class, List.class, File.class, Consumer.class},
+                        config,
+                        entries,
+                        sourcesOutput,
+                        listener);
+                messages.addAll(sourcesResult.getCompilerMessages());
+                sourcesResult.getPhaseTimings().forEach(result::phaseTiming);
+                if (!sourcesResult.isSuccess()) {
+                    return result.success(false);
+                }
+                outputs.add(sourcesOutput);
+            }
+
+            for (int i = 0; i < entries.size(); i++) {
+                outputs.add(new File(workDirectory, "entry-" + i));
+            }
+
+            long start = System.nanoTime();
+            List<CompilerResult> entryResults = buildEntries(loaders, config, entries, sourcesOutput, workDirectory);
+            result.phaseTiming(AspectJMessageHandler.WEAVE_PHASE, Duration.ofNanos(System.nanoTime() - start));
+
+            for (CompilerResult entryResult : entryResults) {
+                messages.addAll(entryResult.getCompilerMessages());
+                result.setSuccess(result.isSuccess() && entryResult.isSuccess());
+            }
+
+            if (result.isSuccess()) {
+                if (config.getOutputJar() != null) {
+                    mergeToJar(outputs, new File(config.getOutputJar()));
+                } else {
+                    mergeToDirectory(outputs, new File(config.getOutputLocation()));
+                }
+            }
+
+            return result;
+        } finally {
+            try {
+                FileUtils.deleteDirectory(workDirectory);
+            } catch (IOException e) {
+                // only temporary files are left behind
+            }
+        }
+    }
+
+    /**
+     * Weaves the entries concurrently and returns their results in the order of the entries, not of their completion.
+     */
+    private List<CompilerResult> buildEntries(
+            AspectJClassLoaders loaders,
+            AspectJCompilerConfiguration config,
+            List<File> entries,
+            File sourcesOutput,
+            File workDirectory)
+            throws CompilerException {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, entries.size()));
+        try {
+            List<Future<CompilerResult>> futures = new ArrayList<>(entries.size());
+            for (int i = 0; i < entries.size(); i++) {
+                int index = i;
+                futures.add(executor.submit(() -> (CompilerResult) loaders.invoke(
+                        AspectJParallelWeaver.class,
+                        "buildEntry",
+                        new Class<?>[] {
+                            AspectJCompilerConfiguration.class,
+                            List.class,
+                            int.class,
+                            File.class,
+                            File.class,
+                            Consumer.class
+                        },
+                        config,
+                        entries,
+                        index,
+                        sourcesOutput,
+                        new File(workDirectory, "entry-" + index),
+                        listener)));
+            }
+
+            List<CompilerResult> results = new ArrayList<>(futures.size());
+            for (Future<CompilerResult> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompilerException("Interrupted while weaving", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof CompilerException) {
+                throw (CompilerException) e.getCause();
+            }
+            throw new CompilerException("Unknown error while weaving", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Compiles the sources of the configuration alone, with the inpath entries on the classpath. Runs in the class
+     * loader {@link AspectJClassLoaders} loaded this class in, so only shared types are passed.
+     */
+    private static CompilerResult buildSources(
+            AspectJCompilerConfiguration config,
+            List<File> entries,
+            File sourcesOutput,
+            Consumer<CompilerMessage> listener)
+            throws CompilerException {
+        AjBuildConfig buildConfig = new AspectJCompiler().buildCompilerConfig(config);
+        buildConfig.setInJars(Collections.emptyList());
+        buildConfig.setInPath(Collections.emptyList());
+        buildConfig.setOutputJar(null);
+        buildConfig.setOutputDir(sourcesOutput);
+        buildConfig.setClasspath(classpath(buildConfig.getClasspath(), entries, null));
+        return build(buildConfig, config, listener);
+    }
+
+    /**
+     * Weaves one of the inpath entries of the configuration alone, with the others on the classpath. Runs in the
+     * class loader {@link AspectJClassLoaders} loaded this class in, so only shared types are passed.
+     */
+    private static CompilerResult buildEntry(
+            AspectJCompilerConfiguration config,
+            List<File> entries,
+            int index,
+            File sourcesOutput,
+            File entryOutput,
+            Consumer<CompilerMessage> listener)
+            throws CompilerException {
+        AjBuildConfig buildConfig = new AspectJCompiler().buildCompilerConfig(config);
+        buildConfig.setFiles(Collections.emptyList());
+        buildConfig.setInJars(Collections.emptyList());
+        buildConfig.setInPath(Collections.singletonList(entries.get(index)));
+        buildConfig.setOutputJar(null);
+        buildConfig.setOutputDir(entryOutput);
+        buildConfig.setClasspath(classpath(buildConfig.getClasspath(), entries, sourcesOutput));
+        if (sourcesOutput != null) {
+            List<File> aspectPath = new ArrayList<>();
+            if (buildConfig.getAspectpath() != null) {
+                aspectPath.addAll(buildConfig.getAspectpath());
+            }
+            aspectPath.add(sourcesOutput);
+            buildConfig.setAspectpath(aspectPath);
+        }
+        return build(buildConfig, config, listener);
+    }
+
+    private static CompilerResult build(
+            AjBuildConfig buildConfig, AspectJCompilerConfiguration config, Consumer<CompilerMessage> listener)
+            throws CompilerException {
+        AspectJMessageHandler messageHandler =
+                new AspectJMessageHandler(AspectJCompiler.toMessageKind(config.getMessageRetention()), listener);
+        AspectJCompiler.batchBuild(buildConfig, messageHandler);
+        return messageHandler.toCompilerResult();
+    }
+
+    private static List<String> classpath(List<String> classpath, List<File> entries, File sourcesOutput) {
+        List<String> elements = new ArrayList<>(classpath == null ? Collections.emptyList() : classpath);
+        if (sourcesOutput != null) {
+            elements.add(sourcesOutput.getAbsolutePath());
+        }
+        for (File entry : entries) {
+            elements.add(entry.getAbsolutePath());
+        }
+        return elements;
+    }
+
+    private static File createWorkDirectory(AspectJCompilerConfiguration config) throws CompilerException {
+        try {
+            if (config.getBuildDirectory() != null) {
+                Files.createDirectories(config.getBuildDirectory().toPath());
+                return Files.createTempDirectory(config.getBuildDirectory().toPath(), "ajc-weave")
+                        .toFile();
+            }
+            return Files.createTempDirectory("ajc-weave").toFile();
+        } catch (IOException e) {
+            throw new CompilerException("Unable to create a weaving work directory", e);
+        }
+    }
+
+    /**
+     * Lists the files of each output, in order, keeping only the first output producing a given path.
+     */
+    private static Map<String, Path> collectFiles(List<File> outputs) throws IOException {
+        Map<String, Path> files = new LinkedHashMap<>();
+        for (File output : outputs) {
+            Path root = output.toPath();
+            if (!Files.isDirectory(root)) {
+                continue;
+            }
+            List<Path> paths;
+            try (Stream<Path> walk = Files.walk(root)) {
+                paths = walk.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+            }
+            for (Path path : paths) {
+                files.putIfAbsent(root.relativize(path).toString().replace(File.separatorChar, '/'), path);
+            }
+        }
+        return files;
+    }
+
+    private static void mergeToDirectory(List<File> outputs, File outputDirectory) throws CompilerException {
+        try {
+            for (Map.Entry<String, Path> file : collectFiles(outputs).entrySet()) {
+                Path target = outputDirectory.toPath().resolve(file.getKey());
+                Files.createDirectories(target.getParent());
+                Files.copy(file.getValue(), target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            throw new CompilerException("Unable to merge woven classes into " + outputDirectory, e);
+        }
+    }
+
+    private static void mergeToJar(List<File> outputs, File outputJar) throws CompilerException {
+        try {
+            Map<String, Path> files = collectFiles(outputs);
+            if (outputJar.getParentFile() != null) {
+                Files.createDirectories(outputJar.getParentFile().toPath());
+            }
+            Set<String> directories = new HashSet<>();
+            try (OutputStream out = Files.newOutputStream(outputJar.toPath());
+                    JarOutputStream jar = new JarOutputStream(out)) {
+                for (Map.Entry<String, Path> file : files.entrySet()) {
+                    String name = file.getKey();
+                    for (int i = name.indexOf('/'); i >= 0; i = name.indexOf('/', i + 1)) {
+                        String directory = name.substring(0, i + 1);
+                        if (directories.add(directory)) {
+                            jar.putNextEntry(new JarEntry(directory));
+                            jar.closeEntry();
+                        }
+                    }
+                    jar.putNextEntry(new JarEntry(name));
+                    Files.copy(file.getValue(), jar);
+                    jar.closeEntry();
+                }
+            }
+        } catch (IOException e) {
+            throw new CompilerException("Unable to merge woven classes into " + outputJar, e);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package org.codehaus.plexus.compiler.ajc;
+
+import java.io.File;
+import java.net.URISyntaxException;
+
+import org.aspectj.lang.JoinPoint;
+import org.codehaus.plexus.compiler.AbstractCompilerParallelTckTest;
+import org.codehaus.plexus.compiler.CompilerConfiguration;
+
+public class AspectJCompilerParallelTckTest extends AbstractCompilerParallelTckTest {
+    public AspectJCompilerParallelTckTest() {
+        this.roleHint = "aspectj";
+    }
+
+    /**
+     * AspectJ keeps the state of the running build in static fields, so only the builds of a parallel weaving, which
+     * run in class loaders of their own, may overlap: the compilations are run one at a time.
+     */
+    @Override
+    protected int threads() {
+        return 1;
+    }
+
+    @Override
+    protected void configure(CompilerConfiguration configuration) {
+        // the AspectJ runtime must be on the classpath of every build
+        try {
+            configuration.addClasspathEntry(new File(JoinPoint.class
+                            .getProtectionDomain()
+                            .getCodeSource()
+                            .getLocation()
+                            .toURI())
+                    .getAbsolutePath());
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -1,10 +1,20 @@
 package org.codehaus.plexus.compiler.ajc;
 
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 
 import org.codehaus.plexus.compiler.AbstractCompilerTest;
+import org.codehaus.plexus.compiler.CompilerMessage;
+import org.codehaus.plexus.compiler.CompilerResult;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * @author <a href="mailto:jason@plexus.org">Jason van Zyl</a>
@@ -30,4 +40,34 @@ public class AspectJCompilerTest extends AbstractCompilerTest {
         classpath.add(getJarPath("org.aspectj.lang.JoinPoint").getAbsolutePath());
         return classpath;
     }
+
+    @Test
+    void testDeprecationsAreReportedWithShowDeprecation(@TempDir Path tempDir) throws Exception {
+        assertEquals(1, countDeprecationWarnings(tempDir.resolve("shown"), true));
+        assertEquals(0, countDeprecationWarnings(tempDir.resolve("hidden"), false));
+    }
+
+    private static long countDeprecationWarnings(Path directory, boolean showDeprecation) throws Exception {
+        Path sources = directory.resolve("src");
+        Files.createDirectories(sources.resolve("d"));
+        Files.write(
+                sources.resolve("d/Dates.java"),
+                "package d; public class Dates { Object year() { return new java.util.Date(2000, 0, 1); } }"
+                        .getBytes(StandardCharsets.UTF_8));
+
+        AspectJCompilerConfiguration config = new AspectJCompilerConfiguration();
+        config.addSourceLocation(sources.toString());
+        config.addClasspathEntry(getJarPath("org.aspectj.lang.JoinPoint").getAbsolutePath());
+        config.setOutputLocation(directory.resolve("classes").toString());
+        config.setBuildDirectory(directory.resolve("target").toFile());
+        config.setShowDeprecation(showDeprecation);
+
+        CompilerResult result = new AspectJCompiler().performCompile(config);
+
+        assertTrue(result.isSuccess(), () -> result.getCompilerMessages().toString());
+        return result.getCompilerMessages().stream()
+                .filter(message -> message.getKind() == CompilerMessage.Kind.WARNING
+                        && message.getMessage().contains("deprecated"))
+                .count();
+    }
 }
@@ -0,0 +1,106 @@
+package org.codehaus.plexus.compiler.ajc;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.aspectj.bridge.IMessage;
+import org.aspectj.bridge.Message;
+import org.aspectj.bridge.SourceLocation;
+import org.codehaus.plexus.compiler.CompilerMessage;
+import org.codehaus.plexus.compiler.CompilerResult;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AspectJMessageHandlerTest {
+    @Test
+    void testMessagesBelowThresholdAreIgnored() {
+        AspectJMessageHandler handler = new AspectJMessageHandler(IMessage.WARNING, null);
+
+        assertTrue(handler.isIgnoring(IMessage.WEAVEINFO));
+        assertTrue(handler.isIgnoring(IMessage.INFO));
+        assertFalse(handler.isIgnoring(IMessage.WARNING));
+        assertFalse(handler.isIgnoring(IMessage.ERROR));
+
+        handler.handleMessage(new Message("compiling", IMessage.INFO, null, null));
+        handler.handleMessage(new Message("lint", IMessage.WARNING, null, null));
+
+        assertEquals(1, handler.getMessages().size());
+        assertEquals(CompilerMessage.Kind.WARNING, handler.getMessages().get(0).getKind());
+        assertFalse(handler.hasErrors());
+    }
+
+    @Test
+    void testMessagesAreStreamedToListener() {
+        List<CompilerMessage> streamed = new ArrayList<>();
+        AspectJMessageHandler handler = new AspectJMessageHandler(IMessage.WEAVEINFO, streamed::add);
+
+        File source = new File("Foo.java");
+        handler.handleMessage(new Message("woven", IMessage.WEAVEINFO, null, null));
+        handler.handleMessage(new Message("broken", IMessage.ERROR, null, new SourceLocation(source, 3, 4, 7)));
+
+        assertEquals(handler.getMessages(), streamed);
+        assertEquals(CompilerMessage.Kind.NOTE, streamed.get(0).getKind());
+
+        CompilerMessage error = streamed.get(1);
+        assertEquals(CompilerMessage.Kind.ERROR, error.getKind());
+        assertEquals(source.getPath(), error.getFile());
+        assertEquals(3, error.getStartLine());
+        assertEquals(4, error.getEndLine());
+        assertEquals(7, error.getStartColumn());
+        assertTrue(handler.hasErrors());
+    }
+
+    @Test
+    void testCodeCategoryAndOffsets() {
+        SourceLocation location = new SourceLocation(new File("Foo.aj"), 3, 3, 5);
+        CompilerMessage declared = AspectJMessageHandler.toCompilerMessage(
+                new Message("call to foo()", null, IMessage.WARNING, location, null, null, true, 0, 40, 44));
+        assertEquals(AspectJMessageHandler.DECLARED_CATEGORY, declared.getCategory());
+        assertNull(declared.getCode());
+        assertEquals(40, declared.getStartOffset());
+        assertEquals(45, declared.getEndOffset());
+
+        CompilerMessage javaProblem = AspectJMessageHandler.toCompilerMessage(new Message(
+                "The import java.util.List is never used",
+                null,
+                IMessage.WARNING,
+                location,
+                null,
+                null,
+                false,
+                268435844,
+                -1,
+                -1));
+        assertEquals("268435844", javaProblem.getCode());
+        assertNull(javaProblem.getCategory());
+        assertEquals(-1, javaProblem.getStartOffset());
+        assertEquals(-1, javaProblem.getEndOffset());
+    }
+
+    @Test
+    void testPhaseTimings() {
+        AspectJMessageHandler handler = new AspectJMessageHandler(IMessage.ERROR, null);
+
+        handler.buildStarted();
+        handler.setText("compiling source files");
+        handler.buildFinished();
+        CompilerResult result = handler.toCompilerResult();
+        assertTrue(result.isSuccess());
+        assertEquals(1, result.getPhaseTimings().size());
+        assertTrue(result.getPhaseTimings().containsKey(AspectJMessageHandler.COMPILE_PHASE));
+
+        handler = new AspectJMessageHandler(IMessage.ERROR, null);
+        handler.buildStarted();
+        handler.setText("compiling source files");
+        handler.setText("woven class Foo");
+        handler.buildFinished();
+        result = handler.toCompilerResult();
+        assertEquals(2, result.getPhaseTimings().size());
+        assertTrue(result.getPhaseTimings().containsKey(AspectJMessageHandler.WEAVE_PHASE));
+    }
+}
@@ -0,0 +1,121 @@
+package org.codehaus.plexus.compiler.ajc;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+
+import org.aspectj.lang.JoinPoint;
+import org.codehaus.plexus.compiler.CompilerResult;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AspectJParallelWeavingTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testWeavesInpathEntriesConcurrently() throws Exception {
+        File first = createJar("first", "a.Alpha", "package a; public class Alpha { public void run() {} }");
+        File second = createJar("second", "b.Beta", "package b; public class Beta { public void run() {} }");
+
+        AspectJCompilerConfiguration config = createConfiguration();
+        config.setInJars(Arrays.asList(first.getPath(), second.getPath()));
+        config.setOutputLocation(tempDir.resolve("classes").toString());
+
+        CompilerResult result = new AspectJCompiler().performCompile(config);
+
+        assertTrue(result.isSuccess(), () -> result.getCompilerMessages().toString());
+        assertTrue(isWoven(tempDir.resolve("classes/a/Alpha.class")));
+        assertTrue(isWoven(tempDir.resolve("classes/b/Beta.class")));
+        assertTrue(Files.exists(tempDir.resolve("classes/t/Tracing.class")));
+        assertTrue(result.getPhaseTimings().containsKey(AspectJMessageHandler.WEAVE_PHASE));
+    }
+
+    @Test
+    void testFirstEntryWinsInOutputJar() throws Exception {
+        File first = createJar("first", "a.Alpha", "package a; public class Alpha { public void run() {} }");
+        File second = createJar("second", "a.Alpha", "package a; public class Alpha { public void other() {} }");
+
+        AspectJCompilerConfiguration config = createConfiguration();
+        config.setInPath(Arrays.asList(first.getPath(), second.getPath()));
+        config.setOutputLocation(tempDir.resolve("classes").toString());
+        File outputJar = tempDir.resolve("woven.jar").toFile();
+        config.setOutputJar(outputJar.getPath());
+
+        CompilerResult result = new AspectJCompiler().performCompile(config);
+
+        assertTrue(result.isSuccess(), () -> result.getCompilerMessages().toString());
+        try (JarFile jar = new JarFile(outputJar)) {
+            JarEntry alpha = jar.getJarEntry("a/Alpha.class");
+            assertNotNull(alpha);
+            String content = new String(jar.getInputStream(alpha).readAllBytes(), StandardCharsets.ISO_8859_1);
+            assertTrue(content.contains("run"));
+            assertFalse(content.contains("other"));
+            assertNotNull(jar.getJarEntry("t/Tracing.class"));
+        }
+        assertFalse(Files.exists(tempDir.resolve("classes/a/Alpha.class")));
+    }
+
+    private AspectJCompilerConfiguration createConfiguration() throws Exception {
+        Path sources = tempDir.resolve("src");
+        Files.createDirectories(sources.resolve("t"));
+        Files.write(
+                sources.resolve("t/Tracing.aj"),
+                "package t; public aspect Tracing { before(): execution(* *.run()) {} }"
+                        .getBytes(StandardCharsets.UTF_8));
+
+        AspectJCompilerConfiguration config = new AspectJCompilerConfiguration();
+        config.addSourceLocation(sources.toString());
+        config.addClasspathEntry(new File(JoinPoint.class
+                        .getProtectionDomain()
+                        .getCodeSource()
+                        .getLocation()
+                        .toURI())
+                .getPath());
+        config.setBuildDirectory(tempDir.resolve("target").toFile());
+        config.setParallelWeaving(true);
+        config.setWeavingThreads(2);
+        return config;
+    }
+
+    private File createJar(String name, String className, String source) throws IOException {
+        Path sourceDir = tempDir.resolve(name + "-src");
+        Path classesDir = tempDir.resolve(name + "-classes");
+        Files.createDirectories(classesDir);
+        Path sourceFile = sourceDir.resolve(className.replace('.', '/') + ".java");
+        Files.createDirectories(sourceFile.getParent());
+        Files.write(sourceFile, source.getBytes(StandardCharsets.UTF_8));
+
+        JavaCompiler javac = ToolProvider.getSystemJavaCompiler();
+        assertEquals(0, javac.run(null, null, null, "-d", classesDir.toString(), sourceFile.toString()));
+
+        String entryName = className.replace('.', '/') + ".class";
+        File jar = tempDir.resolve(name + ".jar").toFile();
+        try (OutputStream out = Files.newOutputStream(jar.toPath());
+                JarOutputStream jarOut = new JarOutputStream(out)) {
+            jarOut.putNextEntry(new JarEntry(entryName));
+            Files.copy(classesDir.resolve(entryName), jarOut);
+            jarOut.closeEntry();
+        }
+        return jar;
+    }
+
+    private static boolean isWoven(Path classFile) throws IOException {
+        return new String(Files.readAllBytes(classFile), StandardCharsets.ISO_8859_1).contains("t/Tracing");
+    }
+}
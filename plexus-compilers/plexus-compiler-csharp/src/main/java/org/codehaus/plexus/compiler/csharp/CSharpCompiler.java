@@ -23,9 +23,6 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
-import java.io.StringReader;
-import java.io.StringWriter;
-import java.io.Writer;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -34,6 +31,8 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
 
 import org.codehaus.plexus.compiler.AbstractCompiler;
 import org.codehaus.plexus.compiler.CompilerConfiguration;
@@ -41,15 +40,15 @@ import org.codehaus.plexus.compiler.CompilerException;
 import org.codehaus.plexus.compiler.CompilerMessage;
 import org.codehaus.plexus.compiler.CompilerOutputStyle;
 import org.codehaus.plexus.compiler.CompilerResult;
+import org.codehaus.plexus.compiler.util.OutputCapture;
+import org.codehaus.plexus.compiler.util.ProcessRunner;
 import org.codehaus.plexus.util.DirectoryScanner;
 import org.codehaus.plexus.util.IOUtil;
 import org.codehaus.plexus.util.Os;
 import org.codehaus.plexus.util.StringUtils;
 import org.codehaus.plexus.util.cli.CommandLineException;
-import org.codehaus.plexus.util.cli.CommandLineUtils;
 import org.codehaus.plexus.util.cli.Commandline;
 import org.codehaus.plexus.util.cli.StreamConsumer;
-import org.codehaus.plexus.util.cli.WriterStreamConsumer;
 
 /**
  * @author <a href="mailto:gdodinet@karmicsoft.com">Gilles Dodinet</a>
@@ -68,6 +67,20 @@ public class CSharpCompiler extends AbstractCompiler {
 
     private static final String[] DEFAULT_INCLUDES = {"**/**"};
 
+    /**
+     * Roslyn's <code>csc -version</code> prints nothing but its version, e.g. <code>4.11.0-3.24460.3 (5649376e)</code>.
+     */
+    private static final Pattern ROSLYN_VERSION_PATTERN = Pattern.compile("\\d+\\.\\d+\\.\\d+\\S*( \\(\\w+\\))?");
+
+    /** Error code of csc and mcs for an option they do not know. */
+    private static final String UNRECOGNIZED_OPTION = "CS2007";
+
+    /** The number of lines of an output the errors could not be parsed from that are quoted in the error message */
+    private static final int UNPARSED_ERROR_LINES = 100;
+
+    /** Cache of compiler server support per executable (only invalidated when the server is rejected) */
+    private static final Map<String, Boolean> COMPILER_SERVER_PER_EXECUTABLE = new ConcurrentHashMap<>();
+
     public CSharpCompiler() {
         super(CompilerOutputStyle.ONE_OUTPUT_FILE_FOR_ALL_INPUT_FILES, ".cs", null, null);
     }
@@ -102,18 +115,219 @@ public class CSharpCompiler extends AbstractCompiler {
 
         logCompiling(sourceFiles, config);
 
-        String[] args = buildCompilerArguments(config, sourceFiles);
+        if (!config.isFork()) {
+            throw new CompilerException("This compiler doesn't support in-process compilation.");
+        }
+
+        JarExtractionCache jarCache = createJarCache(config);
+        try {
+            return compile(config, sourceFiles, jarCache);
+        } finally {
+            closeJarCache(jarCache);
+        }
+    }
+
+    private CompilerResult compile(CompilerConfiguration config, String[] sourceFiles, JarExtractionCache jarCache)
+            throws CompilerException {
+        String[] args = buildCompilerArguments(config, sourceFiles, jarCache);
 
-        List<CompilerMessage> messages;
+        String executable = findExecutable(config);
+
+        InputManifest manifest = null;
+        if (isIncremental(config)) {
+            manifest = createInputManifest(config, executable, args, sourceFiles);
+            if (manifest.isUpToDate()) {
+                getLog().info("Nothing to compile - all inputs of " + manifest.getAssembly() + " are unchanged");
+                return new CompilerResult().success(true);
+            }
+            try {
+                manifest.delete();
+            } catch (IOException e) {
+                throw new CompilerException("Error deleting the inputs manifest.", e);
+            }
+        }
+
+        CompilerResult result;
 
-        if (config.isFork()) {
-            messages = compileOutOfProcess(
-                    config.getWorkingDirectory(), config.getBuildDirectory(), findExecutable(config), args);
+        if (isCompilerServerRequested(config) && isCompilerServerSupported(config.getWorkingDirectory(), executable)) {
+            result = compileOutOfProcess(config, executable, getCompilerServerArguments(config), args);
+
+            if (isCompilerServerRejected(result.getCompilerMessages())) {
+                getLog().warn("The compiler " + executable
+                        + " does not support shared compilation, falling back to one-shot compilation.");
+                COMPILER_SERVER_PER_EXECUTABLE.put(executable, Boolean.FALSE);
+                result = compileOutOfProcess(config, executable, new String[0], args);
+            }
         } else {
-            throw new CompilerException("This compiler doesn't support in-process compilation.");
+            result = compileOutOfProcess(config, executable, new String[0], args);
+        }
+
+        // only a compilation known to be complete and clean may be skipped next time
+        if (manifest != null
+                && result.isSuccess()
+                && !result.isOutputTruncated()
+                && result.getCompilerMessages().stream().noneMatch(CompilerMessage::isError)) {
+            try {
+                manifest.save();
+            } catch (IOException e) {
+                throw new CompilerException("Error writing the inputs manifest.", e);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * With the <code>-incremental</code> compiler argument set to <code>true</code>, the compilation is skipped when
+     * the output assembly exists and an {@link InputManifest} next to it shows that the compiler, arguments, sources,
+     * resources and references are the same as when it was last built successfully.
+     */
+    private boolean isIncremental(CompilerConfiguration config) {
+        return "true".equalsIgnoreCase(getCompilerArguments(config).get("-incremental"));
+    }
+
+    /**
+     * Jars on the classpath are extracted to reference the assemblies they contain. With the <code>-jarCache</code>
+     * compiler argument they are extracted once into that directory, shared by all modules and builds, which is
+     * limited to <code>-jarCacheSize</code> megabytes (see {@link JarExtractionCache}). Otherwise each jar is
+     * extracted again by every build, next to the jar.
+     *
+     * @return the cache of the compilation, to close once the compiler is done with the extracted jars, or
+     *         <code>null</code> if there is none
+     */
+    private JarExtractionCache createJarCache(CompilerConfiguration config) throws CompilerException {
+        Map<String, String> compilerArguments = getCompilerArguments(config);
+        String jarCache = compilerArguments.get("-jarCache");
+        if (StringUtils.isEmpty(jarCache)) {
+            return null;
+        }
+
+        long maxSize = JarExtractionCache.DEFAULT_MAX_SIZE;
+        String jarCacheSize = compilerArguments.get("-jarCacheSize");
+        if (!StringUtils.isEmpty(jarCacheSize)) {
+            try {
+                maxSize = Long.parseLong(jarCacheSize) * 1024 * 1024;
+            } catch (NumberFormatException e) {
+                throw new CompilerException("Invalid -jarCacheSize, expected a number of megabytes: " + jarCacheSize);
+            }
+        }
+        return new JarExtractionCache(Paths.get(jarCache), maxSize);
+    }
+
+    /**
+     * Closes the cache of a compilation, failing to evict jars only being worth a warning.
+     */
+    private void closeJarCache(JarExtractionCache jarCache) {
+        if (jarCache == null) {
+            return;
+        }
+        try {
+            jarCache.close();
+        } catch (IOException e) {
+            getLog().warn("Unable to evict the least recently used extracted jars: " + e);
+        }
+    }
+
+    private static File extractJar(File jar, JarExtractionCache jarCache) throws IOException {
+        if (jarCache == null) {
+            File dllDir = new File(jar.getPath() + NET_SUFFIX);
+            if (!dllDir.exists()) {
+                dllDir.mkdir();
+            }
+            JarUtil.extract(dllDir.toPath(), jar);
+            return dllDir;
+        }
+        return jarCache.extract(jar).toFile();
+    }
+
+    private InputManifest createInputManifest(
+            CompilerConfiguration config, String executable, String[] args, String[] sourceFiles)
+            throws CompilerException {
+        List<File> inputs = new ArrayList<>();
+        for (String sourceFile : sourceFiles) {
+            inputs.add(new File(sourceFile));
+        }
+        inputs.addAll(getResourceFiles(config));
+        for (String element : config.getClasspathEntries()) {
+            File f = new File(element);
+            if (f.isFile()) {
+                inputs.add(f);
+            }
+        }
+
+        try {
+            return InputManifest.create(getOutputAssembly(config), executable, args, inputs);
+        } catch (IOException e) {
+            throw new CompilerException("Error while computing the inputs of the compilation.", e);
+        }
+    }
+
+    /**
+     * Shared compilation is asked for with the <code>-shared</code> compiler argument. It makes Roslyn's
+     * <code>csc</code> hand the compilation over to a long-lived compiler server (VBCSCompiler), started on first use,
+     * which keeps the compiler loaded and warm between builds. The server exits on its own once it has been idle
+     * for <code>-keepalive</code> seconds (Roslyn's default when not set). The Mono <code>mcs</code> compiler has no
+     * such server: the argument is ignored for it.
+     */
+    private boolean isCompilerServerRequested(CompilerConfiguration config) {
+        String shared = getCompilerArguments(config).get("-shared");
+        return shared != null && !"false".equalsIgnoreCase(shared);
+    }
+
+    /**
+     * The compiler server options are only honoured on the command line itself, not in a response file.
+     */
+    private String[] getCompilerServerArguments(CompilerConfiguration config) {
+        String keepalive = getCompilerArguments(config).get("-keepalive");
+        if (StringUtils.isEmpty(keepalive)) {
+            return new String[] {"/shared"};
+        }
+        return new String[] {"/shared", "/keepalive:" + keepalive};
+    }
+
+    /**
+     * Only Roslyn's <code>csc</code> has a compiler server, which is detected from the output of
+     * <code>-version</code>: a bare version number, where <code>mcs</code> complains about the option.
+     */
+    private boolean isCompilerServerSupported(File workingDirectory, String executable) {
+        Boolean supported = COMPILER_SERVER_PER_EXECUTABLE.get(executable);
+        if (supported == null) {
+            Commandline cli = new Commandline();
+            if (workingDirectory != null) {
+                cli.setWorkingDirectory(workingDirectory.getAbsolutePath());
+            }
+            cli.setExecutable(executable);
+            cli.addArguments(new String[] {"-version"});
+            List<String> out = new ArrayList<>();
+            try {
+                StreamConsumer consumer = out::add;
+                int exitCode = ProcessRunner.execute(cli, consumer, consumer);
+                supported = exitCode == 0
+                        && out.stream().anyMatch(line -> ROSLYN_VERSION_PATTERN
+                                .matcher(line.trim())
+                                .matches());
+            } catch (CommandLineException e) {
+                getLog().debug("Could not retrieve the version of " + executable, e);
+                supported = Boolean.FALSE;
+            }
+            if (!supported) {
+                getLog().debug("The compiler " + executable + " has no compiler server, using one-shot compilation.");
+            }
+            COMPILER_SERVER_PER_EXECUTABLE.put(executable, supported);
         }
+        return supported;
+    }
 
-        return new CompilerResult().compilerMessages(messages);
+    private static boolean isCompilerServerRejected(List<CompilerMessage> messages) {
+        for (CompilerMessage message : messages) {
+            if (message.isError()
+                    && message.getMessage().contains(UNRECOGNIZED_OPTION)
+                    && (message.getMessage().contains("shared")
+                            || message.getMessage().contains("keepalive"))) {
+                return true;
+            }
+        }
+        return false;
     }
 
     public String[] createCommandLine(CompilerConfiguration config) throws CompilerException {
@@ -386,6 +600,16 @@ public class CSharpCompiler extends AbstractCompiler {
      */
 
     String[] buildCompilerArguments(CompilerConfiguration config, String[] sourceFiles) throws CompilerException {
+        JarExtractionCache jarCache = createJarCache(config);
+        try {
+            return buildCompilerArguments(config, sourceFiles, jarCache);
+        } finally {
+            closeJarCache(jarCache);
+        }
+    }
+
+    private String[] buildCompilerArguments(
+            CompilerConfiguration config, String[] sourceFiles, JarExtractionCache jarCache) throws CompilerException {
         List<String> args = new ArrayList<>();
 
         // config.isShowWarnings()
@@ -402,11 +626,7 @@ public class CSharpCompiler extends AbstractCompiler {
 
             if (element.endsWith(JAR_SUFFIX)) {
                 try {
-                    File dllDir = new File(element + NET_SUFFIX);
-                    if (!dllDir.exists()) {
-                        dllDir.mkdir();
-                    }
-                    JarUtil.extract(dllDir.toPath(), new File(element));
+                    File dllDir = extractJar(f, jarCache);
                     for (String tmpfile : dllDir.list()) {
                         if (tmpfile.endsWith(DLL_SUFFIX)) {
                             String dll =
@@ -450,12 +670,7 @@ public class CSharpCompiler extends AbstractCompiler {
         }
 
         // Out - Override output name, this is required for generating the unit test dll
-        String out = compilerArguments.get("-out");
-        if (!StringUtils.isEmpty(out)) {
-            args.add("/out:" + new File(config.getOutputLocation(), out).getAbsolutePath());
-        } else {
-            args.add("/out:" + new File(config.getOutputLocation(), getOutputFile(config)).getAbsolutePath());
-        }
+        args.add("/out:" + getOutputAssembly(config).getAbsolutePath());
 
         // Resource File - compile in a resource file into the assembly being created
         String resourcefile = compilerArguments.get("-resourcefile");
@@ -509,26 +724,50 @@ public class CSharpCompiler extends AbstractCompiler {
         return args.toArray(new String[0]);
     }
 
+    /**
+     * The assembly produced by the compilation: the <code>-out</code> compiler argument, if any, or else the
+     * {@link #getOutputFile(CompilerConfiguration) output file}, in the output location.
+     */
+    private File getOutputAssembly(CompilerConfiguration config) throws CompilerException {
+        String out = getCompilerArguments(config).get("-out");
+        if (!StringUtils.isEmpty(out)) {
+            return new File(config.getOutputLocation(), out);
+        }
+        return new File(config.getOutputLocation(), getOutputFile(config));
+    }
+
     private void addResourceArgs(CompilerConfiguration config, List<String> args) {
         File filteredResourceDir = this.findResourceDir(config);
-        if ((filteredResourceDir != null) && filteredResourceDir.exists()) {
-            DirectoryScanner scanner = new DirectoryScanner();
-            scanner.setBasedir(filteredResourceDir);
-            scanner.setIncludes(DEFAULT_INCLUDES);
-            scanner.addDefaultExcludes();
-            scanner.scan();
-
-            String[] includedFiles = scanner.getIncludedFiles();
-            for (String name : includedFiles) {
-                File filteredResource = new File(filteredResourceDir, name);
-                String assemblyResourceName = this.convertNameToAssemblyResourceName(name);
-                String argLine = "/resource:\"" + filteredResource + "\",\"" + assemblyResourceName + "\"";
-                if (config.isDebug()) {
-                    System.out.println("adding resource arg line:" + argLine);
-                }
-                args.add(argLine);
+        for (String name : scanResourceDir(filteredResourceDir)) {
+            File filteredResource = new File(filteredResourceDir, name);
+            String assemblyResourceName = this.convertNameToAssemblyResourceName(name);
+            String argLine = "/resource:\"" + filteredResource + "\",\"" + assemblyResourceName + "\"";
+            if (config.isDebug()) {
+                System.out.println("adding resource arg line:" + argLine);
             }
+            args.add(argLine);
+        }
+    }
+
+    private List<File> getResourceFiles(CompilerConfiguration config) {
+        File filteredResourceDir = this.findResourceDir(config);
+        List<File> resourceFiles = new ArrayList<>();
+        for (String name : scanResourceDir(filteredResourceDir)) {
+            resourceFiles.add(new File(filteredResourceDir, name));
+        }
+        return resourceFiles;
+    }
+
+    private static String[] scanResourceDir(File filteredResourceDir) {
+        if ((filteredResourceDir == null) || !filteredResourceDir.exists()) {
+            return new String[0];
         }
+        DirectoryScanner scanner = new DirectoryScanner();
+        scanner.setBasedir(filteredResourceDir);
+        scanner.setIncludes(DEFAULT_INCLUDES);
+        scanner.addDefaultExcludes();
+        scanner.scan();
+        return scanner.getIncludedFiles();
     }
 
     private File findResourceDir(CompilerConfiguration config) {
@@ -558,8 +797,9 @@ public class CSharpCompiler extends AbstractCompiler {
     }
 
     @SuppressWarnings("deprecation")
-    private List<CompilerMessage> compileOutOfProcess(
-            File workingDirectory, File target, String executable, String[] args) throws CompilerException {
+    private CompilerResult compileOutOfProcess(
+            CompilerConfiguration config, String executable, String[] commandLineArgs, String[] args)
+            throws CompilerException {
         // ----------------------------------------------------------------------
         // Build the @arguments file
         // ----------------------------------------------------------------------
@@ -569,7 +809,7 @@ public class CSharpCompiler extends AbstractCompiler {
         PrintWriter output = null;
 
         try {
-            file = new File(target, ARGUMENTS_FILE_NAME);
+            file = new File(config.getBuildDirectory(), ARGUMENTS_FILE_NAME);
 
             output = new PrintWriter(new FileWriter(file));
 
@@ -588,38 +828,68 @@ public class CSharpCompiler extends AbstractCompiler {
 
         Commandline cli = new Commandline();
 
-        cli.setWorkingDirectory(workingDirectory.getAbsolutePath());
+        cli.setWorkingDirectory(config.getWorkingDirectory().getAbsolutePath());
 
         cli.setExecutable(executable);
 
+        for (String arg : commandLineArgs) {
+            cli.createArgument().setValue(arg);
+        }
+
         cli.createArgument().setValue("@" + file.getAbsolutePath());
 
-        Writer stringWriter = new StringWriter();
+        int returnCode;
 
-        StreamConsumer out = new WriterStreamConsumer(stringWriter);
+        List<CompilerMessage> messages;
 
-        StreamConsumer err = new WriterStreamConsumer(stringWriter);
+        long discardedLines;
 
-        int returnCode;
+        // a single consumer, whose lines are never interleaved
+        try (OutputCapture out = new OutputCapture(config)) {
+            returnCode = ProcessRunner.execute(cli, out, out);
 
-        List<CompilerMessage> messages;
+            try (BufferedReader reader = out.newReader()) {
+                messages = parseCompilerOutput(reader);
+            }
 
-        try {
-            returnCode = CommandLineUtils.executeCommandLine(cli, out, err);
+            if (returnCode != 0 && messages.isEmpty()) {
+                // only the start of the output is quoted, which may be as large as the capture limit
+                StringBuilder text = new StringBuilder();
+                try (BufferedReader reader = out.newReader()) {
+                    int lines = 0;
+                    long omitted = 0;
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        if (lines < UNPARSED_ERROR_LINES) {
+                            text.append(line).append(EOL);
+                            lines++;
+                        } else {
+                            omitted++;
+                        }
+                    }
+                    if (omitted > 0) {
+                        text.append("... ")
+                                .append(omitted)
+                                .append(" more lines")
+                                .append(EOL);
+                    }
+                }
+                messages.add(new CompilerMessage(
+                        "Failure executing the compiler, but could not parse the error:" + EOL + text, true));
+            }
 
-            messages = parseCompilerOutput(new BufferedReader(new StringReader(stringWriter.toString())));
+            discardedLines = out.getDiscardedLines();
+            if (discardedLines > 0) {
+                messages.add(out.getTruncationMessage());
+            }
         } catch (CommandLineException | IOException e) {
             throw new CompilerException("Error while executing the external compiler.", e);
         }
 
-        if (returnCode != 0 && messages.isEmpty()) {
-            // TODO: exception?
-            messages.add(new CompilerMessage(
-                    "Failure executing the compiler, but could not parse the error:" + EOL + stringWriter.toString(),
-                    true));
-        }
-
-        return messages;
+        return new CompilerResult()
+                .success(returnCode == 0)
+                .compilerMessages(messages)
+                .discardedOutputLines(discardedLines);
     }
 
     public static List<CompilerMessage> parseCompilerOutput(BufferedReader bufferedReader) throws IOException {
@@ -0,0 +1,132 @@
+package org.codehaus.plexus.compiler.csharp;
+
+/*
+ * Copyright 2026 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.TreeMap;
+
+/**
+ * Records what an assembly was built from: the compiler executable, the compiler arguments, in order, and the
+ * SHA-256 of the executable and of every source, resource and referenced assembly or jar. It is kept next to the assembly, as <code>&lt;assembly&gt;.inputs</code>,
+ * so that a build with the same inputs can be skipped.
+ */
+class InputManifest {
+    static final String SUFFIX = ".inputs";
+
+    private final File assembly;
+
+    private final File file;
+
+    private final String content;
+
+    private InputManifest(File assembly, String content) {
+        this.assembly = assembly;
+        this.file = new File(assembly.getPath() + SUFFIX);
+        this.content = content;
+    }
+
+    /**
+     * @param assembly the assembly built from the inputs
+     * @param executable the compiler, whose content is an input too when it is a file rather than a command
+     * @param args the compiler arguments, which include the paths of the inputs
+     * @param inputs the files whose content the assembly depends on
+     * @return the manifest of the inputs
+     */
+    static InputManifest create(File assembly, String executable, String[] args, Collection<File> inputs)
+            throws IOException {
+        StringBuilder content = new StringBuilder();
+        content.append("executable ").append(executable).append('\n');
+        for (String arg : args) {
+            content.append("arg ").append(arg).append('\n');
+        }
+
+        // sorted, so that the manifest does not depend on the order the files were found in
+        TreeMap<String, File> files = new TreeMap<>();
+        for (File input : inputs) {
+            files.put(input.getAbsolutePath(), input);
+        }
+        File executableFile = new File(executable);
+        if (executableFile.isFile()) {
+            files.put(executableFile.getAbsolutePath(), executableFile);
+        }
+        byte[] buffer = new byte[8192];
+        for (File input : files.values()) {
+            content.append("file ")
+                    .append(input.getAbsolutePath())
+                    .append(' ')
+                    .append(sha256(input, buffer))
+                    .append('\n');
+        }
+
+        return new InputManifest(assembly, content.toString());
+    }
+
+    File getAssembly() {
+        return assembly;
+    }
+
+    /**
+     * @return whether the assembly exists and was built from these very inputs
+     */
+    boolean isUpToDate() {
+        if (!assembly.isFile() || !file.isFile()) {
+            return false;
+        }
+        try {
+            return content.equals(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    void save() throws IOException {
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Removes a previous manifest before compiling, so that a failed compilation is never taken as up to date.
+     */
+    void delete() throws IOException {
+        Files.deleteIfExists(file.toPath());
+    }
+
+    private static String sha256(File file, byte[] buffer) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        StringBuilder hex = new StringBuilder(64);
+        for (byte b : digest.digest()) {
+            hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return hex.toString();
+    }
+}
@@ -0,0 +1,280 @@
+package org.codehaus.plexus.compiler.csharp;
+
+/*
+ * Copyright 2026 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * A directory of extracted jars shared between modules and builds, keyed by the SHA-256 of each jar, so that the
+ * same jar is only extracted once wherever it is referenced from.
+ * <p>
+ * A jar is extracted into a staging directory which is then renamed to its key: an entry is either complete or
+ * absent, and concurrent builds extracting the same jar just keep the first entry published. Every use of an entry
+ * updates its modification time.
+ * <p>
+ * An instance serves a single compilation. From its first extraction until it is closed, it holds a shared lock on a
+ * file of the cache, so that no build evicts the entries the compilation hands to the compiler. Once closed, the least
+ * recently used entries are evicted until the cache fits in its maximum size, under an exclusive lock, if no other
+ * build of any JVM is using the cache at that time; the entries of the compilation are always kept.
+ */
+class JarExtractionCache implements Closeable {
+    /** Default maximum size of the extracted jars, in bytes. */
+    static final long DEFAULT_MAX_SIZE = 2048L * 1024 * 1024;
+
+    /** The file locked by the builds using the cache, shared while they extract and use entries, exclusive to evict. */
+    static final String LOCK_FILE = ".lock";
+
+    private static final Pattern ENTRY_NAME = Pattern.compile("[0-9a-f]{64}");
+
+    /** Digests are mapped in chunks, as a single mapping is limited to 2 GB. */
+    private static final long DIGEST_CHUNK_SIZE = 64L * 1024 * 1024;
+
+    /** Cache of jar digests per path, size and modification time, so unchanged jars are only hashed once per JVM */
+    private static final Map<String, String> DIGEST_PER_JAR = new ConcurrentHashMap<>();
+
+    /** The shared lock of this JVM per lock file, as a JVM can only hold one lock on a file. */
+    private static final Map<Path, Lease> LEASES = new HashMap<>();
+
+    private final Path root;
+
+    private final long maxSize;
+
+    /** The entries of the compilation, never evicted by it. */
+    private final Set<Path> used = new HashSet<>();
+
+    private Path leased;
+
+    JarExtractionCache(Path root, long maxSize) {
+        this.root = root;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @param jar the jar to extract
+     * @return the directory the jar is extracted in, which must not be modified, and is kept until this cache is
+     *         closed
+     */
+    Path extract(File jar) throws IOException {
+        Path entry = root.resolve(digest(jar));
+        lease();
+        used.add(entry);
+        if (Files.isDirectory(entry)) {
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+            return entry;
+        }
+
+        Path staging = Files.createTempDirectory(root, entry.getFileName() + ".tmp");
+        try {
+            JarUtil.extract(staging, jar);
+            Files.move(staging, entry, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // renaming onto an existing entry fails with a plain FileSystemException on some platforms
+            if (!Files.isDirectory(entry)) {
+                throw e;
+            }
+            // published by a concurrent build in the meantime
+        } finally {
+            if (Files.exists(staging)) {
+                delete(staging);
+            }
+        }
+        Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+        return entry;
+    }
+
+    /**
+     * Ends the use of the entries of the compilation, evicting the least recently used entries if no other build is
+     * using the cache.
+     */
+    @Override
+    public void close() throws IOException {
+        if (leased == null) {
+            return;
+        }
+        Path lockFile = leased;
+        leased = null;
+        synchronized (LEASES) {
+            Lease lease = LEASES.get(lockFile);
+            if (--lease.holders > 0) {
+                // the last compilation of the JVM using the cache evicts
+                return;
+            }
+            LEASES.remove(lockFile);
+            try (FileChannel channel = lease.channel) {
+                lease.lock.release();
+                FileLock exclusive = channel.tryLock();
+                if (exclusive != null) {
+                    try {
+                        evict();
+                    } finally {
+                        exclusive.release();
+                    }
+                }
+            }
+        }
+    }
+
+    private void lease() throws IOException {
+        if (leased != null) {
+            return;
+        }
+        Files.createDirectories(root);
+        Path lockFile = root.resolve(LOCK_FILE).toAbsolutePath().normalize();
+        synchronized (LEASES) {
+            Lease lease = LEASES.get(lockFile);
+            if (lease == null) {
+                FileChannel channel = FileChannel.open(
+                        lockFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                try {
+                    // waits for the eviction of another JVM to be over
+                    lease = new Lease(channel, channel.lock(0, Long.MAX_VALUE, true));
+                } catch (IOException | RuntimeException e) {
+                    channel.close();
+                    throw e;
+                }
+                LEASES.put(lockFile, lease);
+            }
+            lease.holders++;
+        }
+        leased = lockFile;
+    }
+
+    /**
+     * Removes the least recently used entries until the cache fits in its maximum size, always keeping those of the
+     * compilation.
+     */
+    private void evict() throws IOException {
+        List<Path> entries;
+        try (Stream<Path> list = Files.list(root)) {
+            entries = list.filter(path ->
+                            ENTRY_NAME.matcher(path.getFileName().toString()).matches())
+                    .collect(Collectors.toList());
+        }
+
+        Map<Path, FileTime> lastUses = new HashMap<>();
+        Map<Path, Long> sizes = new HashMap<>();
+        long size = 0;
+        for (Path entry : entries) {
+            lastUses.put(entry, Files.getLastModifiedTime(entry));
+            sizes.put(entry, size(entry));
+            size += sizes.get(entry);
+        }
+
+        List<Path> leastRecentlyUsed = new ArrayList<>(entries);
+        leastRecentlyUsed.sort(Comparator.comparing(lastUses::get));
+        for (Path entry : leastRecentlyUsed) {
+            if (size <= maxSize) {
+                break;
+            }
+            if (used.contains(entry)) {
+                continue;
+            }
+            // unpublished by a rename first, so that no entry is ever seen partially deleted
+            Path evicted = Files.createTempDirectory(root, entry.getFileName() + ".evicted");
+            Files.move(entry, evicted, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            delete(evicted);
+            size -= sizes.get(entry);
+        }
+    }
+
+    private static long size(Path directory) throws IOException {
+        try (Stream<Path> walk = Files.walk(directory)) {
+            long size = 0;
+            for (Path path : (Iterable<Path>) walk::iterator) {
+                if (Files.isRegularFile(path)) {
+                    size += Files.size(path);
+                }
+            }
+            return size;
+        }
+    }
+
+    private static void delete(Path directory) throws IOException {
+        try (Stream<Path> walk = Files.walk(directory)) {
+            for (Path path : walk.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    static String digest(File jar) throws IOException {
+        String key = jar.getAbsolutePath() + '|' + jar.length() + '|' + jar.lastModified();
+        String digest = DIGEST_PER_JAR.get(key);
+        if (digest == null) {
+            digest = sha256(jar.toPath());
+            DIGEST_PER_JAR.put(key, digest);
+        }
+        return digest;
+    }
+
+    private static String sha256(Path file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            for (long position = 0; position < size; position += DIGEST_CHUNK_SIZE) {
+                MappedByteBuffer chunk = channel.map(
+                        FileChannel.MapMode.READ_ONLY, position, Math.min(DIGEST_CHUNK_SIZE, size - position));
+                digest.update(chunk);
+            }
+        }
+        StringBuilder hex = new StringBuilder(64);
+        for (byte b : digest.digest()) {
+            hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return hex.toString();
+    }
+
+    private static final class Lease {
+        private final FileChannel channel;
+
+        private final FileLock lock;
+
+        private int holders;
+
+        Lease(FileChannel channel, FileLock lock) {
+            this.channel = channel;
+            this.lock = lock;
+        }
+    }
+}
@@ -3,9 +3,9 @@ package org.codehaus.plexus.compiler.csharp;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.Enumeration;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
@@ -29,11 +29,8 @@ public class JarUtil {
                 if (parent != null) {
                     Files.createDirectories(parent);
                 }
-                try (InputStream is = jar.getInputStream(file);
-                        OutputStream fos = Files.newOutputStream(f)) {
-                    while (is.available() > 0) {
-                        fos.write(is.read());
-                    }
+                try (InputStream is = jar.getInputStream(file)) {
+                    Files.copy(is, f, StandardCopyOption.REPLACE_EXISTING);
                 }
             }
         }
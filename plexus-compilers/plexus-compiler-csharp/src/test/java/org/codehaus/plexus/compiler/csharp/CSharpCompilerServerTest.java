@@ -0,0 +1,170 @@
+package org.codehaus.plexus.compiler.csharp;
+
+/*
+ * Copyright 2026 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.codehaus.plexus.compiler.CompilerConfiguration;
+import org.codehaus.plexus.compiler.CompilerResult;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests forked compilations, shared compilation in particular, against shell scripts standing in for Roslyn's <code>csc</code> and Mono's
+ * <code>mcs</code>: each invocation appends its command line arguments to a log, one per line, and the lines of its
+ * arguments file prefixed with <code>@ </code>.
+ */
+@DisabledOnOs(OS.WINDOWS)
+public class CSharpCompilerServerTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testRoslynUsesCompilerServer() throws Exception {
+        String csc = createCompiler("csc", "echo '4.11.0-3.24460.3 (5649376e)'", "");
+        CompilerConfiguration config = createConfiguration(csc);
+        config.addCompilerCustomArgument("-shared", "true");
+        config.addCompilerCustomArgument("-keepalive", "60");
+
+        CompilerResult result = new CSharpCompiler().performCompile(config);
+
+        assertTrue(result.getCompilerMessages().isEmpty(), result.getCompilerMessages()::toString);
+        List<String> log = readLog();
+        assertEquals("-version", log.get(0));
+        // on the command line ahead of the arguments file, as the compiler ignores them inside it
+        assertEquals("/shared", log.get(1));
+        assertEquals("/keepalive:60", log.get(2));
+        assertTrue(log.get(3).startsWith("@"), log::toString);
+        assertFalse(log.contains("@ /shared"));
+    }
+
+    @Test
+    public void testCompilerServerNotUsedUnlessRequested() throws Exception {
+        String csc = createCompiler("csc-not-shared", "echo '4.11.0-3.24460.3 (5649376e)'", "");
+
+        new CSharpCompiler().performCompile(createConfiguration(csc));
+
+        List<String> log = readLog();
+        assertFalse(log.contains("-version"));
+        assertFalse(log.contains("/shared"));
+    }
+
+    @Test
+    public void testMonoHasNoCompilerServer() throws Exception {
+        String mcs = createCompiler(
+                "mcs", "echo \"error CS2007: Unrecognized command-line option: \\`-version'\"; exit 1", "");
+        CompilerConfiguration config = createConfiguration(mcs);
+        config.addCompilerCustomArgument("-shared", "true");
+
+        new CSharpCompiler().performCompile(config);
+
+        List<String> log = readLog();
+        assertEquals("-version", log.get(0));
+        assertFalse(log.contains("/shared"));
+    }
+
+    @Test
+    public void testFallsBackWhenCompilerServerIsRejected() throws Exception {
+        String csc = createCompiler(
+                "csc-old",
+                "echo '4.11.0-3.24460.3 (5649376e)'",
+                "if [ \"$1\" = /shared ]; then echo \"error CS2007: Unrecognized option: '/shared'\"; exit 1; fi");
+        CompilerConfiguration config = createConfiguration(csc);
+        config.addCompilerCustomArgument("-shared", "true");
+
+        CompilerResult result = new CSharpCompiler().performCompile(config);
+
+        assertTrue(result.getCompilerMessages().isEmpty(), result.getCompilerMessages()::toString);
+        List<String> log = readLog();
+        assertEquals("/shared", log.get(1));
+        assertEquals(2, log.stream().filter(line -> line.startsWith("@ /out:")).count());
+        assertEquals(1, log.stream().filter("/shared"::equals).count());
+
+        // the rejection is remembered for the executable
+        new CSharpCompiler().performCompile(config);
+        assertEquals(1, readLog().stream().filter("/shared"::equals).count());
+    }
+
+    @Test
+    public void testUnparsedFailureOnlyQuotesTheStartOfTheOutput() throws Exception {
+        String csc = createCompiler(
+                "csc-crash",
+                "echo '4.11.0-3.24460.3 (5649376e)'",
+                "i=0; while [ $i -lt 1000 ]; do echo \"crash $i\"; i=$((i+1)); done; exit 1");
+
+        CompilerResult result = new CSharpCompiler().performCompile(createConfiguration(csc));
+
+        assertEquals(1, result.getCompilerMessages().size(), result.getCompilerMessages()::toString);
+        String message = result.getCompilerMessages().get(0).getMessage();
+        assertTrue(message.contains("crash 99"), message);
+        assertFalse(message.contains("crash 100"), message);
+        assertTrue(message.contains("900 more lines"), message);
+    }
+
+    private String createCompiler(String name, String version, String compile) throws IOException {
+        Path script = tempDir.resolve(name);
+        String log = tempDir.resolve("compiler.log").toString();
+        Files.write(
+                script,
+                ("#!/bin/sh\n"
+                                + "if [ \"$1\" = \"-version\" ]; then printf '%s\\n' -version >> '" + log + "'; "
+                                + version
+                                + "; exit 0; fi\n"
+                                + "for ARG in \"$@\"; do case \"$ARG\" in\n"
+                                + "@*) sed 's/^/@ /' \"${ARG#@}\" >> '" + log + "' ;;\n"
+                                + "*) printf '%s\\n' \"$ARG\" >> '" + log + "' ;;\n"
+                                + "esac; done\n"
+                                + compile + "\n"
+                                + "exit 0\n")
+                        .getBytes(StandardCharsets.UTF_8));
+        assertTrue(script.toFile().setExecutable(true));
+        return script.toString();
+    }
+
+    private List<String> readLog() throws IOException {
+        return Files.readAllLines(tempDir.resolve("compiler.log"), StandardCharsets.UTF_8);
+    }
+
+    private CompilerConfiguration createConfiguration(String executable) throws IOException {
+        Path sources = tempDir.resolve("src");
+        Files.createDirectories(sources);
+        Files.write(sources.resolve("Hello.cs"), "class Hello {}".getBytes(StandardCharsets.UTF_8));
+
+        File buildDirectory = tempDir.resolve("target").toFile();
+        buildDirectory.mkdirs();
+
+        CompilerConfiguration config = new CompilerConfiguration();
+        config.setFork(true);
+        config.setExecutable(executable);
+        config.addSourceLocation(sources.toString());
+        config.setOutputLocation(tempDir.resolve("target/out").toString());
+        config.setOutputFileName("hello");
+        config.setBuildDirectory(buildDirectory);
+        config.setWorkingDirectory(tempDir.toFile());
+        return config;
+    }
+}
@@ -0,0 +1,181 @@
+package org.codehaus.plexus.compiler.csharp;
+
+/*
+ * Copyright 2026 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.codehaus.plexus.compiler.CompilerConfiguration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests that unchanged builds are skipped, with a shell script standing in for the compiler: it creates the
+ * assembly named by <code>/out:</code> and counts its invocations, then fails if a <code>fail</code> file exists, and
+ * writes a hundred warnings if a <code>chatty</code> file exists.
+ */
+@DisabledOnOs(OS.WINDOWS)
+public class CSharpIncrementalBuildTest {
+    @TempDir
+    Path tempDir;
+
+    private CompilerConfiguration config;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        Path script = tempDir.resolve("csc");
+        Files.write(
+                script,
+                ("#!/bin/sh\n"
+                                + "echo run >> '" + tempDir.resolve("runs.log") + "'\n"
+                                + "OUT=$(sed -n 's|^/out:||p' \"${1#@}\")\n"
+                                + "echo assembly > \"$OUT\"\n"
+                                + "if [ -f '" + tempDir.resolve("fail") + "' ]; then echo failed; exit 1; fi\n"
+                                + "if [ -f '" + tempDir.resolve("chatty") + "' ]; then\n"
+                                + "  for i in 1 2 3 4 5 6 7 8 9 10; do for j in 1 2 3 4 5 6 7 8 9 10; do\n"
+                                + "    echo \"Hello.cs(1,1): warning CS0168: warning $i$j\"\n"
+                                + "  done; done\n"
+                                + "fi\n")
+                        .getBytes(StandardCharsets.UTF_8));
+        assertTrue(script.toFile().setExecutable(true));
+
+        Files.createDirectories(tempDir.resolve("src"));
+        write("src/Hello.cs", "class Hello {}");
+        Files.createDirectories(tempDir.resolve("resources"));
+        write("resources/strings.txt", "hello");
+        write("lib.dll", "library");
+
+        File buildDirectory = tempDir.resolve("target").toFile();
+        buildDirectory.mkdirs();
+
+        config = new CompilerConfiguration();
+        config.setFork(true);
+        config.setExecutable(script.toString());
+        config.addSourceLocation(tempDir.resolve("src").toString());
+        config.setOutputLocation(tempDir.resolve("target/out").toString());
+        config.setOutputFileName("hello");
+        config.setBuildDirectory(buildDirectory);
+        config.setWorkingDirectory(tempDir.toFile());
+        config.addClasspathEntry(tempDir.resolve("lib.dll").toString());
+        config.addCompilerCustomArgument(
+                "-resourceDir", tempDir.resolve("resources").toString());
+    }
+
+    @Test
+    public void testUnchangedBuildIsSkipped() throws Exception {
+        config.addCompilerCustomArgument("-incremental", "true");
+
+        compile();
+        assertEquals(1, runs());
+        assertTrue(Files.isRegularFile(tempDir.resolve("target/out/hello.dll" + InputManifest.SUFFIX)));
+
+        compile();
+        assertEquals(1, runs());
+    }
+
+    @Test
+    public void testChangedInputsAreRebuilt() throws Exception {
+        config.addCompilerCustomArgument("-incremental", "true");
+
+        compile();
+
+        write("src/Hello.cs", "class Hello { int i; }");
+        compile();
+        assertEquals(2, runs());
+
+        write("resources/strings.txt", "bonjour");
+        compile();
+        assertEquals(3, runs());
+
+        write("lib.dll", "library v2");
+        compile();
+        assertEquals(4, runs());
+
+        config.addCompilerCustomArgument("-debug", "full");
+        compile();
+        assertEquals(5, runs());
+
+        Files.delete(tempDir.resolve("target/out/hello.dll"));
+        compile();
+        assertEquals(6, runs());
+
+        Path otherCompiler = tempDir.resolve("csc-other");
+        Files.copy(tempDir.resolve("csc"), otherCompiler);
+        assertTrue(otherCompiler.toFile().setExecutable(true));
+        config.setExecutable(otherCompiler.toString());
+        compile();
+        assertEquals(7, runs());
+
+        // a compiler upgraded in place
+        Files.write(otherCompiler, "\n# upgraded".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        compile();
+        assertEquals(8, runs());
+    }
+
+    @Test
+    public void testFailedBuildIsNotSkipped() throws Exception {
+        config.addCompilerCustomArgument("-incremental", "true");
+        write("fail", "");
+
+        compile();
+        Files.delete(tempDir.resolve("fail"));
+        compile();
+        assertEquals(2, runs());
+
+        compile();
+        assertEquals(2, runs());
+    }
+
+    @Test
+    public void testBuildWithTruncatedOutputIsNotSkipped() throws Exception {
+        config.addCompilerCustomArgument("-incremental", "true");
+        config.setOutputLimit(1000);
+        write("chatty", "");
+
+        compile();
+        compile();
+        assertEquals(2, runs());
+    }
+
+    @Test
+    public void testNotIncrementalByDefault() throws Exception {
+        compile();
+        compile();
+        assertEquals(2, runs());
+    }
+
+    private void compile() throws Exception {
+        new CSharpCompiler().performCompile(config);
+    }
+
+    private long runs() throws IOException {
+        return Files.readAllLines(tempDir.resolve("runs.log")).size();
+    }
+
+    private void write(String path, String content) throws IOException {
+        Files.write(tempDir.resolve(path), content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,200 @@
+package org.codehaus.plexus.compiler.csharp;
+
+/*
+ * Copyright 2026 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class JarExtractionCacheTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testSameContentIsExtractedOnce() throws Exception {
+        File first = createJar("module-a/lib.jar", "Lib.dll", "assembly");
+        File second = createJar("module-b/lib.jar", "Lib.dll", "assembly");
+        File other = createJar("module-c/other.jar", "Other.dll", "other assembly");
+        Path root = tempDir.resolve("cache");
+
+        try (JarExtractionCache cache = new JarExtractionCache(root, JarExtractionCache.DEFAULT_MAX_SIZE)) {
+            Path extracted = cache.extract(first);
+            assertEquals(
+                    "assembly", new String(Files.readAllBytes(extracted.resolve("Lib.dll")), StandardCharsets.UTF_8));
+            assertEquals(extracted, cache.extract(second));
+            assertNotEquals(extracted, cache.extract(other));
+        }
+
+        // staging directories never outlive the extraction
+        assertEquals(2, countEntries(root));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEntriesAreEvicted() throws Exception {
+        File first = createJar("first.jar", "First.dll", "0123456789");
+        File second = createJar("second.jar", "Second.dll", "0123456789");
+        File third = createJar("third.jar", "Third.dll", "0123456789");
+        Path root = tempDir.resolve("cache");
+
+        Path firstEntry = extract(root, 25, first);
+        Files.setLastModifiedTime(firstEntry, FileTime.fromMillis(1000));
+        Path secondEntry = extract(root, 25, second);
+        Files.setLastModifiedTime(secondEntry, FileTime.fromMillis(2000));
+
+        // using the first jar again makes the second one the least recently used
+        extract(root, 25, first);
+        Path thirdEntry = extract(root, 25, third);
+
+        assertTrue(Files.isDirectory(firstEntry));
+        assertFalse(Files.exists(secondEntry));
+        assertTrue(Files.isDirectory(thirdEntry));
+    }
+
+    @Test
+    public void testEntriesOfTheCompilationAreNeverEvicted() throws Exception {
+        File old = createJar("old.jar", "Old.dll", "0123456789");
+        Path root = tempDir.resolve("cache");
+        Path oldEntry = extract(root, 25, old);
+        Files.setLastModifiedTime(oldEntry, FileTime.fromMillis(1000));
+
+        // the jars of the compilation alone go beyond the maximum size
+        List<Path> entries = new ArrayList<>();
+        try (JarExtractionCache cache = new JarExtractionCache(root, 25)) {
+            for (int i = 0; i < 3; i++) {
+                entries.add(cache.extract(createJar("lib-" + i + ".jar", "Lib" + i + ".dll", "0123456789")));
+            }
+            for (Path entry : entries) {
+                assertTrue(Files.isDirectory(entry));
+            }
+        }
+
+        assertFalse(Files.exists(oldEntry));
+        for (Path entry : entries) {
+            assertTrue(Files.isDirectory(entry));
+        }
+    }
+
+    @Test
+    public void testEntriesAreNotEvictedWhileAnotherBuildUsesTheCache() throws Exception {
+        File first = createJar("first.jar", "First.dll", "0123456789");
+        File second = createJar("second.jar", "Second.dll", "0123456789");
+        File third = createJar("third.jar", "Third.dll", "0123456789");
+        Path root = tempDir.resolve("cache");
+
+        Path firstEntry;
+        Path secondEntry;
+        Path thirdEntry;
+        try (JarExtractionCache running = new JarExtractionCache(root, 25)) {
+            firstEntry = running.extract(first);
+            Files.setLastModifiedTime(firstEntry, FileTime.fromMillis(1000));
+
+            secondEntry = extract(root, 25, second);
+            Files.setLastModifiedTime(secondEntry, FileTime.fromMillis(2000));
+            thirdEntry = extract(root, 25, third);
+
+            // over the maximum size, but the entry of the running build is in use
+            assertTrue(Files.isDirectory(firstEntry));
+            assertTrue(Files.isDirectory(secondEntry));
+            assertTrue(Files.isDirectory(thirdEntry));
+        }
+
+        // the last build using the cache evicts, keeping its own entries
+        assertTrue(Files.isDirectory(firstEntry));
+        assertFalse(Files.exists(secondEntry));
+        assertTrue(Files.isDirectory(thirdEntry));
+    }
+
+    @Test
+    public void testConcurrentPublishersShareOneEntry() throws Exception {
+        int publishers = 8;
+        List<File> jars = new ArrayList<>();
+        for (int i = 0; i < publishers; i++) {
+            jars.add(createJar("module-" + i + "/lib.jar", "Lib.dll", "assembly"));
+        }
+        Path root = tempDir.resolve("cache");
+        CyclicBarrier start = new CyclicBarrier(publishers);
+        ExecutorService executor = Executors.newFixedThreadPool(publishers);
+        try {
+            List<Future<Path>> entries = new ArrayList<>();
+            for (File jar : jars) {
+                entries.add(executor.submit(() -> {
+                    start.await();
+                    return extract(root, JarExtractionCache.DEFAULT_MAX_SIZE, jar);
+                }));
+            }
+
+            Path entry = entries.get(0).get();
+            for (Future<Path> other : entries) {
+                assertEquals(entry, other.get());
+            }
+            assertEquals("assembly", new String(Files.readAllBytes(entry.resolve("Lib.dll")), StandardCharsets.UTF_8));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // the staging directories of the publishers which lost the race are deleted
+        assertEquals(1, countEntries(root));
+    }
+
+    /**
+     * Extracts a jar in a compilation of its own.
+     */
+    private static Path extract(Path root, long maxSize, File jar) throws IOException {
+        try (JarExtractionCache cache = new JarExtractionCache(root, maxSize)) {
+            return cache.extract(jar);
+        }
+    }
+
+    private static long countEntries(Path root) throws IOException {
+        try (Stream<Path> entries = Files.list(root)) {
+            return entries.filter(entry -> !entry.getFileName().toString().equals(JarExtractionCache.LOCK_FILE))
+                    .count();
+        }
+    }
+
+    private File createJar(String path, String entryName, String content) throws IOException {
+        Path jar = tempDir.resolve(path);
+        Files.createDirectories(jar.getParent());
+        try (OutputStream out = Files.newOutputStream(jar);
+                JarOutputStream jarOut = new JarOutputStream(out)) {
+            jarOut.putNextEntry(new JarEntry(entryName));
+            jarOut.write(content.getBytes(StandardCharsets.UTF_8));
+            jarOut.closeEntry();
+        }
+        return jar.toFile();
+    }
+}
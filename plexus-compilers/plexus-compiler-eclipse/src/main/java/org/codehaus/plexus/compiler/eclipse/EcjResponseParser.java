@@ -104,7 +104,8 @@ public class EcjResponseParser {
     private void decodeProblem(
             List<CompilerMessage> list, String sourcePath, XMLStreamReader xsr, boolean errorsAsWarnings)
             throws Exception {
-        String id = xsr.getAttributeValue(null, "optionKey"); // Key for the problem
+        String optionKey = xsr.getAttributeValue(null, "optionKey"); // Key for the problem
+        String problemId = xsr.getAttributeValue(null, "problemID");
         int startline = getInt(xsr, "line");
         int column = getInt(xsr, "charStart");
         int endCol = getInt(xsr, "charEnd");
@@ -137,6 +138,12 @@ public class EcjResponseParser {
         }
 
         CompilerMessage cm = new CompilerMessage(sourcePath, msgtype, startline, column, startline, endCol, message);
+        // the same code as the JSR-199 diagnostics of ecj
+        cm.code(problemId).category(optionKey);
+        if (column >= 0 && endCol >= column) {
+            // ecj's end is the offset of the last character
+            cm.offsets(column, endCol + 1);
+        }
         list.add(cm);
     }
 
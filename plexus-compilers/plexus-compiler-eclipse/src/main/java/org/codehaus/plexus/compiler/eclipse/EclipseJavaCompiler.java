@@ -28,6 +28,7 @@ import javax.inject.Singleton;
 import javax.tools.Diagnostic;
 import javax.tools.DiagnosticListener;
 import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
 import javax.tools.JavaFileObject;
 import javax.tools.StandardJavaFileManager;
 
@@ -42,15 +43,20 @@ import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.codehaus.plexus.compiler.AbstractCompiler;
 import org.codehaus.plexus.compiler.CompilerConfiguration;
 import org.codehaus.plexus.compiler.CompilerException;
 import org.codehaus.plexus.compiler.CompilerMessage;
+import org.codehaus.plexus.compiler.CompilerMessageCollector;
 import org.codehaus.plexus.compiler.CompilerOutputStyle;
 import org.codehaus.plexus.compiler.CompilerResult;
+import org.codehaus.plexus.compiler.util.OutputManifest;
 import org.codehaus.plexus.util.StringUtils;
 import org.eclipse.jdt.core.compiler.CompilationProgress;
 import org.eclipse.jdt.core.compiler.batch.BatchCompiler;
@@ -68,7 +74,6 @@ public class EclipseJavaCompiler extends AbstractCompiler {
     // ----------------------------------------------------------------------
     // Compiler Implementation
     // ----------------------------------------------------------------------
-    boolean errorsAsWarnings = false;
 
     @Override
     public String getCompilerId() {
@@ -141,7 +146,7 @@ public class EclipseJavaCompiler extends AbstractCompiler {
 
         // Set Eclipse-specific options
         // compiler-specific extra options override anything else in the config object...
-        this.errorsAsWarnings = processCustomArguments(config, args);
+        final boolean errorsAsWarnings = processCustomArguments(config, args);
 
         // Output path
         args.add("-d");
@@ -253,35 +258,10 @@ public class EclipseJavaCompiler extends AbstractCompiler {
                     }
                 }
                 final Locale defaultLocale = Locale.getDefault();
-                final List<CompilerMessage> messages = messageList;
-                DiagnosticListener<? super JavaFileObject> messageCollector = new DiagnosticListener<JavaFileObject>() {
-
-                    @Override
-                    public void report(Diagnostic<? extends JavaFileObject> diagnostic) {
-                        // Convert to Plexus' CompilerMessage and append to messageList
-                        String fileName = "Unknown source";
-                        try {
-                            JavaFileObject file = diagnostic.getSource();
-                            if (file != null) {
-                                fileName = file.getName();
-                            }
-                        } catch (NullPointerException e) {
-                            // ECJ bug: diagnostic.getSource() may throw an NPE if there is no source
-                        }
-                        long startColumn = diagnostic.getColumnNumber();
-                        // endColumn may be wrong if the endPosition is not on the same line.
-                        long endColumn = startColumn + (diagnostic.getEndPosition() - diagnostic.getStartPosition());
-                        CompilerMessage message = new CompilerMessage(
-                                fileName,
-                                convert(diagnostic.getKind()),
-                                (int) diagnostic.getLineNumber(),
-                                (int) startColumn,
-                                (int) diagnostic.getLineNumber(),
-                                (int) endColumn,
-                                diagnostic.getMessage(defaultLocale));
-                        messages.add(message);
-                    }
-                };
+                // diagnostics are turned into messages as they are reported, and only if they are to be kept
+                final CompilerMessageCollector messages = new CompilerMessageCollector(config);
+                DiagnosticListener<JavaFileObject> messageCollector =
+                        new DiagnosticConverter(messages, errorsAsWarnings, defaultLocale);
                 Charset charset = null;
                 if (encoding != null) {
                     encoding = encoding.trim();
@@ -301,15 +281,23 @@ public class EclipseJavaCompiler extends AbstractCompiler {
                     getLog().debug("ecj input source files: " + allSources);
                 }
 
+                // the outputs of each source, if they are to be recorded in the manifest
+                Map<File, Set<File>> outputs = config.getOutputManifest() == null ? null : new ConcurrentHashMap<>();
                 try (StandardJavaFileManager manager =
                         compiler.getStandardFileManager(messageCollector, defaultLocale, charset)) {
                     Iterable<? extends JavaFileObject> units = manager.getJavaFileObjectsFromStrings(allSources);
-                    success =
-                            Boolean.TRUE.equals(compiler.getTask(devNull, manager, messageCollector, args, null, units)
+                    JavaFileManager taskManager =
+                            outputs == null ? manager : OutputManifest.recordOutputs(manager, outputs);
+                    success = Boolean.TRUE.equals(
+                            compiler.getTask(devNull, taskManager, messageCollector, args, null, units)
                                     .call());
                 } catch (RuntimeException e) {
                     throw new EcjFailureException(e.getLocalizedMessage());
                 }
+                if (outputs != null) {
+                    OutputManifest.update(config.getOutputManifest(), outputs, success);
+                }
+                messageList = messages.getMessages();
                 getLog().debug(sw.toString());
             } else {
                 // Use the BatchCompiler and send all errors to xml temp file.
@@ -348,7 +336,9 @@ public class EclipseJavaCompiler extends AbstractCompiler {
                     if (errorF.length() < 80) {
                         throw new EcjFailureException(sw.toString());
                     }
-                    messageList = new EcjResponseParser().parse(errorF, errorsAsWarnings);
+                    CompilerMessageCollector messages = new CompilerMessageCollector(config);
+                    messages.addAll(new EcjResponseParser().parse(errorF, errorsAsWarnings));
+                    messageList = messages.getMessages();
                 } finally {
                     if (null != errorF) {
                         try {
@@ -530,7 +520,7 @@ public class EclipseJavaCompiler extends AbstractCompiler {
         return null;
     }
 
-    private CompilerMessage.Kind convert(Diagnostic.Kind kind) {
+    private static CompilerMessage.Kind convert(Diagnostic.Kind kind, boolean errorsAsWarnings) {
         if (kind == null) {
             return CompilerMessage.Kind.OTHER;
         }
@@ -549,6 +539,62 @@ public class EclipseJavaCompiler extends AbstractCompiler {
         }
     }
 
+    /**
+     * Converts the diagnostics of one compilation to compiler messages. All the state of a compilation is held by its
+     * own instance, so that compilations can run at the same time on this compiler, a singleton shared by the modules
+     * of a parallel build.
+     */
+    private static final class DiagnosticConverter implements DiagnosticListener<JavaFileObject> {
+        private final CompilerMessageCollector messages;
+
+        private final boolean errorsAsWarnings;
+
+        private final Locale locale;
+
+        DiagnosticConverter(CompilerMessageCollector messages, boolean errorsAsWarnings, Locale locale) {
+            this.messages = messages;
+            this.errorsAsWarnings = errorsAsWarnings;
+            this.locale = locale;
+        }
+
+        @Override
+        public void report(Diagnostic<? extends JavaFileObject> diagnostic) {
+            // Convert to Plexus' CompilerMessage and append to messageList
+            String fileName = "Unknown source";
+            try {
+                JavaFileObject file = diagnostic.getSource();
+                if (file != null) {
+                    fileName = file.getName();
+                }
+            } catch (NullPointerException e) {
+                // ECJ bug: diagnostic.getSource() may throw an NPE if there is no source
+            }
+            CompilerMessage.Kind kind = convert(diagnostic.getKind(), errorsAsWarnings);
+            String text = diagnostic.getMessage(locale);
+            if (!messages.accepts(kind, diagnostic.getCode(), null, fileName, text)) {
+                return;
+            }
+            long startColumn = diagnostic.getColumnNumber();
+            // endColumn may be wrong if the endPosition is not on the same line.
+            long endColumn = startColumn + (diagnostic.getEndPosition() - diagnostic.getStartPosition());
+            CompilerMessage message = new CompilerMessage(
+                    fileName,
+                    kind,
+                    (int) diagnostic.getLineNumber(),
+                    (int) startColumn,
+                    (int) diagnostic.getLineNumber(),
+                    (int) endColumn,
+                    text);
+            message.code(diagnostic.getCode());
+            if (diagnostic.getStartPosition() != Diagnostic.NOPOS
+                    && diagnostic.getEndPosition() >= diagnostic.getStartPosition()) {
+                // ecj's end is the offset of the last character
+                message.offsets((int) diagnostic.getStartPosition(), (int) diagnostic.getEndPosition() + 1);
+            }
+            messages.add(message);
+        }
+    }
+
     private String getLastLines(String text, int lines) {
         List<String> lineList = new ArrayList<>();
         text = text.replace("\r\n", "\n");
@@ -0,0 +1,61 @@
+package org.codehaus.plexus.compiler.eclipse;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import org.codehaus.plexus.compiler.CompilerMessage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class EcjResponseParserTest {
+    @Test
+    void testProblemCodeCategoryAndOffsets(@TempDir Path tempDir) throws Exception {
+        Path log = tempDir.resolve("ecj.xml");
+        Files.write(
+                log,
+                Arrays.asList(
+                        "<?xml version=\"1.0\" encoding=\"UTF-8\"?>",
+                        "<compiler>",
+                        "<sources>",
+                        "<source path=\"" + tempDir.resolve("Foo.java") + "\">",
+                        "<problems problems=\"2\" errors=\"1\" warnings=\"1\" infos=\"0\">",
+                        "<problem categoryID=\"120\" charEnd=\"33\" charStart=\"15\" id=\"UnusedImport\" line=\"2\""
+                                + " optionKey=\"unusedImport\" problemID=\"268435844\" severity=\"WARNING\">",
+                        "<message value=\"The import java.util.List is never used\"/>",
+                        "</problem>",
+                        "<problem categoryID=\"40\" charEnd=\"70\" charStart=\"62\" id=\"UndefinedName\" line=\"5\""
+                                + " problemID=\"570425394\" severity=\"ERROR\">",
+                        "<message value=\"undefined cannot be resolved to a variable\"/>",
+                        "</problem>",
+                        "</problems>",
+                        "</source>",
+                        "</sources>",
+                        "</compiler>"),
+                StandardCharsets.UTF_8);
+
+        List<CompilerMessage> messages = new EcjResponseParser().parse(log.toFile(), false);
+
+        assertEquals(2, messages.size());
+        CompilerMessage warning = messages.get(0);
+        assertEquals(new File(tempDir.resolve("Foo.java").toString()).getCanonicalPath(), warning.getFile());
+        assertEquals(CompilerMessage.Kind.WARNING, warning.getKind());
+        assertEquals("268435844", warning.getCode());
+        assertEquals("unusedImport", warning.getCategory());
+        assertEquals(15, warning.getStartOffset());
+        assertEquals(34, warning.getEndOffset());
+
+        CompilerMessage error = messages.get(1);
+        assertEquals(CompilerMessage.Kind.ERROR, error.getKind());
+        assertEquals("570425394", error.getCode());
+        assertNull(error.getCategory());
+        assertEquals(62, error.getStartOffset());
+        assertEquals(71, error.getEndOffset());
+    }
+}
@@ -0,0 +1,9 @@
+package org.codehaus.plexus.compiler.eclipse;
+
+import org.codehaus.plexus.compiler.AbstractCompilerParallelTckTest;
+
+public class EclipseCompilerParallelTckTest extends AbstractCompilerParallelTckTest {
+    public EclipseCompilerParallelTckTest() {
+        this.roleHint = "eclipse";
+    }
+}
@@ -0,0 +1,9 @@
+package org.codehaus.plexus.compiler.eclipse;
+
+import org.codehaus.plexus.compiler.AbstractContinuousCompilerTest;
+
+public class EclipseContinuousCompilerTest extends AbstractContinuousCompilerTest {
+    public EclipseContinuousCompilerTest() {
+        this.roleHint = "eclipse";
+    }
+}
@@ -0,0 +1,85 @@
+package org.codehaus.plexus.compiler.eclipse;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.codehaus.plexus.compiler.CompilerConfiguration;
+import org.codehaus.plexus.compiler.CompilerMessage;
+import org.codehaus.plexus.compiler.CompilerResult;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs many compilations at the same time on one compiler, as the modules of a parallel build do, half of them
+ * turning errors into warnings, each of which must only see its own setting and diagnostics.
+ */
+class EclipseJavaCompilerConcurrencyTest {
+    private static final int COMPILATIONS = 48;
+
+    private static final int THREADS = 16;
+
+    @Test
+    void testConcurrentCompilationsAreIsolated(@TempDir Path tempDirectory) throws Exception {
+        EclipseJavaCompiler compiler = new EclipseJavaCompiler();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<CompilerResult>> results = new ArrayList<>();
+            for (int i = 0; i < COMPILATIONS; i++) {
+                CompilerConfiguration configuration = configuration(tempDirectory.resolve("module" + i), i);
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return compiler.performCompile(configuration);
+                }));
+            }
+            start.countDown();
+
+            for (int i = 0; i < COMPILATIONS; i++) {
+                CompilerResult result = results.get(i).get(5, TimeUnit.MINUTES);
+                boolean errorsAsWarnings = i % 2 == 0;
+                assertEquals(errorsAsWarnings, result.isSuccess(), "compilation " + i);
+                assertEquals(1, result.getCompilerMessages().size(), "compilation " + i);
+                CompilerMessage message = result.getCompilerMessages().get(0);
+                assertEquals(
+                        errorsAsWarnings ? CompilerMessage.Kind.WARNING : CompilerMessage.Kind.ERROR,
+                        message.getKind(),
+                        "compilation " + i);
+                assertTrue(message.getFile().endsWith("Module" + i + ".java"), message.getFile());
+                assertTrue(message.getMessage().contains("undefined" + i), message.getMessage());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static CompilerConfiguration configuration(Path moduleDirectory, int i) throws Exception {
+        Path sourceDirectory = moduleDirectory.resolve("src");
+        Files.createDirectories(sourceDirectory);
+        Files.write(
+                sourceDirectory.resolve("Module" + i + ".java"),
+                Arrays.asList("class Module" + i + " {", "  Object foo() { return undefined" + i + "; }", "}"),
+                StandardCharsets.UTF_8);
+
+        CompilerConfiguration configuration = new CompilerConfiguration();
+        configuration.setOutputLocation(moduleDirectory.resolve("classes").toString());
+        configuration.addSourceLocation(sourceDirectory.toString());
+        configuration.setSourceVersion("8");
+        configuration.setTargetVersion("8");
+        if (i % 2 == 0) {
+            configuration.addCompilerCustomArgument("-errorsAsWarnings", "true");
+        }
+        return configuration;
+    }
+}
@@ -0,0 +1,9 @@
+package org.codehaus.plexus.compiler.eclipse;
+
+import org.codehaus.plexus.compiler.AbstractOutputManifestTest;
+
+public class EclipseOutputManifestTest extends AbstractOutputManifestTest {
+    public EclipseOutputManifestTest() {
+        this.roleHint = "eclipse";
+    }
+}
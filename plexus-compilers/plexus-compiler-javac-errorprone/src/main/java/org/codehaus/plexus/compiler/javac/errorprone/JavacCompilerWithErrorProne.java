@@ -19,18 +19,30 @@ package org.codehaus.plexus.compiler.javac.errorprone;
 import javax.inject.Named;
 import javax.tools.JavaCompiler;
 
-import java.net.MalformedURLException;
-import java.net.URL;
-import java.net.URLClassLoader;
+import java.io.File;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 
+import com.google.errorprone.BugPattern.SeverityLevel;
 import com.google.errorprone.ErrorProneJavaCompiler;
+import com.google.errorprone.ErrorProneOptions;
+import com.google.errorprone.ErrorProneTimings;
+import com.google.errorprone.scanner.BuiltInCheckerSuppliers;
 import org.codehaus.plexus.compiler.CompilerConfiguration;
-import org.codehaus.plexus.compiler.CompilerException;
 import org.codehaus.plexus.compiler.CompilerMessage;
+import org.codehaus.plexus.compiler.CompilerMessageCollector;
 import org.codehaus.plexus.compiler.CompilerResult;
 import org.codehaus.plexus.compiler.javac.InProcessCompiler;
 import org.codehaus.plexus.compiler.javac.JavacCompiler;
 import org.codehaus.plexus.compiler.javac.JavaxToolsCompiler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * This class overrides JavacCompiler with modifications to use the error-prone
@@ -45,67 +57,181 @@ public class JavacCompilerWithErrorProne extends JavacCompiler {
         return "javac-with-errorprone";
     }
 
-    private static class NonDelegatingClassLoader extends URLClassLoader {
-        ClassLoader original;
+    protected InProcessCompiler inProcessCompiler() {
+        return InvokerHolder.INVOKER;
+    }
+
+    /** The invoker shared by all the compilations of the JVM, created on first use. */
+    private static final class InvokerHolder {
+        static final InProcessCompiler INVOKER = new CompilerInvoker();
+    }
+
+    /**
+     * A wrapper for all of the error-prone specific classes.
+     * <p>
+     * It measures the time spent in each bug checker, with {@link CompilerConfiguration#isCheckerProfiling()
+     * checker profiling} or a {@link CompilerConfiguration#getCheckerTimeBudget() checker time budget}. Beyond the
+     * budget, the most expensive checkers which cannot fail the build are turned off for the following compilations of
+     * the same module in the JVM, to be run in a separate build, such as a nightly one, instead. Modules are told apart
+     * by their output location, as the invoker is shared by all the modules of the JVM.
+     */
+    public static class CompilerInvoker extends JavaxToolsCompiler {
+        private final Logger log = LoggerFactory.getLogger(getClass());
+
+        /** The checkers turned off for going beyond the time budget, per output location of the module. */
+        private final Map<String, Set<String>> demotedCheckers = new ConcurrentHashMap<>();
+
+        @Override
+        protected JavaCompiler newJavaCompiler() {
+            return new ErrorProneJavaCompiler();
+        }
 
-        public NonDelegatingClassLoader(URL[] urls, ClassLoader original) throws MalformedURLException {
-            super(urls, null);
-            this.original = original;
+        @Override
+        protected List<String> getTaskOptions(List<String> options, CompilerConfiguration config) {
+            Set<String> demoted = getDemotedCheckers(config);
+            if (config.getCheckerTimeBudget() <= 0 || demoted.isEmpty()) {
+                return options;
+            }
+            List<String> taskOptions = new ArrayList<>(options);
+            for (String checker : demoted) {
+                taskOptions.add("-Xep:" + checker + ":OFF");
+            }
+            return taskOptions;
         }
 
         @Override
-        public Class<?> loadClass(String name, boolean complete) throws ClassNotFoundException {
-            // Classes loaded inside CompilerInvoker that need to reach back to the caller
-            if (name.contentEquals(CompilerResult.class.getName())
-                    || name.contentEquals(InProcessCompiler.class.getName())
-                    || name.contentEquals(CompilerConfiguration.class.getName())
-                    || name.contentEquals(CompilerConfiguration.CompilerReuseStrategy.class.getName())
-                    || name.contentEquals(CompilerException.class.getName())
-                    || name.contentEquals(CompilerMessage.class.getName())
-                    || name.contentEquals(CompilerMessage.Kind.class.getName())) {
-                return original.loadClass(name);
+        protected CompilerResult runTask(
+                JavaCompiler.CompilationTask task, CompilerConfiguration config, CompilerMessageCollector messages) {
+            if (!config.isCheckerProfiling() && config.getCheckerTimeBudget() <= 0) {
+                return super.runTask(task, config, messages);
+            }
+            if (config.getCheckerTimeBudget() > 0) {
+                reportDemotedCheckers(config, messages);
             }
+            // the context of the task is dropped once it has run
+            ErrorProneTimings timings = getTimings(task);
+            if (timings == null) {
+                return super.runTask(task, config, messages);
+            }
+            CompilerResult result = super.runTask(task, config, messages);
 
-            try {
-                synchronized (getClassLoadingLock(name)) {
-                    Class c = findLoadedClass(name);
-                    if (c != null) {
-                        return c;
-                    }
-                    return findClass(name);
+            List<Map.Entry<String, Duration>> checkerTimings =
+                    new ArrayList<>(timings.timings().entrySet());
+            checkerTimings.sort(Map.Entry.<String, Duration>comparingByValue().reversed());
+            if (config.isCheckerProfiling()) {
+                for (Map.Entry<String, Duration> checkerTiming : checkerTimings) {
+                    result.checkerTiming(checkerTiming.getKey(), checkerTiming.getValue());
                 }
-            } catch (ClassNotFoundException e) {
-                return super.loadClass(name, complete);
             }
+            if (config.getCheckerTimeBudget() > 0) {
+                Duration compileTime = result.getPhaseTimings().get(COMPILE_PHASE);
+                demoteCheckers(checkerTimings, compileTime, config, messages);
+            }
+            return result;
         }
-    }
 
-    protected InProcessCompiler inProcessCompiler() {
-        if (Thread.currentThread().getContextClassLoader().getResource("java/lang/module/ModuleReference.class")
-                == null) {
-            ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
-            URL[] urls = ((URLClassLoader) contextClassLoader).getURLs();
-            ClassLoader loader;
+        private Set<String> getDemotedCheckers(CompilerConfiguration config) {
+            String outputLocation =
+                    config.getOutputLocation() == null ? "" : new File(config.getOutputLocation()).getAbsolutePath();
+            return demotedCheckers.computeIfAbsent(outputLocation, location -> ConcurrentHashMap.newKeySet());
+        }
+
+        /**
+         * Tells each compilation of a module which checkers an earlier one turned off, as the messages of that one may
+         * not have been seen.
+         */
+        private void reportDemotedCheckers(CompilerConfiguration config, CompilerMessageCollector messages) {
+            Set<String> demoted = new TreeSet<>(getDemotedCheckers(config));
+            if (!demoted.isEmpty()) {
+                messages.add(new CompilerMessage(
+                        "The error-prone checkers " + String.join(", ", demoted)
+                                + " are turned off, having gone beyond the time budget in an earlier compilation of"
+                                + " this module, and should be run in a separate build",
+                        CompilerMessage.Kind.OTHER));
+            }
+        }
+
+        /**
+         * Turns off the most expensive checkers which are not errors, until the others fit in the time budget.
+         */
+        private void demoteCheckers(
+                List<Map.Entry<String, Duration>> checkerTimings,
+                Duration compileTime,
+                CompilerConfiguration config,
+                CompilerMessageCollector messages) {
+            long budget = (long) (compileTime.toNanos() * config.getCheckerTimeBudget());
+            long total = 0;
+            for (Map.Entry<String, Duration> checkerTiming : checkerTimings) {
+                total += checkerTiming.getValue().toNanos();
+            }
+            if (total <= budget) {
+                return;
+            }
+
+            // the severities the checkers run with, given the error-prone flags of the configuration
+            List<String> flags = new ArrayList<>();
+            for (Map.Entry<String, String> argument : config.getCustomCompilerArgumentsEntries()) {
+                if (argument.getKey().startsWith("-Xep")) {
+                    flags.add(argument.getKey());
+                }
+            }
+            Map<String, SeverityLevel> severities;
             try {
-                loader = new NonDelegatingClassLoader(urls, contextClassLoader);
-                Class<?> clazz = Class.forName(CompilerInvoker.class.getName(), true, loader);
-                return (InProcessCompiler) clazz.newInstance();
-            } catch (Exception e) {
-                throw new IllegalStateException(e);
+                severities = BuiltInCheckerSuppliers.defaultChecks()
+                        .applyOverrides(ErrorProneOptions.processArgs(flags))
+                        .severities();
+            } catch (RuntimeException e) {
+                return;
+            }
+
+            long checkersTotal = total;
+            Set<String> turnedOff = getDemotedCheckers(config);
+            List<String> demoted = new ArrayList<>();
+            for (Map.Entry<String, Duration> checkerTiming : checkerTimings) {
+                if (total <= budget) {
+                    break;
+                }
+                String checker = checkerTiming.getKey();
+                SeverityLevel severity = severities.get(checker);
+                if (severity == null || severity == SeverityLevel.ERROR || !turnedOff.add(checker)) {
+                    continue;
+                }
+                total -= checkerTiming.getValue().toNanos();
+                demoted.add(checker + " (" + checkerTiming.getValue().toMillis() + " ms)");
+            }
+            if (!demoted.isEmpty()) {
+                messages.add(new CompilerMessage(
+                        String.format(
+                                "The error-prone checkers took %d%% of the compilation time, beyond the budget of %d%%:"
+                                        + " %s are turned off for the next compilations and should be run in a"
+                                        + " separate build",
+                                checkersTotal * 100 / Math.max(1, compileTime.toNanos()),
+                                Math.round(config.getCheckerTimeBudget() * 100),
+                                String.join(", ", demoted)),
+                        CompilerMessage.Kind.OTHER));
             }
         }
-        return new CompilerInvoker();
-    }
 
-    /**
-     * A wrapper for all of the error-prone specific classes. Loading this class with a
-     * non-delegating classloader ensures that error-prone's javac loads javax.tools.* classes from
-     * javac.jar instead of from the bootclasspath.
-     */
-    public static class CompilerInvoker extends JavaxToolsCompiler {
-        @Override
-        protected JavaCompiler newJavaCompiler() {
-            return new ErrorProneJavaCompiler();
+        /**
+         * Gets the timings error-prone records in the context of the task, which is not exported by the JDK.
+         *
+         * @return the timings, or <code>null</code> if the context cannot be got, in which case the task is to run
+         *         without profiling the checkers nor turning any off
+         */
+        private ErrorProneTimings getTimings(JavaCompiler.CompilationTask task) {
+            try {
+                Method getContext = task.getClass().getMethod("getContext");
+                Object context = getContext.invoke(task);
+                return (ErrorProneTimings) ErrorProneTimings.class
+                        .getMethod("instance", getContext.getReturnType())
+                        .invoke(null, context);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                log.warn(
+                        "Cannot get the context of " + task
+                                + ", the error-prone checkers are neither profiled nor kept within their time budget",
+                        e);
+                return null;
+            }
         }
     }
 }
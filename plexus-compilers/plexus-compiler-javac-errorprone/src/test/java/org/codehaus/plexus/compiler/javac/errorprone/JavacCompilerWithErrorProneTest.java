@@ -0,0 +1,150 @@
+package org.codehaus.plexus.compiler.javac.errorprone;
+
+import javax.annotation.processing.Processor;
+import javax.tools.JavaCompiler;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import org.codehaus.plexus.compiler.CompilerConfiguration;
+import org.codehaus.plexus.compiler.CompilerMessage;
+import org.codehaus.plexus.compiler.CompilerMessageCollector;
+import org.codehaus.plexus.compiler.CompilerResult;
+import org.codehaus.plexus.compiler.javac.JavaxToolsCompiler;
+import org.codehaus.plexus.compiler.javac.errorprone.JavacCompilerWithErrorProne.CompilerInvoker;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class JavacCompilerWithErrorProneTest {
+    @Test
+    public void testCheckerProfiling() throws Exception {
+        CompilerConfiguration config = configuration("profiling");
+        config.setCheckerProfiling(true);
+
+        CompilerResult result = compile(new CompilerInvoker(), config);
+
+        assertFalse(result.isSuccess());
+        assertTrue(result.getPhaseTimings().containsKey(JavaxToolsCompiler.COMPILE_PHASE));
+        assertTrue(
+                result.getCheckerTimings().containsKey("CollectionIncompatibleType"),
+                result.getCheckerTimings()::toString);
+        List<Duration> timings = new ArrayList<>(result.getCheckerTimings().values());
+        for (int i = 1; i < timings.size(); i++) {
+            assertTrue(timings.get(i - 1).compareTo(timings.get(i)) >= 0, timings::toString);
+        }
+    }
+
+    @Test
+    public void testCheckersBeyondTheTimeBudgetAreTurnedOff() throws Exception {
+        CompilerInvoker invoker = new CompilerInvoker();
+        CompilerConfiguration config = configuration("budget");
+        config.setCheckerTimeBudget(1e-9);
+
+        CompilerResult result = compile(invoker, config);
+
+        assertTrue(result.getCheckerTimings().isEmpty());
+        List<String> options = invoker.getTaskOptions(Collections.emptyList(), config);
+        assertFalse(options.isEmpty());
+        assertFalse(options.contains("-Xep:CollectionIncompatibleType:OFF"), options::toString);
+        assertTrue(
+                result.getCompilerMessages().stream()
+                        .anyMatch(message -> message.getMessage().contains("CollectionIncompatibleType")),
+                result.getCompilerMessages()::toString);
+        assertTrue(
+                result.getCompilerMessages().stream()
+                        .anyMatch(message -> message.getKind() == CompilerMessage.Kind.OTHER
+                                && message.getMessage().contains("turned off")),
+                result.getCompilerMessages()::toString);
+
+        // the error checkers still run, and the result tells which ones do not
+        result = compile(invoker, config);
+        assertFalse(result.isSuccess());
+        assertTrue(
+                result.getCompilerMessages().stream()
+                        .anyMatch(message -> message.getKind() == CompilerMessage.Kind.OTHER
+                                && message.getMessage().contains("earlier compilation of this module")),
+                result.getCompilerMessages()::toString);
+
+        // other modules sharing the invoker are not affected
+        CompilerConfiguration otherModule = configuration("budget-other-module");
+        otherModule.setCheckerTimeBudget(1e-9);
+        assertTrue(invoker.getTaskOptions(Collections.emptyList(), otherModule).isEmpty());
+    }
+
+    @Test
+    public void testTaskWithoutContextRunsWithoutProfiling() throws Exception {
+        CompilerInvoker invoker = new CompilerInvoker() {
+            @Override
+            protected CompilerResult runTask(
+                    JavaCompiler.CompilationTask task,
+                    CompilerConfiguration config,
+                    CompilerMessageCollector messages) {
+                return super.runTask(withoutContext(task), config, messages);
+            }
+        };
+        CompilerConfiguration config = configuration("no-context");
+        config.setCheckerProfiling(true);
+        config.setCheckerTimeBudget(1e-9);
+
+        CompilerResult result = compile(invoker, config);
+
+        assertFalse(result.isSuccess());
+        assertTrue(result.getPhaseTimings().containsKey(JavaxToolsCompiler.COMPILE_PHASE));
+        assertTrue(result.getCheckerTimings().isEmpty(), result.getCheckerTimings()::toString);
+        assertTrue(invoker.getTaskOptions(Collections.emptyList(), config).isEmpty());
+    }
+
+    @Test
+    public void testInvokerIsShared() {
+        JavacCompilerWithErrorProne compiler = new JavacCompilerWithErrorProne();
+
+        assertSame(compiler.inProcessCompiler(), new JavacCompilerWithErrorProne().inProcessCompiler());
+    }
+
+    /**
+     * @return the given task, behind a class which has no context to get the timings of the checkers from
+     */
+    private static JavaCompiler.CompilationTask withoutContext(JavaCompiler.CompilationTask task) {
+        return new JavaCompiler.CompilationTask() {
+            @Override
+            public void addModules(Iterable<String> moduleNames) {
+                task.addModules(moduleNames);
+            }
+
+            @Override
+            public void setProcessors(Iterable<? extends Processor> processors) {
+                task.setProcessors(processors);
+            }
+
+            @Override
+            public void setLocale(Locale locale) {
+                task.setLocale(locale);
+            }
+
+            @Override
+            public Boolean call() {
+                return task.call();
+            }
+        };
+    }
+
+    private static CompilerConfiguration configuration(String test) {
+        CompilerConfiguration config = new CompilerConfiguration();
+        config.setOutputLocation(new File("target/checker-timings/" + test).getAbsolutePath());
+        return config;
+    }
+
+    private static CompilerResult compile(CompilerInvoker invoker, CompilerConfiguration config) throws Exception {
+        new File(config.getOutputLocation()).mkdirs();
+        String[] args = {"-d", config.getOutputLocation()};
+        String[] sources = {new File("src/test-input/src/main/ShortSet.java").getAbsolutePath()};
+        return invoker.compileInProcess(args, config, sources);
+    }
+}
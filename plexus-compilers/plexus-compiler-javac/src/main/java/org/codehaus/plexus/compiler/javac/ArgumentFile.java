@@ -0,0 +1,191 @@
+package org.codehaus.plexus.compiler.javac;
+
+/*
+ * Copyright 2026 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A javac command-line argument file, one quoted argument per line, in the platform encoding javac reads it with.
+ * <p>
+ * The file is named after the SHA-256 of its content, so that the same arguments are written once and the file is
+ * shared by all the compilations using them at the same time. The file is deleted when the last of them
+ * {@link #close() closes} it, once its process has exited, rather than being left to
+ * {@link java.io.File#deleteOnExit()}, whose list only grows in a long-lived JVM. Files to keep, for debugging, are
+ * never deleted, and are reused as they are by later compilations with the same arguments.
+ */
+final class ArgumentFile implements Closeable {
+    private static final String PREFIX = "javac-";
+
+    private static final String SUFFIX = ".args";
+
+    /** The number of open instances per file, the file being deleted when it drops to zero. */
+    private static final Map<Path, Integer> USERS_PER_FILE = new ConcurrentHashMap<>();
+
+    /** The encoder of the platform charset, reset before each use. */
+    private static final ThreadLocal<CharsetEncoder> ENCODER = ThreadLocal.withInitial(() -> Charset.defaultCharset()
+            .newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE));
+
+    private final Path file;
+
+    private final boolean keep;
+
+    private boolean closed;
+
+    private ArgumentFile(Path file, boolean keep) {
+        this.file = file;
+        this.keep = keep;
+    }
+
+    /**
+     * Writes the arguments to a file of the directory, unless a file with the same content is already there.
+     *
+     * @param arguments the arguments, quoted as by {@link JavacCompiler#quoteArgument(String)}
+     * @param directory the directory of the file, created if need be
+     * @param keep      whether to keep the file once closed
+     * @return the open argument file, to close once the process reading it has exited
+     * @throws IOException if the file cannot be written
+     */
+    static ArgumentFile write(Iterable<String> arguments, Path directory, boolean keep) throws IOException {
+        StringBuilder content = new StringBuilder(1024);
+        String lineSeparator = System.lineSeparator();
+        for (String argument : arguments) {
+            JavacCompiler.appendQuotedArgument(content, argument).append(lineSeparator);
+        }
+
+        ByteBuffer bytes = encode(content);
+        Path file = directory.resolve(PREFIX + sha256(bytes.duplicate()) + SUFFIX);
+        try {
+            USERS_PER_FILE.compute(file, (f, users) -> {
+                if (users == null) {
+                    try {
+                        ensureWritten(f, bytes);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    return 1;
+                }
+                return users + 1;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return new ArgumentFile(file, keep);
+    }
+
+    /**
+     * @return the path of the file
+     */
+    Path getPath() {
+        return file;
+    }
+
+    /**
+     * Releases the file, deleting it if no other compilation uses it and it is not to be kept.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            USERS_PER_FILE.computeIfPresent(file, (f, users) -> {
+                if (users > 1) {
+                    return users - 1;
+                }
+                if (!keep) {
+                    try {
+                        Files.deleteIfExists(f);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+                return null;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static ByteBuffer encode(CharSequence content) throws CharacterCodingException {
+        CharsetEncoder encoder = ENCODER.get();
+        encoder.reset();
+        return encoder.encode(CharBuffer.wrap(content));
+    }
+
+    /**
+     * Writes the file, unless one of the same size is already there, which given its name has the same content.
+     * The content is written to a temporary file first, so that no process ever reads a partial file.
+     */
+    private static void ensureWritten(Path file, ByteBuffer bytes) throws IOException {
+        if (Files.isRegularFile(file) && Files.size(file) == bytes.remaining()) {
+            return;
+        }
+        Files.createDirectories(file.getParent());
+        Path temporary = Files.createTempFile(file.getParent(), PREFIX, ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                ByteBuffer remaining = bytes.duplicate();
+                while (remaining.hasRemaining()) {
+                    channel.write(remaining);
+                }
+            }
+            try {
+                Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private static String sha256(ByteBuffer bytes) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        digest.update(bytes);
+        StringBuilder hex = new StringBuilder(64);
+        for (byte b : digest.digest()) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+}
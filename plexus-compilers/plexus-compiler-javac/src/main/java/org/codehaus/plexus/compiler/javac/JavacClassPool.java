@@ -0,0 +1,146 @@
+package org.codehaus.plexus.compiler.javac;
+
+/*
+ * Copyright 2026 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.File;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+/**
+ * The javac main classes loaded from <code>tools.jar</code>, together with the class path of the class loader of this
+ * component, so that the classes of both can refer to each other.
+ * <p>
+ * Pools are shared by all the {@link JavacCompiler} instances of the JVM, per component class loader and set of URLs,
+ * so that <code>tools.jar</code> is loaded once for all the modules of a build rather than once per instance. The
+ * component class loader is weakly referenced: the pools of a class loader are dropped with it, such as when the
+ * plugin realm it belongs to is disposed.
+ */
+final class JavacClassPool {
+    private static final Map<ClassLoader, Map<List<String>, JavacClassPool>> POOLS = new WeakHashMap<>();
+
+    private final URL[] urls;
+
+    private final String className;
+
+    /** The class shared by the compilations reusing the same compiler. */
+    private volatile Class<?> shared;
+
+    /** The classes released by the compilations reusing the created compilers, each used by one at a time. */
+    private final Deque<Class<?>> released = new ConcurrentLinkedDeque<>();
+
+    private JavacClassPool(URL[] urls, String className) {
+        this.urls = urls;
+        this.className = className;
+    }
+
+    /**
+     * Creates a pool of its own, which only keeps the classes loaded by the callers, as it cannot {@link #load() load}
+     * any itself.
+     */
+    JavacClassPool() {
+        this(null, null);
+    }
+
+    /**
+     * @param componentClassLoader the class loader whose URLs the classes are loaded with
+     * @param toolsJar             the <code>tools.jar</code> of the JDK
+     * @param className            the name of the javac main class
+     * @return the pool of the class loader and its current URLs
+     * @throws MalformedURLException if the path of <code>tools.jar</code> cannot be turned into a URL
+     */
+    static JavacClassPool get(URLClassLoader componentClassLoader, File toolsJar, String className)
+            throws MalformedURLException {
+        URL[] componentUrls = componentClassLoader.getURLs();
+        URL[] urls = new URL[componentUrls.length + 1];
+        urls[0] = toolsJar.toURI().toURL();
+        System.arraycopy(componentUrls, 0, urls, 1, componentUrls.length);
+
+        // URL.equals() resolves host names
+        List<String> key = new ArrayList<>(urls.length + 1);
+        key.add(className);
+        for (URL url : urls) {
+            key.add(url.toExternalForm());
+        }
+        synchronized (POOLS) {
+            return POOLS.computeIfAbsent(componentClassLoader, loader -> new HashMap<>())
+                    .computeIfAbsent(key, k -> new JavacClassPool(urls, className));
+        }
+    }
+
+    /**
+     * @param loader loads the class on first use
+     * @return the class shared by all the callers
+     */
+    <E extends Exception> Class<?> getShared(Loader<E> loader) throws E {
+        Class<?> c = shared;
+        if (c == null) {
+            synchronized (this) {
+                c = shared;
+                if (c == null) {
+                    shared = c = loader.load();
+                }
+            }
+        }
+        return c;
+    }
+
+    /**
+     * @param loader loads a class when none is released
+     * @return a class no other caller uses until it is {@link #release(Class) released}
+     */
+    <E extends Exception> Class<?> take(Loader<E> loader) throws E {
+        Class<?> c = released.poll();
+        return c != null ? c : loader.load();
+    }
+
+    void release(Class<?> c) {
+        released.add(c);
+    }
+
+    /**
+     * @return the class, loaded by a class loader of its own
+     */
+    Class<?> load() throws ClassNotFoundException {
+        // Combined classloader with no parent/child relationship, so classes in our classloader
+        // can reference classes in tools.jar
+        ClassLoader javacClassLoader = new URLClassLoader(urls);
+
+        final Thread thread = Thread.currentThread();
+        final ClassLoader contextClassLoader = thread.getContextClassLoader();
+        thread.setContextClassLoader(javacClassLoader);
+        try {
+            return javacClassLoader.loadClass(className);
+        } finally {
+            thread.setContextClassLoader(contextClassLoader);
+        }
+    }
+
+    /**
+     * Loads a javac main class.
+     */
+    interface Loader<E extends Exception> {
+        Class<?> load() throws E;
+    }
+}
@@ -46,19 +46,18 @@ import javax.inject.Singleton;
 
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
-import java.io.StringReader;
-import java.io.StringWriter;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.net.MalformedURLException;
-import java.net.URL;
+import java.net.URISyntaxException;
 import java.net.URLClassLoader;
+import java.security.CodeSource;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Deque;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -68,7 +67,6 @@ import java.util.Properties;
 import java.util.Set;
 import java.util.StringTokenizer;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -76,8 +74,13 @@ import org.codehaus.plexus.compiler.AbstractCompiler;
 import org.codehaus.plexus.compiler.CompilerConfiguration;
 import org.codehaus.plexus.compiler.CompilerException;
 import org.codehaus.plexus.compiler.CompilerMessage;
+import org.codehaus.plexus.compiler.CompilerMessageCollector;
 import org.codehaus.plexus.compiler.CompilerOutputStyle;
 import org.codehaus.plexus.compiler.CompilerResult;
+import org.codehaus.plexus.compiler.util.LineWriter;
+import org.codehaus.plexus.compiler.util.OutputCapture;
+import org.codehaus.plexus.compiler.util.ProcessRunner;
+import org.codehaus.plexus.compiler.util.SharedCache;
 import org.codehaus.plexus.util.FileUtils;
 import org.codehaus.plexus.util.Os;
 import org.codehaus.plexus.util.StringUtils;
@@ -216,8 +219,42 @@ public class JavacCompiler extends AbstractCompiler {
     private static final Object LOCK = new Object();
     private static final String JAVAC_CLASSNAME = "com.sun.tools.javac.Main";
 
-    private volatile Class<?> javacClass;
-    private final Deque<Class<?>> javacClasses = new ConcurrentLinkedDeque<>();
+    /** The <code>compile(String[], PrintWriter)</code> method of each javac main class, looked up once. */
+    private static final ClassValue<MethodHandle> COMPILE_METHOD = new ClassValue<MethodHandle>() {
+        @Override
+        protected MethodHandle computeValue(Class<?> javacClass) {
+            try {
+                return MethodHandles.publicLookup()
+                        .findStatic(
+                                javacClass,
+                                "compile",
+                                MethodType.methodType(int.class, String[].class, PrintWriter.class));
+            } catch (NoSuchMethodException | IllegalAccessException e) {
+                throw new IllegalArgumentException(e);
+            }
+        }
+    };
+
+    /**
+     * Whether each subclass still overrides the deprecated
+     * {@link #compileInProcessWithProperClassloader(Class, String[])}.
+     */
+    private static final ClassValue<Boolean> OVERRIDES_LEGACY_COMPILE = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            return overrides(type, "compileInProcessWithProperClassloader", Class.class, String[].class);
+        }
+    };
+
+    /**
+     * Whether each subclass supplies its own javac through {@link #createJavacClass()}.
+     */
+    private static final ClassValue<Boolean> OVERRIDES_CREATE_JAVAC_CLASS = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            return overrides(type, "createJavacClass");
+        }
+    };
 
     private static final Pattern JAVA_MAJOR_AND_MINOR_VERSION_PATTERN = Pattern.compile("\\d+(\\.\\d+)?");
 
@@ -227,6 +264,9 @@ public class JavacCompiler extends AbstractCompiler {
     @Inject
     private InProcessCompiler inProcessCompiler;
 
+    /** The javac classes of a subclass overriding {@link #createJavacClass()}, never shared with other instances */
+    private final JavacClassPool ownJavacClasses = new JavacClassPool();
+
     // ----------------------------------------------------------------------
     //
     // ----------------------------------------------------------------------
@@ -248,33 +288,110 @@ public class JavacCompiler extends AbstractCompiler {
         return System.getProperty("java.version");
     }
 
-    private String getOutOfProcessJavacVersion(String executable) throws CompilerException {
+    private String getOutOfProcessJavacVersion(String executable, CompilerConfiguration config)
+            throws CompilerException {
         String version = VERSION_PER_EXECUTABLE.get(executable);
         if (version == null) {
-            Commandline cli = new Commandline();
-            cli.setExecutable(executable);
-            /*
-             * The option "-version" should be supported by javac since 1.6 (https://docs.oracle.com/javase/6/docs/technotes/tools/solaris/javac.html)
-             * up to 21 (https://docs.oracle.com/en/java/javase/21/docs/specs/man/javac.html#standard-options)
-             */
-            cli.addArguments(new String[] {"-version"}); //
-            List<String> out = new ArrayList<>();
-            List<String> err = new ArrayList<>();
-            try {
-                int exitCode = CommandLineUtils.executeCommandLine(cli, out::add, err::add);
-                if (exitCode != 0) {
-                    throw new CompilerException("Could not retrieve version from " + executable + ". Exit code "
-                            + exitCode + ", Output: " + String.join(System.lineSeparator(), out) + ", Error: "
-                            + String.join(System.lineSeparator(), err));
+            File sharedCacheDirectory = config.getSharedCacheDirectory();
+            String executableKey = sharedCacheDirectory != null ? getExecutableKey(executable) : null;
+            if (executableKey != null) {
+                version = new SharedCache(sharedCacheDirectory)
+                        .get("javac-version", executableKey, () -> runJavacVersion(executable));
+            } else {
+                version = runJavacVersion(executable);
+            }
+            VERSION_PER_EXECUTABLE.put(executable, version);
+        }
+        return version;
+    }
+
+    /**
+     * @return a key identifying the executable, with links resolved, and the JDK it belongs to, which changes when
+     *         either is replaced, or <code>null</code> if the executable or the <code>release</code> file of its JDK
+     *         cannot be found, in which case nothing tells a replaced executable apart
+     */
+    static String getExecutableKey(String executable) {
+        File file = findExecutable(executable);
+        if (file == null) {
+            return null;
+        }
+        try {
+            file = file.toPath().toRealPath().toFile();
+        } catch (IOException e) {
+            return null;
+        }
+        File bin = file.getParentFile();
+        File release = bin != null && bin.getParentFile() != null ? new File(bin.getParentFile(), "release") : null;
+        if (release == null || !release.isFile()) {
+            return null;
+        }
+        return file.getPath()
+                + '|'
+                + file.length()
+                + '|'
+                + file.lastModified()
+                + '|'
+                + release.length()
+                + '|'
+                + release.lastModified();
+    }
+
+    /**
+     * Looks a bare command name up on the <code>PATH</code>, as the process would be started with.
+     *
+     * @return the file of the executable, or <code>null</code> if not found
+     */
+    private static File findExecutable(String executable) {
+        File file = new File(executable);
+        if (file.isAbsolute() || file.getParent() != null) {
+            return file.isFile() ? file : null;
+        }
+        String path = System.getenv("PATH");
+        if (path == null) {
+            return null;
+        }
+        boolean windows = Os.isFamily(Os.FAMILY_WINDOWS);
+        for (String directory : path.split(File.pathSeparator)) {
+            if (directory.isEmpty()) {
+                continue;
+            }
+            File candidate = new File(directory, executable);
+            if (candidate.isFile() && candidate.canExecute()) {
+                return candidate;
+            }
+            if (windows) {
+                candidate = new File(directory, executable + ".exe");
+                if (candidate.isFile()) {
+                    return candidate;
                 }
-            } catch (CommandLineException e) {
-                throw new CompilerException("Error while executing the external compiler " + executable, e);
             }
-            version = tryParseVersion(out);
-            if (version == null) {
-                version = tryParseVersion(err);
+        }
+        return null;
+    }
+
+    private static String runJavacVersion(String executable) throws CompilerException {
+        Commandline cli = new Commandline();
+        cli.setExecutable(executable);
+        /*
+         * The option "-version" should be supported by javac since 1.6 (https://docs.oracle.com/javase/6/docs/technotes/tools/solaris/javac.html)
+         * up to 21 (https://docs.oracle.com/en/java/javase/21/docs/specs/man/javac.html#standard-options)
+         */
+        cli.addArguments(new String[] {"-version"}); //
+        List<String> out = new ArrayList<>();
+        List<String> err = new ArrayList<>();
+        try {
+            int exitCode = ProcessRunner.execute(cli, out::add, err::add);
+            if (exitCode != 0) {
+                throw new CompilerException("Could not retrieve version from " + executable + ". Exit code "
+                        + exitCode + ", Output: " + String.join(System.lineSeparator(), out) + ", Error: "
+                        + String.join(System.lineSeparator(), err));
             }
-            VERSION_PER_EXECUTABLE.put(executable, version);
+        } catch (CommandLineException e) {
+            throw new CompilerException("Error while executing the external compiler " + executable, e);
+        }
+        String version = tryParseVersion(out);
+        if (version == null) {
+            version = tryParseVersion(err);
         }
         return version;
     }
@@ -287,7 +404,7 @@ public class JavacCompiler extends AbstractCompiler {
         return matcher.group();
     }
 
-    private String tryParseVersion(List<String> versions) {
+    private static String tryParseVersion(List<String> versions) {
         for (String version : versions) {
             if (version.startsWith("javac ")) {
                 version = version.substring(6);
@@ -320,7 +437,7 @@ public class JavacCompiler extends AbstractCompiler {
         final String executable;
         if (config.isFork()) {
             executable = getJavacExecutable(config);
-            javacVersion = getOutOfProcessJavacVersion(executable);
+            javacVersion = getOutOfProcessJavacVersion(executable, config);
         } else {
             javacVersion = getInProcessJavacVersion();
             executable = null;
@@ -330,7 +447,12 @@ public class JavacCompiler extends AbstractCompiler {
         CompilerResult result;
 
         if (config.isFork()) {
-            result = compileOutOfProcess(config, executable, args);
+            // the bridge is compiled for Java 8
+            if (config.isStructuredDiagnostics() && JavaVersion.JAVA_1_8.isOlderOrEqualTo(javacVersion)) {
+                result = compileOutOfProcessWithDiagnostics(config, executable, args, sourceFiles);
+            } else {
+                result = compileOutOfProcess(config, executable, args);
+            }
         } else {
             if (hasJavaxToolProvider() && !config.isForceJavacCompilerUse()) {
                 // use fqcn to prevent loading of the class on 1.5 environment !
@@ -364,7 +486,7 @@ public class JavacCompiler extends AbstractCompiler {
         final String javacVersion;
         if (config.isFork()) {
             String executable = getJavacExecutable(config);
-            javacVersion = getOutOfProcessJavacVersion(executable);
+            javacVersion = getOutOfProcessJavacVersion(executable, config);
         } else {
             javacVersion = getInProcessJavacVersion();
         }
@@ -546,6 +668,7 @@ public class JavacCompiler extends AbstractCompiler {
             args.add(value);
         }
 
+        // an unshared name table is dropped with its context, warm or not, instead of growing with the JVM
         if (!config.isFork() && !args.contains("-XDuseUnsharedTable=false")) {
             args.add("-XDuseUnsharedTable=true");
         }
@@ -553,6 +676,15 @@ public class JavacCompiler extends AbstractCompiler {
         return args.toArray(new String[0]);
     }
 
+    /**
+     * @return whether an in-process compilation is to keep its context warm for the next ones
+     * @see CompilerConfiguration#isWarmContext()
+     */
+    static boolean isWarmContext(CompilerConfiguration config) {
+        return config.isWarmContext()
+                && config.getCompilerReuseStrategy() == CompilerConfiguration.CompilerReuseStrategy.ReuseSame;
+    }
+
     /**
      * Represents a particular Java version (through their according version prefixes)
      */
@@ -605,11 +737,12 @@ public class JavacCompiler extends AbstractCompiler {
         cli.setWorkingDirectory(config.getWorkingDirectory().getAbsolutePath());
         cli.setExecutable(executable);
 
+        ArgumentFile argumentsFile;
         try {
-            File argumentsFile =
-                    createFileWithArguments(args, config.getBuildDirectory().getAbsolutePath());
-            cli.addArguments(
-                    new String[] {"@" + argumentsFile.getCanonicalPath().replace(File.separatorChar, '/')});
+            argumentsFile = createFileWithArguments(Arrays.asList(args), config);
+            cli.addArguments(new String[] {
+                "@" + argumentsFile.getPath().toFile().getCanonicalPath().replace(File.separatorChar, '/')
+            });
 
             if (!StringUtils.isEmpty(config.getMaxmem())) {
                 cli.addArguments(new String[] {"-J-Xmx" + config.getMaxmem()});
@@ -627,9 +760,9 @@ public class JavacCompiler extends AbstractCompiler {
             throw new CompilerException("Error creating file with javac arguments", e);
         }
 
-        CommandLineUtils.StringStreamConsumer out = new CommandLineUtils.StringStreamConsumer();
         int returnCode;
         List<CompilerMessage> messages;
+        long discardedLines;
 
         if (getLog().isDebugEnabled()) {
             String debugFileName = StringUtils.isEmpty(config.getDebugFileName()) ? "javac" : config.getDebugFileName();
@@ -651,25 +784,238 @@ public class JavacCompiler extends AbstractCompiler {
             }
         }
 
-        try {
+        try (OutputCapture out = new OutputCapture(config)) {
             // TODO:
             //   Is it really helpful to parse stdOut and stdErr as a single stream, instead of taking the chance to
             //   draw extra information from the fact that normal javac output is written to stdOut, while warnings and
             //   errors are written to stdErr? Of course, chronological correlation of messages would be more difficult
             //   then, but basically, we are throwing away information here.
-            returnCode = CommandLineUtils.executeCommandLine(cli, out, out);
+            returnCode = ProcessRunner.execute(cli, out, out);
+
+            logOutput(out);
 
-            if (getLog().isDebugEnabled()) {
-                getLog().debug("Compiler output:{}{}", EOL, out.getOutput());
+            CompilerMessageCollector collector = new CompilerMessageCollector(config);
+            try (BufferedReader reader = out.newReader()) {
+                messages = parseModernStream(returnCode, reader, collector);
             }
+            discardedLines = out.getDiscardedLines();
+            if (discardedLines > 0) {
+                messages.add(out.getTruncationMessage());
+            }
+        } catch (CommandLineException | IOException e) {
+            throw new CompilerException("Error while executing the external compiler.", e);
+        } finally {
+            closeQuietly(argumentsFile);
+        }
+
+        boolean success = returnCode == 0;
+        return new CompilerResult(success, messages).discardedOutputLines(discardedLines);
+    }
 
-            messages = parseModernStream(returnCode, new BufferedReader(new StringReader(out.getOutput())));
+    /**
+     * Compile the java sources in an external process, like {@link #compileOutOfProcess(CompilerConfiguration,
+     * String, String[])}, but through {@link JavacDiagnosticsBridge} in the JVM of the javac executable, which reports
+     * the diagnostics as records, with their exact positions, rather than as text to parse.
+     *
+     * @param config      compiler configuration
+     * @param executable  the javac executable, next to which the <code>java</code> executable is
+     * @param args        arguments for javac, which include the source files
+     * @param sourceFiles the source files
+     * @return a CompilerResult object encapsulating the result of the compilation and any compiler messages
+     * @throws CompilerException
+     */
+    CompilerResult compileOutOfProcessWithDiagnostics(
+            CompilerConfiguration config, String executable, String[] args, String[] sourceFiles)
+            throws CompilerException {
+        String javaExecutable = getJavaExecutable(executable);
+        String bridgeClasspath = getBridgeClasspath();
+        if (javaExecutable == null || bridgeClasspath == null) {
+            getLog().debug("Unable to run javac through {}, parsing its output instead", JavacDiagnosticsBridge.class);
+            return compileOutOfProcess(config, executable, args);
+        }
+
+        // the bridge takes the source files apart from the options
+        List<String> options = new ArrayList<>(Arrays.asList(args));
+        int sourceFilesIndex = Collections.indexOfSubList(options, Arrays.asList(sourceFiles));
+        if (sourceFilesIndex >= 0) {
+            options.subList(sourceFilesIndex, sourceFilesIndex + sourceFiles.length)
+                    .clear();
+        }
+
+        Commandline cli = new Commandline();
+        cli.setWorkingDirectory(config.getWorkingDirectory().getAbsolutePath());
+        cli.setExecutable(javaExecutable);
+
+        ArgumentFile optionsFile = null;
+        ArgumentFile sourceFilesFile = null;
+        try {
+            if (!StringUtils.isEmpty(config.getMaxmem())) {
+                cli.addArguments(new String[] {"-Xmx" + config.getMaxmem()});
+            }
+            if (!StringUtils.isEmpty(config.getMeminitial())) {
+                cli.addArguments(new String[] {"-Xms" + config.getMeminitial()});
+            }
+            for (String key : config.getCustomCompilerArgumentsAsMap().keySet()) {
+                if (StringUtils.isNotEmpty(key) && key.startsWith("-J")) {
+                    cli.addArguments(new String[] {key.substring(2)});
+                }
+            }
+
+            optionsFile = createFileWithArguments(options, config);
+            sourceFilesFile = createFileWithArguments(Arrays.asList(sourceFiles), config);
+            cli.addArguments(new String[] {
+                "-cp",
+                bridgeClasspath,
+                JavacDiagnosticsBridge.class.getName(),
+                optionsFile.getPath().toFile().getCanonicalPath(),
+                sourceFilesFile.getPath().toFile().getCanonicalPath()
+            });
+        } catch (IOException e) {
+            closeQuietly(optionsFile);
+            closeQuietly(sourceFilesFile);
+            throw new CompilerException("Error creating file with javac arguments", e);
+        }
+
+        int returnCode;
+        CompilerMessageCollector messages = new CompilerMessageCollector(config);
+        long discardedLines;
+
+        try (OutputCapture text = new OutputCapture(config);
+                OutputCapture err = new OutputCapture(config)) {
+            // records are parsed as they come, anything else, such as what annotation processors print, is parsed as
+            // javac output, followed by the standard error
+            returnCode = ProcessRunner.execute(
+                    cli,
+                    line -> {
+                        if (line.startsWith(JavacDiagnosticsBridge.RECORD + '\t')) {
+                            messages.add(parseDiagnosticRecord(line));
+                        } else if (!line.isEmpty()) {
+                            text.consumeLine(line);
+                        }
+                    },
+                    err);
+            text.append(err);
+
+            logOutput(text);
+
+            try (BufferedReader reader = text.newReader()) {
+                parseModernStream(returnCode, reader, messages);
+            }
+            discardedLines = text.getDiscardedLines();
+            if (discardedLines > 0) {
+                messages.add(text.getTruncationMessage());
+            }
         } catch (CommandLineException | IOException e) {
             throw new CompilerException("Error while executing the external compiler.", e);
+        } finally {
+            closeQuietly(optionsFile);
+            closeQuietly(sourceFilesFile);
         }
 
         boolean success = returnCode == 0;
-        return new CompilerResult(success, messages);
+        if (!success && messages.getMessages().isEmpty()) {
+            messages.add(new CompilerMessage(
+                    "Failure executing javac, exit code " + returnCode, CompilerMessage.Kind.ERROR));
+        }
+        return new CompilerResult(success, messages.getMessages()).discardedOutputLines(discardedLines);
+    }
+
+    /**
+     * Logs the captured compiler output at debug level, line by line rather than as a whole, as it may be large.
+     */
+    private void logOutput(OutputCapture output) throws IOException {
+        if (getLog().isDebugEnabled()) {
+            getLog().debug("Compiler output:");
+            try (BufferedReader reader = output.newReader()) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    getLog().debug(line);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param record a record written by {@link JavacDiagnosticsBridge}
+     * @return the compiler message it holds
+     */
+    static CompilerMessage parseDiagnosticRecord(String record) {
+        String[] fields = record.split("\t", -1);
+        CompilerMessage.Kind kind;
+        switch (fields[1]) {
+            case "ERROR":
+                kind = ERROR;
+                break;
+            case "WARNING":
+                kind = WARNING;
+                break;
+            case "MANDATORY_WARNING":
+                kind = MANDATORY_WARNING;
+                break;
+            case "NOTE":
+                kind = NOTE;
+                break;
+            default:
+                kind = OTHER;
+        }
+        String file = fields[2].isEmpty() ? null : JavacDiagnosticsBridge.unescape(fields[2]);
+        String message = JavacDiagnosticsBridge.unescape(fields[11]);
+        return new CompilerMessage(
+                        file,
+                        kind,
+                        Integer.parseInt(fields[3]),
+                        Integer.parseInt(fields[4]),
+                        Integer.parseInt(fields[5]),
+                        Integer.parseInt(fields[6]),
+                        message)
+                .code(fields[7].isEmpty() ? null : JavacDiagnosticsBridge.unescape(fields[7]))
+                .category(fields[8].isEmpty() ? null : fields[8])
+                .offsets(Integer.parseInt(fields[9]), Integer.parseInt(fields[10]));
+    }
+
+    /**
+     * @param message a javac message, without its kind
+     * @return the lint category the message starts with, such as <code>deprecation</code> for
+     *         <code>[deprecation] foo() in Bar has been deprecated</code>, or <code>null</code> if there is none
+     */
+    static String getLintCategory(String message) {
+        if (message.startsWith("[")) {
+            int end = message.indexOf(']');
+            if (end > 1 && message.lastIndexOf(' ', end) < 0) {
+                return message.substring(1, end);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the <code>java</code> executable next to the javac one, <code>null</code> if there is none
+     */
+    private static String getJavaExecutable(String javacExecutable) {
+        String javaCommand = "java" + (Os.isFamily(Os.FAMILY_WINDOWS) ? ".exe" : "");
+        File directory = new File(javacExecutable).getParentFile();
+        if (directory == null) {
+            // both are taken from the path
+            return javaCommand;
+        }
+        File javaExe = new File(directory, javaCommand);
+        return javaExe.isFile() ? javaExe.getAbsolutePath() : null;
+    }
+
+    /**
+     * @return the location of {@link JavacDiagnosticsBridge}, <code>null</code> if it cannot be put on a classpath
+     */
+    private static String getBridgeClasspath() {
+        try {
+            CodeSource codeSource =
+                    JavacDiagnosticsBridge.class.getProtectionDomain().getCodeSource();
+            if (codeSource == null || codeSource.getLocation() == null) {
+                return null;
+            }
+            return new File(codeSource.getLocation().toURI()).getAbsolutePath();
+        } catch (URISyntaxException | IllegalArgumentException | SecurityException e) {
+            return null;
+        }
     }
 
     /**
@@ -690,57 +1036,108 @@ public class JavacCompiler extends AbstractCompiler {
             getLog().debug("ttcl changed run compileInProcessWithProperClassloader");
         }
         try {
-            return compileInProcessWithProperClassloader(javacClass, args);
+            CompilerResult result = compileInProcessWithProperClassloader(javacClass, args, config);
+            // the output of com.sun.tools.javac.Main is parsed by subclasses too, so it is only filtered afterwards
+            CompilerMessageCollector messages = new CompilerMessageCollector(config);
+            messages.addAll(result.getCompilerMessages());
+            result.setCompilerMessages(messages.getMessages());
+            return result;
         } finally {
             releaseJavaccClass(javacClass, config);
             thread.setContextClassLoader(contextClassLoader);
         }
     }
 
+    /**
+     * @deprecated use {@link #compileInProcessWithProperClassloader(Class, String[], CompilerConfiguration)}, which
+     * captures the output within the limits of the configuration
+     */
+    @Deprecated
     protected CompilerResult compileInProcessWithProperClassloader(Class<?> javacClass, String[] args)
             throws CompilerException {
-        return compileInProcess0(javacClass, args);
+        return compileInProcess0(javacClass, args, new CompilerConfiguration());
     }
 
     /**
-     * Helper method for compileInProcess()
+     * Subclasses which still override {@link #compileInProcessWithProperClassloader(Class, String[])} are called
+     * through it, unless they override this method too.
+     *
+     * @param javacClass the javac main class
+     * @param args       arguments for the compiler as they would be used in the command line javac
+     * @param config     compiler configuration
+     * @return the result of the compilation, with the messages parsed from the output of javac
+     * @throws CompilerException if javac cannot be run
+     * @since 2.17.1
      */
-    private CompilerResult compileInProcess0(Class<?> javacClass, String[] args) throws CompilerException {
-        StringWriter out = new StringWriter();
-        Integer ok;
+    @SuppressWarnings("deprecation")
+    protected CompilerResult compileInProcessWithProperClassloader(
+            Class<?> javacClass, String[] args, CompilerConfiguration config) throws CompilerException {
+        if (OVERRIDES_LEGACY_COMPILE.get(getClass())) {
+            return compileInProcessWithProperClassloader(javacClass, args);
+        }
+        return compileInProcess0(javacClass, args, config);
+    }
+
+    /**
+     * Helper method for compileInProcess(). The output of javac is split into lines as it is written, and captured as
+     * the output of a forked compiler is, so that it is never held as a whole.
+     */
+    private CompilerResult compileInProcess0(Class<?> javacClass, String[] args, CompilerConfiguration config)
+            throws CompilerException {
+        int ok;
         List<CompilerMessage> messages;
+        long discardedLines;
 
+        MethodHandle compile;
         try {
-            Method compile = javacClass.getMethod("compile", new Class[] {String[].class, PrintWriter.class});
-            ok = (Integer) compile.invoke(null, new Object[] {args, new PrintWriter(out)});
+            compile = COMPILE_METHOD.get(javacClass);
+        } catch (IllegalArgumentException e) {
+            // the compile method was not found
+            throw new CompilerException("Error while executing the compiler.", e.getCause());
+        }
 
-            if (getLog().isDebugEnabled()) {
-                getLog().debug("Compiler output:{}{}", EOL, out.toString());
+        boolean outputLost;
+        try (OutputCapture out = new OutputCapture(config)) {
+            PrintWriter writer = new PrintWriter(new LineWriter(out));
+            try {
+                ok = (int) compile.invokeExact(args, writer);
+            } finally {
+                writer.close();
             }
+            // a PrintWriter swallows the failures to write, such as that of the capture to spill to disk
+            outputLost = writer.checkError();
+
+            logOutput(out);
 
-            messages = parseModernStream(ok, new BufferedReader(new StringReader(out.toString())));
-        } catch (NoSuchMethodException | IOException | InvocationTargetException | IllegalAccessException e) {
+            try (BufferedReader reader = out.newReader()) {
+                messages = parseModernStream(ok, reader);
+            }
+            discardedLines = out.getDiscardedLines();
+            if (discardedLines > 0) {
+                messages.add(out.getTruncationMessage());
+            }
+        } catch (Throwable e) {
             throw new CompilerException("Error while executing the compiler.", e);
         }
 
-        boolean success = ok == 0;
-        return new CompilerResult(success, messages);
-    }
+        if (outputLost) {
+            // the errors of the compilation may be among the lost lines
+            messages.add(new CompilerMessage(
+                    "The output of the compiler could not be captured entirely, some of its messages are missing",
+                    CompilerMessage.Kind.ERROR));
+        }
 
-    // Match ~95% of existing JDK exception name patterns (last checked for JDK 21)
-    private static final Pattern STACK_TRACE_FIRST_LINE = Pattern.compile("^(?:[\\w+.-]+\\.)[\\w$]*?(?:"
-            + "Exception|Error|Throwable|Failure|Result|Abort|Fault|ThreadDeath|Overflow|Warning|"
-            + "NotSupported|NotFound|BadArgs|BadClassFile|Illegal|Invalid|Unexpected|Unchecked|Unmatched\\w+"
-            + ").*$");
+        boolean success = ok == 0 && !outputLost;
+        return new CompilerResult(success, messages).discardedOutputLines(discardedLines);
+    }
 
-    // Match exception causes, existing and omitted stack trace elements
     /**
      * A line that is only a tally, such as {@code 2 errors}, {@code 1 error} or the localised {@code 警告 1 個}.
      */
     private static final Pattern COUNT_SUMMARY = Pattern.compile("^\\s*(?:\\d+\\s+\\S+|\\S+\\s+\\d+\\s+\\S+)\\s*$");
 
-    private static final Pattern STACK_TRACE_OTHER_LINE =
-            Pattern.compile("^(?:Caused by:\\s.*|\\s*at .*|\\s*\\.\\.\\.\\s\\d+\\smore)$");
+    /** Cache of the search patterns of {@link #getTextStartingWithPrefix(String, String[])} per prefix */
+    private static final Map<String, Pattern> PATTERN_PER_PREFIX = new ConcurrentHashMap<>();
 
     /**
      * Parse the compiler output into a list of compiler messages
@@ -751,7 +1148,20 @@ public class JavacCompiler extends AbstractCompiler {
      * @throws IOException if there is a problem reading from the input reader
      */
     static List<CompilerMessage> parseModernStream(int exitCode, BufferedReader input) throws IOException {
-        List<CompilerMessage> errors = new ArrayList<>();
+        return parseModernStream(exitCode, input, new CompilerMessageCollector());
+    }
+
+    /**
+     * Parse the compiler output into compiler messages, which are added to a collector
+     *
+     * @param exitCode javac exit code (0 on success, non-zero otherwise)
+     * @param input    compiler output (stdOut and stdErr merged into input stream)
+     * @param errors   the collector to add the messages to
+     * @return the messages of the collector
+     * @throws IOException if there is a problem reading from the input reader
+     */
+    static List<CompilerMessage> parseModernStream(int exitCode, BufferedReader input, CompilerMessageCollector errors)
+            throws IOException {
         String line;
         StringBuilder buffer = new StringBuilder();
         StringBuilder note = null;
@@ -768,8 +1178,8 @@ public class JavacCompiler extends AbstractCompiler {
                 note = null;
             }
 
-            if (stackTraceLineCount == 0 && STACK_TRACE_FIRST_LINE.matcher(line).matches()
-                    || STACK_TRACE_OTHER_LINE.matcher(line).matches()) {
+            if (stackTraceLineCount == 0 && JavacOutputClassifier.isStackTraceFirstLine(line)
+                    || JavacOutputClassifier.isStackTraceOtherLine(line)) {
                 stackTraceLineCount++;
             } else {
                 stackTraceLineCount = 0;
@@ -785,21 +1195,26 @@ public class JavacCompiler extends AbstractCompiler {
             }
 
             if (buffer.length() == 0) {
-                // try to classify output line by type (error, warning etc.)
-                // TODO: there should be a better way to parse these
-                if (isError(line)) {
-                    errors.add(new CompilerMessage(line, ERROR));
-                } else if (isWarning(line)) {
-                    errors.add(new CompilerMessage(line, WARNING));
-                } else if (isNote(line)) {
-                    // held back until its continuation lines, if any, have been read
-                    note = new StringBuilder(line);
-                } else if (isMisc(line)) {
-                    // verbose output was set
-                    errors.add(new CompilerMessage(line, CompilerMessage.Kind.OTHER));
-                } else {
-                    // add first unclassified line to buffer
-                    buffer.append(line).append(EOL);
+                // classify output line by type (error, warning etc.)
+                switch (JavacOutputClassifier.classify(line)) {
+                    case ERROR:
+                        errors.add(new CompilerMessage(line, ERROR));
+                        break;
+                    case WARNING:
+                        CompilerMessage warning = new CompilerMessage(line, WARNING);
+                        errors.add(warning.category(getLintCategory(warning.getMessage())));
+                        break;
+                    case NOTE:
+                        // held back until its continuation lines, if any, have been read
+                        note = new StringBuilder(line);
+                        break;
+                    case MISC:
+                        // verbose output was set
+                        errors.add(new CompilerMessage(line, CompilerMessage.Kind.OTHER));
+                        break;
+                    default:
+                        // add first unclassified line to buffer
+                        buffer.append(line).append(EOL);
                 }
             } else {
                 // add next unclassified line to buffer
@@ -817,20 +1232,22 @@ public class JavacCompiler extends AbstractCompiler {
 
         String bufferContent = buffer.toString();
         if (bufferContent.isEmpty()) {
-            return errors;
+            return errors.getMessages();
         }
 
         // javac output not detected by other parsing
         // maybe better to ignore only the summary and mark the rest as error
+        // line feeds are normalised once for all the searches below
+        String normalisedContent = normaliseLineFeeds(bufferContent);
         String cleanedUpMessage;
-        if ((cleanedUpMessage = getJavacGenericError(bufferContent)) != null
-                || (cleanedUpMessage = getBootLayerInitError(bufferContent)) != null
-                || (cleanedUpMessage = getVMInitError(bufferContent)) != null
-                || (cleanedUpMessage = getFileABugError(bufferContent)) != null
-                || (cleanedUpMessage = getAnnotationProcessingError(bufferContent)) != null
-                || (cleanedUpMessage = getSystemOutOfResourcesError(bufferContent)) != null
-                || (cleanedUpMessage = getIOError(bufferContent)) != null
-                || (cleanedUpMessage = getPluginError(bufferContent)) != null) {
+        if ((cleanedUpMessage = getJavacGenericError(normalisedContent)) != null
+                || (cleanedUpMessage = getBootLayerInitError(normalisedContent)) != null
+                || (cleanedUpMessage = getVMInitError(normalisedContent)) != null
+                || (cleanedUpMessage = getFileABugError(normalisedContent)) != null
+                || (cleanedUpMessage = getAnnotationProcessingError(normalisedContent)) != null
+                || (cleanedUpMessage = getSystemOutOfResourcesError(normalisedContent)) != null
+                || (cleanedUpMessage = getIOError(normalisedContent)) != null
+                || (cleanedUpMessage = getPluginError(normalisedContent)) != null) {
             errors.add(new CompilerMessage(cleanedUpMessage, ERROR));
         } else if (hasPointer) {
             // A compiler message remains in buffer at end of parse stream
@@ -854,7 +1271,7 @@ public class JavacCompiler extends AbstractCompiler {
             }
         }
 
-        return errors;
+        return errors.getMessages();
     }
 
     /**
@@ -874,21 +1291,13 @@ public class JavacCompiler extends AbstractCompiler {
         return kept.toString().trim();
     }
 
-    private static boolean isMisc(String message) {
-        return startsWithPrefix(message, MISC_PREFIXES);
-    }
-
-    private static boolean isNote(String message) {
-        return startsWithPrefix(message, NOTE_PREFIXES);
-    }
-
     /**
      * Tells whether a line continues the note that precedes it. Since JDK 21 javac wraps its notes over several
      * lines, indenting every line but the first, while the diagnostics that may follow a note all start in the
      * first column.
      * <p>
      * A leading space, not leading whitespace: javac indents note continuations with spaces, whereas a leading tab
-     * marks a stack trace frame, which {@link #STACK_TRACE_OTHER_LINE} is waiting for.
+     * marks a stack trace frame, which {@link JavacOutputClassifier#isStackTraceOtherLine(String)} is waiting for.
      *
      * @param line the line following a note
      * @return whether the line belongs to that note
@@ -897,53 +1306,36 @@ public class JavacCompiler extends AbstractCompiler {
         return line.startsWith(" ");
     }
 
-    private static boolean isWarning(String message) {
-        return startsWithPrefix(message, WARNING_PREFIXES);
-    }
-
-    private static boolean isError(String message) {
-        return startsWithPrefix(message, ERROR_PREFIXES);
-    }
-
     private static String getJavacGenericError(String message) {
-        return getTextStartingWithPrefix(message, JAVAC_GENERIC_ERROR_PREFIXES);
+        return findTextStartingWithPrefix(message, JAVAC_GENERIC_ERROR_PREFIXES);
     }
 
     private static String getVMInitError(String message) {
-        return getTextStartingWithPrefix(message, VM_INIT_ERROR_HEADERS);
+        return findTextStartingWithPrefix(message, VM_INIT_ERROR_HEADERS);
     }
 
     private static String getBootLayerInitError(String message) {
-        return getTextStartingWithPrefix(message, BOOT_LAYER_INIT_ERROR_HEADERS);
+        return findTextStartingWithPrefix(message, BOOT_LAYER_INIT_ERROR_HEADERS);
     }
 
     private static String getFileABugError(String message) {
-        return getTextStartingWithPrefix(message, FILE_A_BUG_ERROR_HEADERS);
+        return findTextStartingWithPrefix(message, FILE_A_BUG_ERROR_HEADERS);
     }
 
     private static String getAnnotationProcessingError(String message) {
-        return getTextStartingWithPrefix(message, ANNOTATION_PROCESSING_ERROR_HEADERS);
+        return findTextStartingWithPrefix(message, ANNOTATION_PROCESSING_ERROR_HEADERS);
     }
 
     private static String getSystemOutOfResourcesError(String message) {
-        return getTextStartingWithPrefix(message, SYSTEM_OUT_OF_RESOURCES_ERROR_HEADERS);
+        return findTextStartingWithPrefix(message, SYSTEM_OUT_OF_RESOURCES_ERROR_HEADERS);
     }
 
     private static String getIOError(String message) {
-        return getTextStartingWithPrefix(message, IO_ERROR_HEADERS);
+        return findTextStartingWithPrefix(message, IO_ERROR_HEADERS);
     }
 
     private static String getPluginError(String message) {
-        return getTextStartingWithPrefix(message, PLUGIN_ERROR_HEADERS);
-    }
-
-    private static boolean startsWithPrefix(String text, String[] prefixes) {
-        for (String prefix : prefixes) {
-            if (text.startsWith(prefix)) {
-                return true;
-            }
-        }
-        return false;
+        return findTextStartingWithPrefix(message, PLUGIN_ERROR_HEADERS);
     }
 
     /**
@@ -963,22 +1355,27 @@ public class JavacCompiler extends AbstractCompiler {
         // slower, but hopefully is worth the effort for the convenience of future developers maintaining this class.
 
         // Normalise line feeds to the UNIX format found in JDK multi-line messages in properties files
-        text = text.replaceAll("\\R", "\n");
+        return findTextStartingWithPrefix(normaliseLineFeeds(text), prefixes);
+    }
+
+    private static String normaliseLineFeeds(String text) {
+        return text.replaceAll("\\R", "\n");
+    }
 
+    /**
+     * Same as {@link #getTextStartingWithPrefix(String, String[])}, for a text whose line feeds are normalised.
+     */
+    private static String findTextStartingWithPrefix(String text, String[] prefixes) {
         // Search text for given error message prefixes/headers, until the first match is found
         for (String prefix : prefixes) {
-            // Split properties message along placeholders like "{0}", "{1}" etc.
-            String[] prefixParts = prefix.split("\\{\\d+\\}");
-            for (int i = 0; i < prefixParts.length; i++) {
-                // Make sure to treat split sections as literal text in search regex by enclosing them in "\Q" and "\E".
-                // See https://docs.oracle.com/javase/8/docs/api/java/util/regex/Pattern.html, search for "Quotation".
-                prefixParts[i] = "\\Q" + prefixParts[i] + "\\E";
+            // Text up to the first placeholder is literal: without it, the prefix cannot match
+            int placeholder = prefix.indexOf('{');
+            if (!text.contains(placeholder < 0 ? prefix : prefix.substring(0, placeholder))) {
+                continue;
             }
-            // Join message parts, replacing properties placeholders by ".*" regex ones
-            prefix = String.join(".*?", prefixParts);
-            // Find prefix + subsequent text in Pattern.DOTALL mode, represented in regex as "(?s)".
-            // This matches across line break boundaries.
-            Matcher matcher = Pattern.compile("(?s).*(" + prefix + ".*)").matcher(text);
+            Matcher matcher = PATTERN_PER_PREFIX
+                    .computeIfAbsent(prefix, JavacCompiler::compilePrefixPattern)
+                    .matcher(text);
             if (matcher.matches()) {
                 // Match -> cut off text before header and replace UNIX line breaks by platform ones again
                 return matcher.replaceFirst("$1").replaceAll("\n", EOL);
@@ -989,6 +1386,21 @@ public class JavacCompiler extends AbstractCompiler {
         return null;
     }
 
+    private static Pattern compilePrefixPattern(String prefix) {
+        // Split properties message along placeholders like "{0}", "{1}" etc.
+        String[] prefixParts = prefix.split("\\{\\d+\\}");
+        for (int i = 0; i < prefixParts.length; i++) {
+            // Make sure to treat split sections as literal text in search regex by enclosing them in "\Q" and "\E".
+            // See https://docs.oracle.com/javase/8/docs/api/java/util/regex/Pattern.html, search for "Quotation".
+            prefixParts[i] = "\\Q" + prefixParts[i] + "\\E";
+        }
+        // Join message parts, replacing properties placeholders by ".*" regex ones
+        String regex = String.join(".*?", prefixParts);
+        // Find prefix + subsequent text in Pattern.DOTALL mode, represented in regex as "(?s)".
+        // This matches across line break boundaries.
+        return Pattern.compile("(?s).*(" + regex + ".*)");
+    }
+
     /**
      * Construct a compiler message object from a compiler output line
      *
@@ -1040,13 +1452,13 @@ public class JavacCompiler extends AbstractCompiler {
             String msg = tokens.nextToken(EOL).substring(2);
 
             // Remove "error: " and "warning: " prefixes
-            String prefix;
-            if ((prefix = getErrorPrefix(msg)) != null) {
+            JavacOutputClassifier.LineType type = JavacOutputClassifier.classify(msg);
+            if (type == JavacOutputClassifier.LineType.ERROR) {
                 messageKind = ERROR;
-                msg = msg.substring(prefix.length());
-            } else if ((prefix = getWarningPrefix(msg)) != null) {
+                msg = msg.substring(JavacOutputClassifier.prefixLength(msg));
+            } else if (type == JavacOutputClassifier.LineType.WARNING) {
                 messageKind = WARNING;
-                msg = msg.substring(prefix.length());
+                msg = msg.substring(JavacOutputClassifier.prefixLength(msg));
             }
             msgBuffer.append(msg).append(EOL);
 
@@ -1076,8 +1488,8 @@ public class JavacCompiler extends AbstractCompiler {
                 endcolumn = Objects.requireNonNull(context).length();
             }
 
-            return new CompilerMessage(
-                    file.toString(), messageKind, line, startcolumn, line, endcolumn, message.trim());
+            return new CompilerMessage(file.toString(), messageKind, line, startcolumn, line, endcolumn, message.trim())
+                    .category(getLintCategory(msg));
         } catch (NoSuchElementException e) {
             return new CompilerMessage("no more tokens - could not parse error message: " + error, messageKind);
         } catch (Exception e) {
@@ -1085,52 +1497,24 @@ public class JavacCompiler extends AbstractCompiler {
         }
     }
 
-    private static String getMessagePrefix(String message, String[] prefixes) {
-        for (String prefix : prefixes) {
-            if (message.startsWith(prefix)) {
-                return prefix;
-            }
-        }
-        return null;
-    }
-
-    private static String getWarningPrefix(String message) {
-        return getMessagePrefix(message, WARNING_PREFIXES);
-    }
-
-    private static String getErrorPrefix(String message) {
-        return getMessagePrefix(message, ERROR_PREFIXES);
-    }
-
     /**
-     * put args into a temp file to be referenced using the @ option in javac command line
+     * put args into a file to be referenced using the @ option in javac command line
      *
-     * @param args
-     * @return the temporary file wth the arguments
+     * @param args   the arguments
+     * @param config the compiler configuration, in whose build directory the file is written
+     * @return the file with the arguments, to close once javac has exited; it is kept in debug mode
      * @throws IOException
      */
-    private File createFileWithArguments(String[] args, String outputDirectory) throws IOException {
-        PrintWriter writer = null;
-        try {
-            File tempFile;
-            if (getLog().isDebugEnabled()) {
-                tempFile = File.createTempFile(JavacCompiler.class.getName(), "arguments", new File(outputDirectory));
-            } else {
-                tempFile = File.createTempFile(JavacCompiler.class.getName(), "arguments");
-                tempFile.deleteOnExit();
-            }
-
-            writer = new PrintWriter(new FileWriter(tempFile));
-            for (String arg : args) {
-                writer.println(quoteArgument(arg));
-            }
-            writer.flush();
-
-            return tempFile;
+    private ArgumentFile createFileWithArguments(List<String> args, CompilerConfiguration config) throws IOException {
+        return ArgumentFile.write(args, config.getBuildDirectory().toPath(), getLog().isDebugEnabled());
+    }
 
-        } finally {
-            if (writer != null) {
-                writer.close();
+    private void closeQuietly(ArgumentFile argumentFile) {
+        if (argumentFile != null) {
+            try {
+                argumentFile.close();
+            } catch (IOException e) {
+                getLog().warn("Unable to delete '" + argumentFile.getPath() + "'", e);
             }
         }
     }
@@ -1139,35 +1523,44 @@ public class JavacCompiler extends AbstractCompiler {
      * Quotes an argument according to javac command-line argument file syntax.
      */
     static String quoteArgument(String argument) {
-        StringBuilder quoted = new StringBuilder(argument.length() + 2);
+        return appendQuotedArgument(new StringBuilder(argument.length() + 2), argument)
+                .toString();
+    }
+
+    /**
+     * Appends an argument quoted as by {@link #quoteArgument(String)}, in bulk unless it has characters to escape.
+     */
+    static StringBuilder appendQuotedArgument(StringBuilder quoted, String argument) {
         quoted.append('"');
+        int start = 0;
         for (int i = 0; i < argument.length(); i++) {
-            char c = argument.charAt(i);
-            switch (c) {
+            String escape;
+            switch (argument.charAt(i)) {
                 case '\\':
-                    quoted.append("\\\\");
+                    escape = "\\\\";
                     break;
                 case '"':
-                    quoted.append("\\\"");
+                    escape = "\\\"";
                     break;
                 case '\n':
-                    quoted.append("\\n");
+                    escape = "\\n";
                     break;
                 case '\r':
-                    quoted.append("\\r");
+                    escape = "\\r";
                     break;
                 case '\t':
-                    quoted.append("\\t");
+                    escape = "\\t";
                     break;
                 case '\f':
-                    quoted.append("\\f");
+                    escape = "\\f";
                     break;
                 default:
-                    quoted.append(c);
-                    break;
+                    continue;
             }
+            quoted.append(argument, start, i).append(escape);
+            start = i + 1;
         }
-        return quoted.append('"').toString();
+        return quoted.append(argument, start, argument.length()).append('"');
     }
 
     /**
@@ -1236,10 +1629,11 @@ public class JavacCompiler extends AbstractCompiler {
         return javacExe.getAbsolutePath();
     }
 
-    private void releaseJavaccClass(Class<?> javaccClass, CompilerConfiguration compilerConfiguration) {
-        if (compilerConfiguration.getCompilerReuseStrategy()
-                == CompilerConfiguration.CompilerReuseStrategy.ReuseCreated) {
-            javacClasses.add(javaccClass);
+    private void releaseJavaccClass(Class<?> javaccClass, CompilerConfiguration compilerConfiguration)
+            throws CompilerException {
+        if (compilerConfiguration.getCompilerReuseStrategy() == CompilerConfiguration.CompilerReuseStrategy.ReuseCreated
+                && javaccClass.getClassLoader() != JavacCompiler.class.getClassLoader()) {
+            getJavacClassPool().release(javaccClass);
         }
     }
 
@@ -1250,28 +1644,20 @@ public class JavacCompiler extends AbstractCompiler {
      * @throws CompilerException if the class has not been found.
      */
     private Class<?> getJavacClass(CompilerConfiguration compilerConfiguration) throws CompilerException {
-        Class<?> c;
+        if (!OVERRIDES_CREATE_JAVAC_CLASS.get(getClass())) {
+            Class<?> c = findJavacClass();
+            if (c != null) {
+                return c;
+            }
+        }
         switch (compilerConfiguration.getCompilerReuseStrategy()) {
             case AlwaysNew:
                 return createJavacClass();
             case ReuseCreated:
-                c = javacClasses.poll();
-                if (c == null) {
-                    c = createJavacClass();
-                }
-                return c;
+                return getJavacClassPool().take(this::createJavacClass);
             case ReuseSame:
             default:
-                c = javacClass;
-                if (c == null) {
-                    synchronized (this) {
-                        c = javacClass;
-                        if (c == null) {
-                            javacClass = c = createJavacClass();
-                        }
-                    }
-                }
-                return c;
+                return getJavacClassPool().getShared(this::createJavacClass);
         }
     }
 
@@ -1279,50 +1665,78 @@ public class JavacCompiler extends AbstractCompiler {
      * Helper method for create Javac class
      */
     protected Class<?> createJavacClass() throws CompilerException {
+        Class<?> c = findJavacClass();
+        if (c != null) {
+            return c;
+        }
+        try {
+            return getSharedJavacClassPool().load();
+        } catch (ClassNotFoundException ex) {
+            throw javacNotFound(ex);
+        }
+    }
+
+    /**
+     * @return the pool of the javac classes this compiler reuses, shared by the whole JVM unless a subclass supplies
+     *         its own classes
+     */
+    private JavacClassPool getJavacClassPool() throws CompilerException {
+        return OVERRIDES_CREATE_JAVAC_CLASS.get(getClass()) ? ownJavacClasses : getSharedJavacClassPool();
+    }
+
+    /**
+     * @return the javac main class if it is on Maven's classpath, as it is from Java 9 on, <code>null</code> otherwise
+     */
+    private static Class<?> findJavacClass() {
         try {
-            // look whether JavaC is on Maven's classpath
             // return Class.forName( JavacCompiler.JAVAC_CLASSNAME, true, JavacCompiler.class.getClassLoader() );
             return JavacCompiler.class.getClassLoader().loadClass(JavacCompiler.JAVAC_CLASSNAME);
         } catch (ClassNotFoundException ex) {
-            // ok
+            return null;
         }
+    }
 
-        final File toolsJar = new File(System.getProperty("java.home"), "../lib/tools.jar");
+    private static JavacClassPool getSharedJavacClassPool() throws CompilerException {
+        final File toolsJar = getToolsJar();
         if (!toolsJar.exists()) {
             throw new CompilerException("tools.jar not found: " + toolsJar);
         }
-
         try {
-            // Combined classloader with no parent/child relationship, so classes in our classloader
-            // can reference classes in tools.jar
-            URL[] originalUrls = ((URLClassLoader) JavacCompiler.class.getClassLoader()).getURLs();
-            URL[] urls = new URL[originalUrls.length + 1];
-            urls[0] = toolsJar.toURI().toURL();
-            System.arraycopy(originalUrls, 0, urls, 1, originalUrls.length);
-            ClassLoader javacClassLoader = new URLClassLoader(urls);
-
-            final Thread thread = Thread.currentThread();
-            final ClassLoader contextClassLoader = thread.getContextClassLoader();
-            thread.setContextClassLoader(javacClassLoader);
-            try {
-                // return Class.forName( JavacCompiler.JAVAC_CLASSNAME, true, javacClassLoader );
-                return javacClassLoader.loadClass(JavacCompiler.JAVAC_CLASSNAME);
-            } finally {
-                thread.setContextClassLoader(contextClassLoader);
-            }
+            return JavacClassPool.get((URLClassLoader) JavacCompiler.class.getClassLoader(), toolsJar, JAVAC_CLASSNAME);
         } catch (MalformedURLException ex) {
             throw new CompilerException(
                     "Could not convert the file reference to tools.jar to a URL, path to tools.jar: '"
                             + toolsJar.getAbsolutePath() + "'.",
                     ex);
-        } catch (ClassNotFoundException ex) {
-            throw new CompilerException(
-                    "Unable to locate the Javac Compiler in:" + EOL + "  " + toolsJar + EOL
-                            + "Please ensure you are using JDK 1.4 or above and" + EOL
-                            + "not a JRE (the com.sun.tools.javac.Main class is required)." + EOL
-                            + "In most cases you can change the location of your Java" + EOL
-                            + "installation by setting the JAVA_HOME environment variable.",
-                    ex);
         }
     }
+
+    /**
+     * @return whether the given subclass, or one of its superclasses below this one, declares the given method
+     */
+    private static boolean overrides(Class<?> type, String name, Class<?>... parameterTypes) {
+        for (Class<?> c = type; c != JavacCompiler.class; c = c.getSuperclass()) {
+            try {
+                c.getDeclaredMethod(name, parameterTypes);
+                return true;
+            } catch (NoSuchMethodException e) {
+                // look further up
+            }
+        }
+        return false;
+    }
+
+    private static File getToolsJar() {
+        return new File(System.getProperty("java.home"), "../lib/tools.jar");
+    }
+
+    private static CompilerException javacNotFound(ClassNotFoundException ex) {
+        return new CompilerException(
+                "Unable to locate the Javac Compiler in:" + EOL + "  " + getToolsJar() + EOL
+                        + "Please ensure you are using JDK 1.4 or above and" + EOL
+                        + "not a JRE (the com.sun.tools.javac.Main class is required)." + EOL
+                        + "In most cases you can change the location of your Java" + EOL
+                        + "installation by setting the JAVA_HOME environment variable.",
+                ex);
+    }
 }
@@ -0,0 +1,339 @@
+package org.codehaus.plexus.compiler.javac;
+
+/*
+ * Copyright 2026 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticListener;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Main class of a forked JVM running javac through <code>javax.tools</code>, so that its diagnostics are written to
+ * standard output as records rather than as localised text to parse. Everything else javac prints, as well as any
+ * uncaught exception, goes to standard error, as javac itself would print it.
+ * <p>
+ * Each record is one line of tab-separated fields: <code>D</code>, the kind, the source file (empty for none), the
+ * start line and column, the end line and column, the diagnostic code and lint category (empty for none), the start
+ * and end offsets (<code>-1</code> if unknown), and the message. Tabs, line breaks, backslashes and non-ASCII
+ * characters are escaped as in Java literals, so that records can be read in any encoding.
+ * <p>
+ * Only the JDK is on the classpath of the forked JVM: this class must not refer to any other.
+ */
+public final class JavacDiagnosticsBridge {
+    static final String RECORD = "D";
+
+    /** Exit codes of javac. */
+    static final int EXIT_OK = 0;
+
+    static final int EXIT_ERROR = 1;
+
+    static final int EXIT_CMDERR = 2;
+
+    static final int EXIT_ABNORMAL = 4;
+
+    private JavacDiagnosticsBridge() {}
+
+    /**
+     * @param args the file of options and the file of source files, one argument per line, quoted as by
+     *             {@link JavacCompiler#quoteArgument(String)}
+     */
+    public static void main(String[] args) throws IOException {
+        System.exit(run(readArguments(args[0]), readArguments(args[1]), System.out, System.err));
+    }
+
+    static int run(List<String> options, List<String> sourceFiles, PrintStream out, PrintStream err) {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            err.println("error: No compiler is provided in this environment. "
+                    + "Perhaps you are running on a JRE rather than a JDK?");
+            return EXIT_ABNORMAL;
+        }
+
+        Recorder recorder = new Recorder(out);
+        PrintWriter compilerOutput = new PrintWriter(err, true);
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(recorder, null, null)) {
+            Iterable<? extends JavaFileObject> compilationUnits =
+                    fileManager.getJavaFileObjectsFromStrings(sourceFiles);
+            JavaCompiler.CompilationTask task;
+            try {
+                task = compiler.getTask(compilerOutput, fileManager, recorder, options, null, compilationUnits);
+            } catch (IllegalArgumentException e) {
+                // invalid option
+                err.println("error: " + e.getMessage());
+                return EXIT_CMDERR;
+            }
+            return Boolean.TRUE.equals(task.call()) ? EXIT_OK : EXIT_ERROR;
+        } catch (Throwable e) {
+            e.printStackTrace(err);
+            return EXIT_ABNORMAL;
+        } finally {
+            compilerOutput.flush();
+            out.flush();
+        }
+    }
+
+    private static List<String> readArguments(String file) throws IOException {
+        List<String> arguments = new ArrayList<>();
+        for (String line : Files.readAllLines(Paths.get(file), Charset.defaultCharset())) {
+            if (!line.isEmpty()) {
+                arguments.add(unquote(line));
+            }
+        }
+        return arguments;
+    }
+
+    /**
+     * Reverses {@link JavacCompiler#quoteArgument(String)}.
+     */
+    static String unquote(String quoted) {
+        if (quoted.length() < 2 || quoted.charAt(0) != '"' || quoted.charAt(quoted.length() - 1) != '"') {
+            return quoted;
+        }
+        return unescape(quoted.substring(1, quoted.length() - 1));
+    }
+
+    /**
+     * Escapes a record field as a Java literal would, keeping only printable ASCII characters.
+     */
+    static String escape(String field) {
+        StringBuilder escaped = new StringBuilder(field.length());
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            switch (c) {
+                case '\\':
+                    escaped.append("\\\\");
+                    break;
+                case '\t':
+                    escaped.append("\\t");
+                    break;
+                case '\n':
+                    escaped.append("\\n");
+                    break;
+                case '\r':
+                    escaped.append("\\r");
+                    break;
+                case '\f':
+                    escaped.append("\\f");
+                    break;
+                case '"':
+                    escaped.append("\\\"");
+                    break;
+                default:
+                    if (c < ' ' || c > '~') {
+                        escaped.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        escaped.append(c);
+                    }
+            }
+        }
+        return escaped.toString();
+    }
+
+    static String unescape(String field) {
+        StringBuilder unescaped = new StringBuilder(field.length());
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (c != '\\' || i == field.length() - 1) {
+                unescaped.append(c);
+                continue;
+            }
+            c = field.charAt(++i);
+            switch (c) {
+                case 't':
+                    unescaped.append('\t');
+                    break;
+                case 'n':
+                    unescaped.append('\n');
+                    break;
+                case 'r':
+                    unescaped.append('\r');
+                    break;
+                case 'f':
+                    unescaped.append('\f');
+                    break;
+                case 'u':
+                    unescaped.append((char) Integer.parseInt(field.substring(i + 1, i + 5), 16));
+                    i += 4;
+                    break;
+                default:
+                    unescaped.append(c);
+            }
+        }
+        return unescaped.toString();
+    }
+
+    /**
+     * Writes a record per diagnostic, working out the end line and column from the end offset, which is all
+     * {@link Diagnostic} tells of the end of the problem.
+     */
+    private static final class Recorder implements DiagnosticListener<JavaFileObject> {
+        private final PrintStream out;
+
+        private final Map<JavaFileObject, int[]> lineStartsPerSource = new HashMap<>();
+
+        Recorder(PrintStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public synchronized void report(Diagnostic<? extends JavaFileObject> diagnostic) {
+            String message;
+            try {
+                message = diagnostic.getMessage(Locale.getDefault());
+            } catch (Throwable e) {
+                // see JDK-8210649 and JDK-8216202
+                message = diagnostic.toString();
+            }
+            if (message == null) {
+                return;
+            }
+
+            JavaFileObject source = diagnostic.getSource();
+            int line = (int) Math.max(0, diagnostic.getLineNumber());
+            int column = (int) Math.max(0, diagnostic.getColumnNumber());
+            int endLine = line;
+            int endColumn = column;
+            long start = diagnostic.getStartPosition();
+            long end = diagnostic.getEndPosition();
+            if (source != null && line > 0 && end != Diagnostic.NOPOS && end > start) {
+                int[] lineStarts = lineStarts(source);
+                if (lineStarts != null) {
+                    // the end offset is exclusive, which makes it the 1-based column of the last character
+                    int index = lineIndex(lineStarts, (int) end - 1);
+                    endLine = index + 1;
+                    endColumn = (int) end - lineStarts[index];
+                }
+            }
+
+            String code = diagnostic.getCode();
+            out.println(String.join(
+                    "\t",
+                    RECORD,
+                    diagnostic.getKind().name(),
+                    source == null ? "" : escape(getPath(source)),
+                    String.valueOf(line),
+                    String.valueOf(column),
+                    String.valueOf(endLine),
+                    String.valueOf(endColumn),
+                    code == null ? "" : escape(code),
+                    Objects.toString(getLintCategory(diagnostic), ""),
+                    String.valueOf(start == Diagnostic.NOPOS ? -1 : start),
+                    String.valueOf(end == Diagnostic.NOPOS ? -1 : end),
+                    escape(message)));
+        }
+
+        private int[] lineStarts(JavaFileObject source) {
+            if (!lineStartsPerSource.containsKey(source)) {
+                int[] lineStarts = null;
+                try {
+                    lineStarts = computeLineStarts(source.getCharContent(true));
+                } catch (IOException | RuntimeException e) {
+                    // the end is left at the start
+                }
+                lineStartsPerSource.put(source, lineStarts);
+            }
+            return lineStartsPerSource.get(source);
+        }
+    }
+
+    /**
+     * Sources are reported by their path in the form of the platform, as javac prints it, rather than by the path of
+     * their URI, which is always separated by slashes and starts with one before the drive letter on Windows.
+     *
+     * @return the path of the source file, or its name if it is not a file
+     */
+    static String getPath(JavaFileObject source) {
+        URI uri = source.toUri();
+        if ("file".equals(uri.getScheme())) {
+            try {
+                return Paths.get(uri).toString();
+            } catch (IllegalArgumentException e) {
+                // such as a UNC path on another platform than Windows
+            }
+        }
+        return source.getName();
+    }
+
+    /**
+     * The lint category of a warning, such as <code>rawtypes</code>, is left out of its message and only found in its
+     * formatted form, <code>Foo.java:3: warning: [rawtypes] found raw type: List</code>.
+     *
+     * @return the lint category of the diagnostic, or <code>null</code> if it has none
+     */
+    static String getLintCategory(Diagnostic<?> diagnostic) {
+        if (diagnostic.getKind() != Diagnostic.Kind.WARNING
+                && diagnostic.getKind() != Diagnostic.Kind.MANDATORY_WARNING) {
+            return null;
+        }
+        String formatted = diagnostic.toString();
+        int lineEnd = formatted.indexOf('\n');
+        int open = formatted.indexOf(": [");
+        if (open < 0 || lineEnd >= 0 && open > lineEnd) {
+            return null;
+        }
+        int close = formatted.indexOf(']', open);
+        if (close < 0 || lineEnd >= 0 && close > lineEnd) {
+            return null;
+        }
+        String category = formatted.substring(open + 3, close);
+        return category.isEmpty() || category.indexOf(' ') >= 0 ? null : category;
+    }
+
+    static int[] computeLineStarts(CharSequence content) {
+        int[] lineStarts = new int[16];
+        int lines = 1;
+        for (int i = 0; i < content.length(); i++) {
+            char c = content.charAt(i);
+            if (c == '\n' || c == '\r' && (i + 1 == content.length() || content.charAt(i + 1) != '\n')) {
+                if (lines == lineStarts.length) {
+                    int[] grown = new int[lines * 2];
+                    System.arraycopy(lineStarts, 0, grown, 0, lines);
+                    lineStarts = grown;
+                }
+                lineStarts[lines++] = i + 1;
+            }
+        }
+        int[] trimmed = new int[lines];
+        System.arraycopy(lineStarts, 0, trimmed, 0, lines);
+        return trimmed;
+    }
+
+    /**
+     * @return the 0-based index of the line holding the offset
+     */
+    static int lineIndex(int[] lineStarts, int offset) {
+        int index = Arrays.binarySearch(lineStarts, offset);
+        return index >= 0 ? index : -index - 2;
+    }
+}
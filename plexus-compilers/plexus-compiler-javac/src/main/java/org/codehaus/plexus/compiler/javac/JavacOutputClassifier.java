@@ -0,0 +1,277 @@
+package org.codehaus.plexus.compiler.javac;
+
+/*
+ * Copyright 2026 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.Arrays;
+
+import static org.codehaus.plexus.compiler.javac.JavacCompiler.Messages.ERROR_PREFIXES;
+import static org.codehaus.plexus.compiler.javac.JavacCompiler.Messages.MISC_PREFIXES;
+import static org.codehaus.plexus.compiler.javac.JavacCompiler.Messages.NOTE_PREFIXES;
+import static org.codehaus.plexus.compiler.javac.JavacCompiler.Messages.WARNING_PREFIXES;
+
+/**
+ * Classifies lines of javac output in a single pass over their first characters, without regular expressions and
+ * without allocating.
+ * <p>
+ * The localised prefixes of {@link JavacCompiler.Messages} are compiled into one trie, walked once per line, instead
+ * of being tried one after the other. Stack trace lines are recognised by hand-written matchers equivalent to the
+ * regular expressions they replace, which are quoted on each method.
+ */
+final class JavacOutputClassifier {
+    /**
+     * What a line of javac output starts with.
+     */
+    enum LineType {
+        ERROR,
+        WARNING,
+        NOTE,
+        MISC,
+        OTHER
+    }
+
+    /**
+     * The exception name suffixes of {@link #isStackTraceFirstLine(String)}, matching ~95% of the JDK's exception
+     * names (last checked for JDK 21).
+     */
+    private static final String[] EXCEPTION_NAME_SUFFIXES = {
+        "Exception",
+        "Error",
+        "Throwable",
+        "Failure",
+        "Result",
+        "Abort",
+        "Fault",
+        "ThreadDeath",
+        "Overflow",
+        "Warning",
+        "NotSupported",
+        "NotFound",
+        "BadArgs",
+        "BadClassFile",
+        "Illegal",
+        "Invalid",
+        "Unexpected",
+        "Unchecked",
+        "Unmatched"
+    };
+
+    /** Only this suffix must be followed by at least one more word character. */
+    private static final String UNMATCHED = "Unmatched";
+
+    private static final Node PREFIXES = new Node();
+
+    private static final Node EXCEPTION_NAMES = new Node();
+
+    static {
+        // a key listed for several types keeps the type it was added with first
+        add(PREFIXES, ERROR_PREFIXES, LineType.ERROR);
+        add(PREFIXES, WARNING_PREFIXES, LineType.WARNING);
+        add(PREFIXES, NOTE_PREFIXES, LineType.NOTE);
+        add(PREFIXES, MISC_PREFIXES, LineType.MISC);
+        add(EXCEPTION_NAMES, EXCEPTION_NAME_SUFFIXES, LineType.ERROR);
+    }
+
+    private JavacOutputClassifier() {}
+
+    /**
+     * @param line a line of javac output
+     * @return the type of the message the line starts, {@link LineType#OTHER} if it starts none
+     */
+    static LineType classify(String line) {
+        Node match = match(PREFIXES, line, 0);
+        return match == null ? LineType.OTHER : match.type;
+    }
+
+    /**
+     * @param line a line of javac output
+     * @return the length of the prefix {@link #classify(String)} recognised, <code>0</code> if there is none
+     */
+    static int prefixLength(String line) {
+        Node match = match(PREFIXES, line, 0);
+        return match == null ? 0 : match.depth;
+    }
+
+    /**
+     * Equivalent to <code>^(?:[\w+.-]+\.)[\w$]*?(?:Exception|Error|...|Unmatched\w+).*$</code>: a qualified class
+     * name, one of whose simple names contains one of the {@link #EXCEPTION_NAME_SUFFIXES}.
+     *
+     * @param line a line of javac output
+     * @return whether the line may start a stack trace
+     */
+    static boolean isStackTraceFirstLine(String line) {
+        int length = line.length();
+        // every dot preceded by a package-like name may be followed by the simple name holding the suffix
+        for (int dot = 1; dot < length; dot++) {
+            char c = line.charAt(dot - 1);
+            if (!isWordChar(c) && c != '+' && c != '.' && c != '-') {
+                return false;
+            }
+            if (line.charAt(dot) != '.') {
+                continue;
+            }
+            for (int i = dot + 1; i < length && (isWordChar(line.charAt(i)) || line.charAt(i) == '$'); i++) {
+                Node match = match(EXCEPTION_NAMES, line, i);
+                if (match != null
+                        && (!UNMATCHED.equals(match.key)
+                                || i + match.depth < length && isWordChar(line.charAt(i + match.depth)))) {
+                    return !hasLineTerminator(line);
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Equivalent to <code>^(?:Caused by:\s.*|\s*at .*|\s*\.\.\.\s\d+\smore)$</code>: an exception cause, a stack
+     * trace element or the tally of omitted elements.
+     *
+     * @param line a line of javac output
+     * @return whether the line continues a stack trace
+     */
+    static boolean isStackTraceOtherLine(String line) {
+        if (line.startsWith("Caused by:")) {
+            return line.length() > 10 && isWhitespace(line.charAt(10)) && !hasLineTerminator(line);
+        }
+        int i = 0;
+        while (i < line.length() && isWhitespace(line.charAt(i))) {
+            i++;
+        }
+        if (line.startsWith("at ", i)) {
+            return !hasLineTerminator(line);
+        }
+        if (!line.startsWith("...", i)) {
+            return false;
+        }
+        i += 3;
+        if (i >= line.length() || !isWhitespace(line.charAt(i++))) {
+            return false;
+        }
+        int digits = i;
+        while (i < line.length() && line.charAt(i) >= '0' && line.charAt(i) <= '9') {
+            i++;
+        }
+        return i > digits
+                && i < line.length()
+                && isWhitespace(line.charAt(i))
+                && line.length() == i + 5
+                && line.startsWith("more", i + 1);
+    }
+
+    /**
+     * Walks the trie along the text from the given index.
+     *
+     * @return the node of the first, hence shortest, key found, or <code>null</code> if there is none
+     */
+    private static Node match(Node root, String text, int from) {
+        Node node = root;
+        for (int i = from; i < text.length(); i++) {
+            node = node.next(text.charAt(i));
+            if (node == null) {
+                return null;
+            }
+            if (node.type != null) {
+                return node;
+            }
+        }
+        return null;
+    }
+
+    private static void add(Node root, String[] keys, LineType type) {
+        for (String key : keys) {
+            Node node = root;
+            for (int i = 0; i < key.length(); i++) {
+                node = node.add(key.charAt(i));
+            }
+            if (node.type == null) {
+                node.type = type;
+                node.key = key;
+            }
+        }
+    }
+
+    /** <code>\w</code>, without {@link java.util.regex.Pattern#UNICODE_CHARACTER_CLASS}. */
+    private static boolean isWordChar(char c) {
+        return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9' || c == '_';
+    }
+
+    /** <code>\s</code>, without {@link java.util.regex.Pattern#UNICODE_CHARACTER_CLASS}. */
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    /**
+     * Lines read by a {@link java.io.BufferedReader} may still contain the Unicode line terminators <code>.</code>
+     * does not match, which the replaced expressions rejected. Only checked once a line has matched, as it takes a
+     * scan of the whole line.
+     */
+    private static boolean hasLineTerminator(String line) {
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '\u0085' || c == '\u2028' || c == '\u2029') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A trie node, whose children are kept in parallel arrays sorted by character, so that they are found by binary
+     * search without boxing.
+     */
+    private static final class Node {
+        private char[] chars = new char[0];
+
+        private Node[] children = new Node[0];
+
+        private int depth;
+
+        /** The key ending here and its type, if any. */
+        private String key;
+
+        private LineType type;
+
+        Node next(char c) {
+            int index = Arrays.binarySearch(chars, c);
+            return index < 0 ? null : children[index];
+        }
+
+        Node add(char c) {
+            int index = Arrays.binarySearch(chars, c);
+            if (index >= 0) {
+                return children[index];
+            }
+            index = -index - 1;
+            Node child = new Node();
+            child.depth = depth + 1;
+            chars = insert(chars, index, c);
+            Node[] grown = new Node[children.length + 1];
+            System.arraycopy(children, 0, grown, 0, index);
+            System.arraycopy(children, index, grown, index + 1, children.length - index);
+            grown[index] = child;
+            children = grown;
+            return child;
+        }
+
+        private static char[] insert(char[] array, int index, char c) {
+            char[] grown = new char[array.length + 1];
+            System.arraycopy(array, 0, grown, 0, index);
+            System.arraycopy(array, index, grown, index + 1, array.length - index);
+            grown[index] = c;
+            return grown;
+        }
+    }
+}
@@ -20,24 +20,33 @@ package org.codehaus.plexus.compiler.javac;
 
 import javax.inject.Named;
 import javax.tools.Diagnostic;
-import javax.tools.DiagnosticCollector;
+import javax.tools.DiagnosticListener;
 import javax.tools.JavaCompiler;
 import javax.tools.JavaFileObject;
 import javax.tools.StandardJavaFileManager;
 import javax.tools.ToolProvider;
 
+import java.io.File;
+import java.io.IOException;
 import java.nio.charset.Charset;
-import java.util.ArrayList;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.codehaus.plexus.compiler.CompilerConfiguration;
 import org.codehaus.plexus.compiler.CompilerException;
 import org.codehaus.plexus.compiler.CompilerMessage;
+import org.codehaus.plexus.compiler.CompilerMessageCollector;
 import org.codehaus.plexus.compiler.CompilerResult;
+import org.codehaus.plexus.compiler.util.OutputManifest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -48,9 +57,13 @@ import org.slf4j.LoggerFactory;
  */
 @Named
 public class JavaxToolsCompiler implements InProcessCompiler {
+    /** The phase of the compilation task, in {@link CompilerResult#getPhaseTimings()}. */
+    public static final String COMPILE_PHASE = "compile";
+
     private final Logger log = LoggerFactory.getLogger(getClass());
     /**
-     * is that thread safe ???
+     * Shared by all the compilations reusing the same compiler, which is safe as a compiler keeps no state between
+     * tasks: each task gets a context of its own, as checked by {@code JavacCompilerParallelTckTest}.
      */
     @SuppressWarnings("restriction")
     private final JavaCompiler COMPILER = newJavaCompiler();
@@ -61,6 +74,23 @@ public class JavaxToolsCompiler implements InProcessCompiler {
 
     private final List<JavaCompiler> JAVA_COMPILERS = new CopyOnWriteArrayList<>();
 
+    /**
+     * The file managers kept warm between the compilations of {@link #COMPILER}, the most recently used first, at most
+     * {@link #getMaxWarmFileManagers()} of them.
+     */
+    private final Deque<WarmFileManager> WARM_FILE_MANAGERS = new ConcurrentLinkedDeque<>();
+
+    /**
+     * Returns the number of file managers kept warm at most, beyond which the least recently used ones are closed.
+     * Each holds the open archives and indexes of the class paths it was used with.
+     *
+     * @return the number of warm file managers, one per processor by default
+     * @since 2.17.1
+     */
+    protected int getMaxWarmFileManagers() {
+        return Runtime.getRuntime().availableProcessors();
+    }
+
     private JavaCompiler getJavaCompiler(CompilerConfiguration compilerConfiguration) {
         switch (compilerConfiguration.getCompilerReuseStrategy()) {
             case AlwaysNew:
@@ -105,9 +135,15 @@ public class JavaxToolsCompiler implements InProcessCompiler {
             }
             String sourceEncoding = config.getSourceEncoding();
             Charset sourceCharset = sourceEncoding == null ? null : Charset.forName(sourceEncoding);
-            DiagnosticCollector<JavaFileObject> collector = new DiagnosticCollector<>();
-            try (StandardJavaFileManager standardFileManager =
-                    compiler.getStandardFileManager(collector, null, sourceCharset)) {
+            // diagnostics are turned into messages as they are reported, and only if they are to be kept
+            CompilerMessageCollector compilerMsgs = new CompilerMessageCollector(config);
+            DiagnosticListener<JavaFileObject> collector = diagnostic -> report(diagnostic, compilerMsgs);
+            WarmFileManager warmFileManager =
+                    JavacCompiler.isWarmContext(config) ? takeWarmFileManager(compiler, sourceCharset, args) : null;
+            StandardJavaFileManager standardFileManager = warmFileManager != null
+                    ? warmFileManager.acquire(collector)
+                    : compiler.getStandardFileManager(collector, null, sourceCharset);
+            try {
 
                 Iterable<? extends JavaFileObject> fileObjects =
                         standardFileManager.getJavaFileObjectsFromStrings(Arrays.asList(sourceFiles));
@@ -119,61 +155,37 @@ public class JavaxToolsCompiler implements InProcessCompiler {
                 Iterable<String> classes,
                 Iterable<? extends JavaFileObject> compilationUnits)*/
 
-                List<String> arguments = Arrays.asList(args);
-
-                JavaCompiler.CompilationTask task =
-                        compiler.getTask(null, standardFileManager, collector, arguments, null, fileObjects);
-                Boolean result = task.call();
-                List<CompilerMessage> compilerMsgs = new ArrayList<>();
-
-                for (Diagnostic<? extends JavaFileObject> diagnostic : collector.getDiagnostics()) {
-                    CompilerMessage.Kind kind = convertKind(diagnostic);
-
-                    String baseMessage;
-                    try {
-                        baseMessage = diagnostic.getMessage(Locale.getDefault());
-                    } catch (Throwable e) // ignore any possible error from jdk
-                    {
-                        // workaround for https://bugs.openjdk.java.net/browse/JDK-8210649
-                        // workaround for https://bugs.openjdk.java.net/browse/JDK-8216202
-                        log.debug(
-                                "Ignore Issue get JavaCompiler Diagnostic message (see https://bugs.openjdk.java.net/browse/JDK-8210649):"
-                                        + e.getMessage(),
-                                e);
-                        // in this case we try to replace the baseMessage with toString (hoping this does not throw a
-                        // new exception..
-                        baseMessage = diagnostic.toString();
-                    }
-                    if (baseMessage == null) {
-                        continue;
-                    }
-                    JavaFileObject source = diagnostic.getSource();
-                    String longFileName = source == null ? null : source.toUri().getPath();
-                    String shortFileName = source == null ? null : source.getName();
-                    String formattedMessage = baseMessage;
-                    int lineNumber = Math.max(0, (int) diagnostic.getLineNumber());
-                    int columnNumber = Math.max(0, (int) diagnostic.getColumnNumber());
-                    if (source != null && lineNumber > 0) {
-                        // Some compilers like to copy the file name into the message, which makes it appear twice.
-                        String possibleTrimming = longFileName + ":" + lineNumber + ": ";
-                        if (formattedMessage.startsWith(possibleTrimming)) {
-                            formattedMessage = formattedMessage.substring(possibleTrimming.length());
-                        } else {
-                            possibleTrimming = shortFileName + ":" + lineNumber + ": ";
-                            if (formattedMessage.startsWith(possibleTrimming)) {
-                                formattedMessage = formattedMessage.substring(possibleTrimming.length());
-                            }
-                        }
-                    }
-                    compilerMsgs.add(new CompilerMessage(
-                            longFileName, kind, lineNumber, columnNumber, lineNumber, columnNumber, formattedMessage));
+                List<String> arguments = getTaskOptions(Arrays.asList(args), config);
+
+                // the outputs of each source, if they are to be recorded in the manifest
+                Map<File, Set<File>> outputs = config.getOutputManifest() == null ? null : new ConcurrentHashMap<>();
+                JavaCompiler.CompilationTask task = compiler.getTask(
+                        null,
+                        outputs == null
+                                ? standardFileManager
+                                : OutputManifest.recordOutputs(standardFileManager, outputs),
+                        collector,
+                        arguments,
+                        null,
+                        fileObjects);
+                CompilerResult result = runTask(task, config, compilerMsgs);
+                if (outputs != null) {
+                    OutputManifest.update(config.getOutputManifest(), outputs, result.isSuccess());
                 }
-                if (result != Boolean.TRUE && compilerMsgs.isEmpty()) {
+
+                if (!result.isSuccess() && compilerMsgs.getMessages().isEmpty()) {
                     compilerMsgs.add(
                             new CompilerMessage("An unknown compilation problem occurred", CompilerMessage.Kind.ERROR));
                 }
 
-                return new CompilerResult(result, compilerMsgs);
+                return result.compilerMessages(compilerMsgs.getMessages());
+            } finally {
+                if (warmFileManager == null) {
+                    standardFileManager.close();
+                } else {
+                    warmFileManager.release(config);
+                    releaseWarmFileManager(warmFileManager);
+                }
             }
         } catch (Exception e) {
             throw new CompilerException(e.getMessage(), e);
@@ -182,6 +194,136 @@ public class JavaxToolsCompiler implements InProcessCompiler {
         }
     }
 
+    /**
+     * Returns the options of the compilation task, those of the command line by default.
+     *
+     * @param options the command line options
+     * @param config the configuration of the compilation
+     * @return the options to create the task with
+     * @since 2.17.1
+     */
+    protected List<String> getTaskOptions(List<String> options, CompilerConfiguration config) {
+        return options;
+    }
+
+    /**
+     * Runs the compilation task, timing it as the {@value #COMPILE_PHASE} phase. Messages are to be added to the
+     * collector, which the result is completed with.
+     *
+     * @param task the task to run
+     * @param config the configuration of the compilation
+     * @param messages the collector of the messages of the compilation
+     * @return the result of the task, without its messages
+     * @since 2.17.1
+     */
+    protected CompilerResult runTask(
+            JavaCompiler.CompilationTask task, CompilerConfiguration config, CompilerMessageCollector messages) {
+        long start = System.nanoTime();
+        boolean success = Boolean.TRUE.equals(task.call());
+        return new CompilerResult()
+                .success(success)
+                .phaseTiming(COMPILE_PHASE, Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    /**
+     * Takes a warm file manager for the compilation, closing those found stale on the way, or creates one.
+     */
+    private WarmFileManager takeWarmFileManager(JavaCompiler compiler, Charset sourceCharset, String[] args)
+            throws IOException {
+        for (WarmFileManager candidate : WARM_FILE_MANAGERS) {
+            if (!candidate.isFor(sourceCharset, args) || !WARM_FILE_MANAGERS.remove(candidate)) {
+                continue;
+            }
+            if (!candidate.isStale()) {
+                return candidate;
+            }
+            log.debug("Closing the warm file manager, one of its archives has changed");
+            candidate.close();
+        }
+        return WarmFileManager.create(compiler, sourceCharset, args);
+    }
+
+    /**
+     * Keeps a file manager warm for the next compilations, closing the least recently used one beyond the maximum.
+     */
+    private void releaseWarmFileManager(WarmFileManager warmFileManager) throws IOException {
+        WarmFileManager evicted = null;
+        synchronized (WARM_FILE_MANAGERS) {
+            WARM_FILE_MANAGERS.addFirst(warmFileManager);
+            if (WARM_FILE_MANAGERS.size() > getMaxWarmFileManagers()) {
+                evicted = WARM_FILE_MANAGERS.pollLast();
+            }
+        }
+        if (evicted != null) {
+            log.debug("Closing the least recently used warm file manager");
+            evicted.close();
+        }
+    }
+
+    int getWarmFileManagerCount() {
+        return WARM_FILE_MANAGERS.size();
+    }
+
+    private void report(Diagnostic<? extends JavaFileObject> diagnostic, CompilerMessageCollector compilerMsgs) {
+        CompilerMessage.Kind kind = convertKind(diagnostic);
+
+        String baseMessage;
+        try {
+            baseMessage = diagnostic.getMessage(Locale.getDefault());
+        } catch (Throwable e) // ignore any possible error from jdk
+        {
+            // workaround for https://bugs.openjdk.java.net/browse/JDK-8210649
+            // workaround for https://bugs.openjdk.java.net/browse/JDK-8216202
+            log.debug(
+                    "Ignore Issue get JavaCompiler Diagnostic message (see https://bugs.openjdk.java.net/browse/JDK-8210649):"
+                            + e.getMessage(),
+                    e);
+            // in this case we try to replace the baseMessage with toString (hoping this does not throw a
+            // new exception..
+            baseMessage = diagnostic.toString();
+        }
+        if (baseMessage == null) {
+            return;
+        }
+        JavaFileObject source = diagnostic.getSource();
+        String longFileName = source == null ? null : JavacDiagnosticsBridge.getPath(source);
+        String shortFileName = source == null ? null : source.getName();
+        String formattedMessage = baseMessage;
+        int lineNumber = Math.max(0, (int) diagnostic.getLineNumber());
+        int columnNumber = Math.max(0, (int) diagnostic.getColumnNumber());
+        if (source != null && lineNumber > 0) {
+            // Some compilers like to copy the file name into the message, which makes it appear twice.
+            String possibleTrimming = longFileName + ":" + lineNumber + ": ";
+            if (formattedMessage.startsWith(possibleTrimming)) {
+                formattedMessage = formattedMessage.substring(possibleTrimming.length());
+            } else {
+                possibleTrimming = shortFileName + ":" + lineNumber + ": ";
+                if (formattedMessage.startsWith(possibleTrimming)) {
+                    formattedMessage = formattedMessage.substring(possibleTrimming.length());
+                }
+            }
+        }
+        String code = diagnostic.getCode();
+        // the category is taken from the text of the diagnostic, only for the suppressions or the messages kept
+        boolean categoryKnown = compilerMsgs.hasSuppressions();
+        String category = categoryKnown ? JavacDiagnosticsBridge.getLintCategory(diagnostic) : null;
+        if (!compilerMsgs.accepts(kind, code, category, longFileName, formattedMessage)) {
+            return;
+        }
+        if (!categoryKnown) {
+            category = JavacDiagnosticsBridge.getLintCategory(diagnostic);
+        }
+        long startPosition = diagnostic.getStartPosition();
+        long endPosition = diagnostic.getEndPosition();
+        compilerMsgs.add(new CompilerMessage(
+                        longFileName, kind, lineNumber, columnNumber, lineNumber, columnNumber, formattedMessage)
+                .code(code)
+                .category(category)
+                .offsets(
+                        startPosition == Diagnostic.NOPOS ? -1 : (int) startPosition,
+                        endPosition == Diagnostic.NOPOS ? -1 : (int) endPosition));
+    }
+
     private CompilerMessage.Kind convertKind(Diagnostic<? extends JavaFileObject> diagnostic) {
         CompilerMessage.Kind kind;
         switch (diagnostic.getKind()) {
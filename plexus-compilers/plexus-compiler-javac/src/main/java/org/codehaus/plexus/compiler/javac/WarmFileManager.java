@@ -0,0 +1,192 @@
+package org.codehaus.plexus.compiler.javac;
+
+/*
+ * Copyright 2026 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticListener;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.codehaus.plexus.compiler.CompilerConfiguration;
+
+/**
+ * A file manager kept open between in-process compilations, so that the JDK image and the archives of their class
+ * paths are opened and indexed once, rather than once per compilation.
+ * <p>
+ * javac sets the locations of the file manager from the options of each compilation, and a location once set cannot be
+ * unset, as resetting it to its default still counts as setting it. A file manager is therefore only reused by
+ * compilations setting the same locations as the first one using it, which overwrite all of them, so that nothing of
+ * one compilation is seen by the next. It is used by one compilation at a time, and is not reused once one of the
+ * archives it may have cached has changed, as the jar of a module built earlier in the same build does.
+ */
+final class WarmFileManager implements Closeable {
+    /** The options setting a location, each with its aliases, the first one standing for all of them. */
+    private static final String[][] LOCATION_OPTIONS = {
+        {"-d"},
+        {"-s"},
+        {"-h"},
+        {"-classpath", "-cp", "--class-path"},
+        {"-sourcepath", "--source-path"},
+        {"-processorpath", "--processor-path"},
+        {"--processor-module-path"},
+        {"-bootclasspath", "--boot-class-path"},
+        {"-Xbootclasspath/p:"},
+        {"-Xbootclasspath/a:"},
+        {"-extdirs", "--extension-directories"},
+        {"-endorseddirs", "--endorsed-dirs"},
+        {"--module-path", "-p"},
+        {"--module-source-path"},
+        {"--upgrade-module-path"},
+        {"--patch-module"},
+        {"--system"},
+        {"--release"}
+    };
+
+    private final StandardJavaFileManager fileManager;
+
+    private final Charset charset;
+
+    private final Set<String> locationOptions;
+
+    private final ForwardingListener listener;
+
+    /** The length and modification time of each archive the file manager may have cached. */
+    private final Map<File, List<Long>> archives = new HashMap<>();
+
+    private WarmFileManager(JavaCompiler compiler, Charset charset, Set<String> locationOptions) {
+        this.charset = charset;
+        this.locationOptions = locationOptions;
+        this.listener = new ForwardingListener();
+        this.fileManager = compiler.getStandardFileManager(listener, null, charset);
+    }
+
+    /**
+     * @param compiler the compiler of the file manager
+     * @param charset  the encoding of the sources
+     * @param args     the arguments of the compilation to use the file manager first
+     */
+    static WarmFileManager create(JavaCompiler compiler, Charset charset, String[] args) {
+        return new WarmFileManager(compiler, charset, getLocationOptions(args));
+    }
+
+    /**
+     * @return whether this file manager can be used by a compilation of sources in the given encoding and with the
+     *         given arguments
+     */
+    boolean isFor(Charset charset, String[] args) {
+        return Objects.equals(this.charset, charset) && locationOptions.equals(getLocationOptions(args));
+    }
+
+    /**
+     * @return whether one of the archives this file manager may have cached has changed since
+     */
+    boolean isStale() {
+        for (Map.Entry<File, List<Long>> archive : archives.entrySet()) {
+            if (!archive.getValue().equals(fingerprint(archive.getKey()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param listener the listener of the diagnostics of the file manager, until {@link #release}
+     * @return the file manager, for one compilation
+     */
+    StandardJavaFileManager acquire(DiagnosticListener<? super JavaFileObject> listener) {
+        this.listener.delegate = listener;
+        return fileManager;
+    }
+
+    /**
+     * Releases the file manager once a compilation is over, remembering the archives it may have cached.
+     */
+    void release(CompilerConfiguration config) {
+        listener.delegate = null;
+        for (String path :
+                concat(config.getClasspathEntries(), config.getProcessorPathEntries(), config.getModulepathEntries())) {
+            File file = new File(path);
+            if (file.isFile()) {
+                archives.put(file, fingerprint(file));
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        fileManager.close();
+    }
+
+    static Set<String> getLocationOptions(String[] args) {
+        Set<String> options = new TreeSet<>();
+        for (String arg : args) {
+            for (String[] aliases : LOCATION_OPTIONS) {
+                for (String alias : aliases) {
+                    boolean prefix = alias.endsWith(":");
+                    if (prefix ? arg.startsWith(alias) : arg.equals(alias) || arg.startsWith(alias + "=")) {
+                        options.add(aliases[0]);
+                    }
+                }
+            }
+        }
+        return options;
+    }
+
+    private static List<Long> fingerprint(File file) {
+        return Arrays.asList(file.length(), file.lastModified());
+    }
+
+    @SafeVarargs
+    private static List<String> concat(List<String>... lists) {
+        List<String> all = new ArrayList<>();
+        for (List<String> list : lists) {
+            if (list != null) {
+                all.addAll(list);
+            }
+        }
+        return all;
+    }
+
+    /**
+     * The listener given to the file manager once for all, forwarding to that of the current compilation.
+     */
+    private static final class ForwardingListener implements DiagnosticListener<JavaFileObject> {
+        private volatile DiagnosticListener<? super JavaFileObject> delegate;
+
+        @Override
+        public void report(Diagnostic<? extends JavaFileObject> diagnostic) {
+            DiagnosticListener<? super JavaFileObject> current = delegate;
+            if (current != null) {
+                current.report(diagnostic);
+            }
+        }
+    }
+}
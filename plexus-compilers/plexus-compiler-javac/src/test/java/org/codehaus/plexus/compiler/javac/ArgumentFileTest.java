@@ -0,0 +1,85 @@
+package org.codehaus.plexus.compiler.javac;
+
+/*
+ * Copyright 2026 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ArgumentFileTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testSameArgumentsShareOneFileUntilTheLastIsClosed() throws Exception {
+        List<String> arguments = Arrays.asList("-d", "C:\\classes dir", "say \"hello\"", "-Akey=line1\nline2");
+
+        ArgumentFile first = ArgumentFile.write(arguments, tempDir, false);
+        ArgumentFile second = ArgumentFile.write(arguments, tempDir, false);
+        ArgumentFile other = ArgumentFile.write(Arrays.asList("-g"), tempDir, false);
+
+        assertEquals(first.getPath(), second.getPath());
+        assertNotEquals(first.getPath(), other.getPath());
+        List<String> lines = Files.readAllLines(first.getPath(), Charset.defaultCharset());
+        assertEquals(
+                arguments, lines.stream().map(JavacDiagnosticsBridge::unquote).collect(Collectors.toList()));
+
+        first.close();
+        first.close();
+        assertTrue(Files.exists(second.getPath()));
+        second.close();
+        assertFalse(Files.exists(second.getPath()));
+        other.close();
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    public void testKeptFileIsReused() throws Exception {
+        List<String> arguments = Arrays.asList("-g", "-nowarn");
+
+        ArgumentFile kept = ArgumentFile.write(arguments, tempDir.resolve("target"), true);
+        kept.close();
+        assertTrue(Files.exists(kept.getPath()));
+        Files.setLastModifiedTime(kept.getPath(), FileTime.fromMillis(1000));
+
+        try (ArgumentFile reused = ArgumentFile.write(arguments, tempDir.resolve("target"), true)) {
+            assertEquals(kept.getPath(), reused.getPath());
+            assertEquals(1000, Files.getLastModifiedTime(reused.getPath()).toMillis());
+        }
+    }
+
+    @Test
+    public void testQuotedInBulkUnlessEscaped() {
+        assertEquals("\"-Xlint:all\"", JavacCompiler.quoteArgument("-Xlint:all"));
+        assertEquals("\"a\\\\b\\tc\\\"\"", JavacCompiler.quoteArgument("a\\b\tc\""));
+    }
+}
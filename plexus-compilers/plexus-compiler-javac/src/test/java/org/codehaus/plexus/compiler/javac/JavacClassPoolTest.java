@@ -0,0 +1,64 @@
+package org.codehaus.plexus.compiler.javac;
+
+/*
+ * Copyright 2026 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import javax.tools.ToolProvider;
+
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class JavacClassPoolTest {
+    @TempDir
+    Path tools;
+
+    @Test
+    public void testPoolsAreSharedPerClassLoaderAndUrls() throws Exception {
+        // a main class only found in the "tools.jar" directory, which the system class loader does not see
+        Path source = tools.resolve("Main.java");
+        Files.write(source, "public class Main {}".getBytes(StandardCharsets.UTF_8));
+        assertEquals(0, ToolProvider.getSystemJavaCompiler().run(null, null, null, source.toString()));
+        File toolsJar = tools.toFile();
+
+        try (URLClassLoader loader = new URLClassLoader(new URL[0], null);
+                URLClassLoader other = new URLClassLoader(new URL[0], null)) {
+            JavacClassPool pool = JavacClassPool.get(loader, toolsJar, "Main");
+            assertSame(pool, JavacClassPool.get(loader, toolsJar, "Main"));
+            assertNotSame(pool, JavacClassPool.get(other, toolsJar, "Main"));
+
+            Class<?> shared = pool.getShared(pool::load);
+            assertSame(shared, pool.getShared(pool::load));
+            assertNotSame(shared, pool.load());
+
+            Class<?> taken = pool.take(pool::load);
+            assertNotSame(shared, taken);
+            assertNotSame(taken, pool.take(pool::load));
+            pool.release(taken);
+            assertSame(taken, pool.take(pool::load));
+        }
+    }
+}
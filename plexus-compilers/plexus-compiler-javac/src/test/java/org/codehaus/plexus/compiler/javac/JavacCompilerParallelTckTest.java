@@ -0,0 +1,9 @@
+package org.codehaus.plexus.compiler.javac;
+
+import org.codehaus.plexus.compiler.AbstractCompilerParallelTckTest;
+
+public class JavacCompilerParallelTckTest extends AbstractCompilerParallelTckTest {
+    public JavacCompilerParallelTckTest() {
+        this.roleHint = "javac";
+    }
+}
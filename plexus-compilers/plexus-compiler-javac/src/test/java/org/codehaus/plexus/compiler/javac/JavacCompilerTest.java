@@ -1,20 +1,34 @@
 package org.codehaus.plexus.compiler.javac;
 
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
 import java.io.StringReader;
+import java.net.URI;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.TreeSet;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import org.codehaus.plexus.compiler.CompilerConfiguration;
 import org.codehaus.plexus.compiler.CompilerMessage;
+import org.codehaus.plexus.compiler.CompilerMessageCollector;
+import org.codehaus.plexus.compiler.CompilerMessageSuppression;
 import org.codehaus.plexus.compiler.CompilerResult;
 import org.codehaus.plexus.compiler.javac.JavacCompiler.JavaVersion;
+import org.codehaus.plexus.util.Os;
+import org.junit.jupiter.api.Assumptions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
@@ -26,6 +40,8 @@ import static org.codehaus.plexus.compiler.javac.JavacCompiler.Messages.*;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /*
@@ -109,6 +125,35 @@ public class JavacCompilerTest extends AbstractJavacCompilerTest {
                 Arguments.of("JDK 21 German", ANNOTATION_PROCESSING_ERROR_HEADERS[6]));
     }
 
+    @Test
+    void testParseModernStream_aggregatesWarnings() throws IOException {
+        StringBuilder output = new StringBuilder();
+        for (int i = 1; i <= 3; i++) {
+            output.append("/src/Foo.java:")
+                    .append(i)
+                    .append(": warning: [deprecation] bar")
+                    .append(i)
+                    .append("() in Bar has been deprecated\n")
+                    .append("        bar")
+                    .append(i)
+                    .append("();\n")
+                    .append("        ^\n");
+        }
+        output.append("/src/Foo.java:4: warning: [rawtypes] found raw type: List\n")
+                .append("        List items;\n")
+                .append("        ^\n")
+                .append("4 warnings\n");
+
+        List<CompilerMessage> messages = JavacCompiler.parseModernStream(
+                0, new BufferedReader(new StringReader(output.toString())), new CompilerMessageCollector(true));
+
+        assertEquals(2, messages.size());
+        assertEquals(1, messages.get(0).getStartLine());
+        assertEquals(3, messages.get(0).getOccurrences());
+        assertEquals(1, messages.get(1).getOccurrences());
+        assertSame(messages.get(0).getFile(), messages.get(1).getFile());
+    }
+
     @Test
     void testJavaVersionPrefixes() {
         assertFalse(JavaVersion.JAVA_1_4.isOlderOrEqualTo("1.3"));
@@ -120,6 +165,31 @@ public class JavacCompilerTest extends AbstractJavacCompilerTest {
         assertTrue(JavaVersion.JAVA_1_8.isOlderOrEqualTo("unknown"));
     }
 
+    @Test
+    void testExecutableKeyResolvesLinks(@TempDir Path tempDir) throws IOException {
+        Path javac = Files.createDirectories(tempDir.resolve("jdk/bin")).resolve("javac");
+        Files.write(javac, "javac".getBytes(StandardCharsets.UTF_8));
+        Path link = Files.createDirectories(tempDir.resolve("alternatives")).resolve("javac");
+        try {
+            Files.createSymbolicLink(link, javac);
+        } catch (UnsupportedOperationException | IOException e) {
+            Assumptions.abort("symbolic links are not supported: " + e);
+        }
+
+        // no release file, no telling which JDK the executable belongs to
+        assertNull(JavacCompiler.getExecutableKey(javac.toString()));
+
+        Files.write(tempDir.resolve("jdk/release"), "JAVA_VERSION=\"17\"".getBytes(StandardCharsets.UTF_8));
+        String key = JavacCompiler.getExecutableKey(javac.toString());
+        assertNotNull(key);
+        assertEquals(key, JavacCompiler.getExecutableKey(link.toString()));
+        assertTrue(key.startsWith(javac.toRealPath().toString() + '|'), key);
+
+        assertNull(JavacCompiler.getExecutableKey(
+                tempDir.resolve("jdk/bin/missing").toString()));
+        assertNull(JavacCompiler.getExecutableKey("no-such-javac-on-the-path"));
+    }
+
     @Test
     void testExtractMajorAndMinorVersion() {
         assertEquals("11.0", JavacCompiler.extractMajorAndMinorVersion("javac 11.0.22"));
@@ -153,18 +223,400 @@ public class JavacCompilerTest extends AbstractJavacCompilerTest {
         assertEquals(inProcessMessage.getMessage(), forkedMessage.getMessage());
     }
 
+    @Test
+    void testSuppressedWarningsAreNotReported(@TempDir Path tempDirectory) throws Exception {
+        Path sourceDirectory = tempDirectory.resolve("src");
+        Files.createDirectories(sourceDirectory);
+        Files.write(
+                sourceDirectory.resolve("Test.java"),
+                Arrays.asList("import java.util.*;", "class Test {", "  List raw() { return new ArrayList(); }", "}"),
+                StandardCharsets.UTF_8);
+
+        for (boolean fork : new boolean[] {false, true}) {
+            CompilerResult result = compileWithRawTypes(tempDirectory, sourceDirectory, fork, false);
+            assertEquals(2, result.getCompilerMessages().size(), "fork=" + fork);
+            assertEquals("rawtypes", result.getCompilerMessages().get(0).getCategory());
+
+            result = compileWithRawTypes(tempDirectory, sourceDirectory, fork, true);
+            assertTrue(result.isSuccess());
+            assertEquals(0, result.getCompilerMessages().size(), "fork=" + fork);
+        }
+    }
+
+    @Test
+    void testForkedOutputIsSpilledAndTruncated(@TempDir Path tempDirectory) throws Exception {
+        Path sourceDirectory = tempDirectory.resolve("src");
+        Files.createDirectories(sourceDirectory);
+        Files.write(
+                sourceDirectory.resolve("Test.java"),
+                Arrays.asList("import java.util.*;", "class Test {", "  List raw() { return new ArrayList(); }", "}"),
+                StandardCharsets.UTF_8);
+
+        CompilerConfiguration configuration = rawTypesConfiguration(tempDirectory, sourceDirectory, true, false);
+        configuration.setOutputMemoryLimit(0);
+        CompilerResult result = getCompiler().performCompile(configuration);
+        assertEquals(2, result.getCompilerMessages().size());
+        assertFalse(result.isOutputTruncated());
+
+        configuration = rawTypesConfiguration(tempDirectory, sourceDirectory, true, false);
+        configuration.setOutputLimit(0);
+        result = getCompiler().performCompile(configuration);
+        assertTrue(result.isSuccess());
+        assertTrue(result.isOutputTruncated());
+        assertEquals(1, result.getCompilerMessages().size());
+        assertEquals(
+                CompilerMessage.Kind.OTHER, result.getCompilerMessages().get(0).getKind());
+        assertEquals(
+                result.getDiscardedOutputLines()
+                        + " more lines of compiler output not parsed, beyond the limit of 0 characters",
+                result.getCompilerMessages().get(0).getMessage());
+    }
+
+    private CompilerResult compileWithRawTypes(
+            Path tempDirectory, Path sourceDirectory, boolean fork, boolean suppressRawTypes) throws Exception {
+        return getCompiler()
+                .performCompile(rawTypesConfiguration(tempDirectory, sourceDirectory, fork, suppressRawTypes));
+    }
+
+    private static CompilerConfiguration rawTypesConfiguration(
+            Path tempDirectory, Path sourceDirectory, boolean fork, boolean suppressRawTypes) {
+        CompilerConfiguration configuration = new CompilerConfiguration();
+        configuration.setFork(fork);
+        configuration.setWorkingDirectory(tempDirectory.toFile());
+        configuration.setBuildDirectory(tempDirectory.resolve("build").toFile());
+        configuration.setOutputLocation(tempDirectory.resolve("build/classes").toString());
+        configuration.addSourceLocation(sourceDirectory.toString());
+        configuration.setSourceVersion("8");
+        configuration.setTargetVersion("8");
+        configuration.addCompilerCustomArgument("-Xlint:-options", null);
+        configuration.addCompilerCustomArgument("-Xlint:rawtypes", null);
+        configuration.setShowWarnings(true);
+        if (suppressRawTypes) {
+            configuration.addMessageSuppression(new CompilerMessageSuppression(null, "rawtypes", null, null));
+        }
+        return configuration;
+    }
+
+    @Test
+    void testStructuredDiagnosticsHaveExactPositions(@TempDir Path tempDirectory) throws Exception {
+        Path sourceDirectory = tempDirectory.resolve("src");
+        Files.createDirectories(sourceDirectory);
+        Files.write(
+                sourceDirectory.resolve("Test.java"),
+                Arrays.asList("class Test {", "  Object foo() {", "    return undefined;", "  }", "}"),
+                StandardCharsets.UTF_8);
+
+        CompilerResult parsed = compile(tempDirectory, sourceDirectory, true);
+        CompilerResult structured = compile(tempDirectory, sourceDirectory, true, true);
+
+        assertFalse(structured.isSuccess());
+        assertEquals(1, structured.getCompilerMessages().size());
+        CompilerMessage parsedMessage = parsed.getCompilerMessages().get(0);
+        CompilerMessage message = structured.getCompilerMessages().get(0);
+        assertEquals(CompilerMessage.Kind.ERROR, message.getKind());
+        assertEquals("Test.java", getFileName(message.getFile()));
+        assertEquals(3, message.getStartLine());
+        assertEquals(12, message.getStartColumn());
+        assertEquals(3, message.getEndLine());
+        // "undefined" ends at column 20, which javac output only gives as the start column
+        assertEquals(20, message.getEndColumn());
+        assertNull(message.getCategory());
+        assertEquals("compiler.err.cant.resolve.location", message.getCode());
+        assertEquals(41, message.getStartOffset());
+        assertEquals(50, message.getEndOffset());
+        assertEquals(parsedMessage.getStartColumn(), message.getStartColumn());
+        assertTrue(message.getMessage().startsWith(parsedMessage.getMessage().split("\\R")[0]));
+    }
+
+    @Test
+    void testStructuredDiagnosticsNeedJava8(@TempDir Path tempDirectory) throws Exception {
+        Assumptions.assumeFalse(Os.isFamily(Os.FAMILY_WINDOWS), "the fake JDK is made of shell scripts");
+        Path bin = Files.createDirectories(tempDirectory.resolve("jdk7/bin"));
+        Path calls = tempDirectory.resolve("calls");
+        Path javac = bin.resolve("javac");
+        Files.write(
+                javac,
+                Arrays.asList(
+                        "#!/bin/sh",
+                        "if [ \"$1\" = \"-version\" ]; then echo 'javac 1.7.0_80' >&2; exit 0; fi",
+                        "echo javac >> '" + calls + "'"),
+                StandardCharsets.UTF_8);
+        Path java = bin.resolve("java");
+        Files.write(java, Arrays.asList("#!/bin/sh", "echo java >> '" + calls + "'", "exit 1"), StandardCharsets.UTF_8);
+        assertTrue(javac.toFile().setExecutable(true));
+        assertTrue(java.toFile().setExecutable(true));
+        Path sourceDirectory = Files.createDirectories(tempDirectory.resolve("src"));
+        Files.write(sourceDirectory.resolve("Test.java"), Arrays.asList("class Test {}"), StandardCharsets.UTF_8);
+
+        CompilerConfiguration configuration = new CompilerConfiguration();
+        configuration.setFork(true);
+        configuration.setExecutable(javac.toString());
+        configuration.setStructuredDiagnostics(true);
+        configuration.setWorkingDirectory(tempDirectory.toFile());
+        configuration.setBuildDirectory(tempDirectory.resolve("target").toFile());
+        configuration.setOutputLocation(
+                tempDirectory.resolve("target/classes").toAbsolutePath().toString());
+        configuration.addSourceLocation(sourceDirectory.toString());
+
+        CompilerResult result = getCompiler().performCompile(configuration);
+
+        // the bridge is not run on a JDK older than the Java version it is compiled for
+        assertTrue(result.isSuccess(), result.getCompilerMessages()::toString);
+        assertEquals(Arrays.asList("javac"), Files.readAllLines(calls, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testLegacyInProcessCompileOverrideIsStillCalled() throws Exception {
+        CompilerResult legacy = new CompilerResult();
+        JavacCompiler compiler = new JavacCompiler() {
+            @Override
+            @Deprecated
+            protected CompilerResult compileInProcessWithProperClassloader(Class<?> javacClass, String[] args) {
+                return legacy;
+            }
+        };
+
+        assertSame(legacy, compiler.compileInProcess(new String[0], new CompilerConfiguration()));
+    }
+
+    @Test
+    void testOverriddenCreateJavacClassSuppliesJavac() throws Exception {
+        assertEquals(2, countCreatedJavacClasses(CompilerConfiguration.CompilerReuseStrategy.AlwaysNew));
+        assertEquals(1, countCreatedJavacClasses(CompilerConfiguration.CompilerReuseStrategy.ReuseCreated));
+        assertEquals(1, countCreatedJavacClasses(CompilerConfiguration.CompilerReuseStrategy.ReuseSame));
+    }
+
+    /**
+     * @return how many javac classes two compilations create with the given strategy, all supplied by the override
+     */
+    private static int countCreatedJavacClasses(CompilerConfiguration.CompilerReuseStrategy strategy) throws Exception {
+        List<Class<?>> created = new ArrayList<>();
+        JavacCompiler compiler = new JavacCompiler() {
+            @Override
+            protected Class<?> createJavacClass() {
+                // any class stands in for javac, as the compilation is overridden too
+                created.add(Object.class);
+                return Object.class;
+            }
+
+            @Override
+            @Deprecated
+            protected CompilerResult compileInProcessWithProperClassloader(Class<?> javacClass, String[] args) {
+                assertSame(Object.class, javacClass);
+                return new CompilerResult();
+            }
+        };
+        CompilerConfiguration config = new CompilerConfiguration();
+        config.setCompilerReuseStrategy(strategy);
+
+        compiler.compileInProcess(new String[0], config);
+        compiler.compileInProcess(new String[0], config);
+        return created.size();
+    }
+
+    @Test
+    void testParseDiagnosticRecord() {
+        CompilerMessage message = JavacCompiler.parseDiagnosticRecord(String.join(
+                "\t",
+                JavacDiagnosticsBridge.RECORD,
+                "MANDATORY_WARNING",
+                "/src/T\\u00e9st.java",
+                "2",
+                "5",
+                "3",
+                "1",
+                "compiler.warn.unchecked.call.mbr.of.raw.type",
+                "unchecked",
+                "27",
+                "40",
+                "[unchecked] unchecked call\\n  on raw type\\tList"));
+        assertEquals(CompilerMessage.Kind.MANDATORY_WARNING, message.getKind());
+        assertEquals("/src/T\u00e9st.java", message.getFile());
+        assertEquals(2, message.getStartLine());
+        assertEquals(5, message.getStartColumn());
+        assertEquals(3, message.getEndLine());
+        assertEquals(1, message.getEndColumn());
+        assertEquals("compiler.warn.unchecked.call.mbr.of.raw.type", message.getCode());
+        assertEquals("unchecked", message.getCategory());
+        assertEquals(27, message.getStartOffset());
+        assertEquals(40, message.getEndOffset());
+        assertEquals("[unchecked] unchecked call\n  on raw type\tList", message.getMessage());
+
+        message = JavacCompiler.parseDiagnosticRecord(String.join(
+                "\t", JavacDiagnosticsBridge.RECORD, "NOTE", "", "0", "0", "0", "0", "", "", "-1", "-1", "note"));
+        assertEquals(CompilerMessage.Kind.NOTE, message.getKind());
+        assertNull(message.getFile());
+        assertNull(message.getCode());
+        assertNull(message.getCategory());
+        assertEquals(-1, message.getStartOffset());
+    }
+
+    @Test
+    void testLintCategory() {
+        assertEquals("deprecation", JavacCompiler.getLintCategory("[deprecation] foo() in Bar has been deprecated"));
+        assertEquals("options", JavacCompiler.getLintCategory("[options] bootstrap class path not set"));
+        assertNull(JavacCompiler.getLintCategory("cannot find symbol"));
+        assertNull(JavacCompiler.getLintCategory("[a b] c"));
+        assertNull(JavacCompiler.getLintCategory("[]"));
+    }
+
+    @ParameterizedTest
+    @MethodSource("quoteArgumentArguments")
+    void testBridgeUnquotesArguments(String description, String argument, String quoted) {
+        assertEquals(argument, JavacDiagnosticsBridge.unquote(JavacCompiler.quoteArgument(argument)));
+        assertEquals(argument, JavacDiagnosticsBridge.unescape(JavacDiagnosticsBridge.escape(argument)));
+    }
+
+    @Test
+    void testBridgeLineIndex() {
+        int[] lineStarts = JavacDiagnosticsBridge.computeLineStarts("ab\ncd\r\nef\rg");
+        assertEquals(
+                Arrays.asList(0, 3, 7, 10), Arrays.stream(lineStarts).boxed().collect(Collectors.toList()));
+        assertEquals(0, JavacDiagnosticsBridge.lineIndex(lineStarts, 0));
+        assertEquals(0, JavacDiagnosticsBridge.lineIndex(lineStarts, 2));
+        assertEquals(1, JavacDiagnosticsBridge.lineIndex(lineStarts, 3));
+        assertEquals(2, JavacDiagnosticsBridge.lineIndex(lineStarts, 9));
+        assertEquals(3, JavacDiagnosticsBridge.lineIndex(lineStarts, 10));
+    }
+
+    @Test
+    void testBridgePath(@TempDir Path tempDirectory) {
+        Path file = tempDirectory.resolve("Foo.java");
+        assertEquals(
+                file.toString(),
+                JavacDiagnosticsBridge.getPath(new SimpleJavaFileObject(file.toUri(), JavaFileObject.Kind.SOURCE) {}));
+        assertEquals(
+                "/Foo.java",
+                JavacDiagnosticsBridge.getPath(
+                        new SimpleJavaFileObject(URI.create("string:///Foo.java"), JavaFileObject.Kind.SOURCE) {}));
+    }
+
+    @Test
+    void testWarmContextSeesChangedArchives(@TempDir Path tempDirectory) throws Exception {
+        Path sourceDirectory = tempDirectory.resolve("src");
+        Files.createDirectories(sourceDirectory);
+        Files.write(
+                sourceDirectory.resolve("Test.java"),
+                Arrays.asList("class Test {", "  void test() { lib.Lib.a(); }", "}"),
+                StandardCharsets.UTF_8);
+        Path jar = tempDirectory.resolve("lib.jar");
+
+        writeLibrary(tempDirectory, jar, "public static void a() {}");
+        CompilerResult first = compileWarm(tempDirectory, sourceDirectory, jar);
+        assertTrue(first.isSuccess(), first.getCompilerMessages().toString());
+        CompilerResult second = compileWarm(tempDirectory, sourceDirectory, jar);
+        assertTrue(second.isSuccess(), second.getCompilerMessages().toString());
+
+        // as when a module is rebuilt earlier in the same build
+        writeLibrary(tempDirectory, jar, "public static void b() {}");
+        jar.toFile().setLastModified(jar.toFile().lastModified() + 2000);
+        CompilerResult result = compileWarm(tempDirectory, sourceDirectory, jar);
+        assertFalse(result.isSuccess());
+        assertEquals(
+                "compiler.err.cant.resolve.location.args",
+                result.getCompilerMessages().get(0).getCode());
+    }
+
+    @Test
+    void testLostInProcessOutputFailsTheCompilation(@TempDir Path tempDirectory) throws Exception {
+        Path sourceDirectory = tempDirectory.resolve("src");
+        Files.createDirectories(sourceDirectory);
+        Files.write(
+                sourceDirectory.resolve("Test.java"),
+                Arrays.asList("class Test {", "  void test() { unknown(); }", "}"),
+                StandardCharsets.UTF_8);
+        // the capture cannot spill to a build directory which is a file
+        Path buildFile = Files.createFile(tempDirectory.resolve("build"));
+
+        CompilerConfiguration configuration = new CompilerConfiguration();
+        configuration.setForceJavacCompilerUse(true);
+        configuration.setWorkingDirectory(tempDirectory.toFile());
+        configuration.setBuildDirectory(buildFile.toFile());
+        configuration.setOutputLocation(tempDirectory.resolve("classes").toString());
+        configuration.addSourceLocation(sourceDirectory.toString());
+        configuration.setOutputMemoryLimit(1);
+        CompilerResult result = getCompiler().performCompile(configuration);
+
+        assertFalse(result.isSuccess());
+        assertTrue(
+                result.getCompilerMessages().stream()
+                        .anyMatch(message ->
+                                message.isError() && message.getMessage().contains("could not be captured entirely")),
+                result.getCompilerMessages().toString());
+    }
+
+    @Test
+    void testWarmContextKeepsTheNameTableUnshared() throws Exception {
+        CompilerConfiguration configuration = new CompilerConfiguration();
+        configuration.setCompilerReuseStrategy(CompilerConfiguration.CompilerReuseStrategy.ReuseSame);
+        configuration.setWarmContext(true);
+        configuration.setOutputLocation("target/classes");
+
+        assertTrue(Arrays.asList(JavacCompiler.buildCompilerArguments(configuration, new String[0], "17"))
+                .contains("-XDuseUnsharedTable=true"));
+    }
+
+    @Test
+    void testWarmFileManagerLocationOptions() {
+        assertEquals(
+                new TreeSet<>(Arrays.asList("-classpath", "-d", "-Xbootclasspath/a:", "--module-path")),
+                WarmFileManager.getLocationOptions(new String[] {
+                    "-d", "out", "--class-path", "a.jar", "-Xbootclasspath/a:b.jar", "--module-path=c", "-g", "-cp"
+                }));
+    }
+
+    private CompilerResult compileWarm(Path tempDirectory, Path sourceDirectory, Path jar) throws Exception {
+        CompilerConfiguration configuration = new CompilerConfiguration();
+        configuration.setCompilerReuseStrategy(CompilerConfiguration.CompilerReuseStrategy.ReuseSame);
+        configuration.setWarmContext(true);
+        configuration.setWorkingDirectory(tempDirectory.toFile());
+        configuration.setBuildDirectory(tempDirectory.resolve("build").toFile());
+        configuration.setOutputLocation(tempDirectory.resolve("build/classes").toString());
+        configuration.addSourceLocation(sourceDirectory.toString());
+        configuration.addClasspathEntry(jar.toString());
+        configuration.setSourceVersion("8");
+        configuration.setTargetVersion("8");
+        configuration.addCompilerCustomArgument("-Xlint:-options", null);
+        return getCompiler().performCompile(configuration);
+    }
+
+    private static void writeLibrary(Path tempDirectory, Path jar, String method) throws IOException {
+        Path sources = tempDirectory.resolve("lib-src/lib");
+        Path classes = tempDirectory.resolve("lib-classes");
+        Files.createDirectories(sources);
+        Files.createDirectories(classes);
+        Path source = sources.resolve("Lib.java");
+        Files.write(source, Arrays.asList("package lib;", "public class Lib {", method, "}"), StandardCharsets.UTF_8);
+        assertEquals(
+                0,
+                ToolProvider.getSystemJavaCompiler()
+                        .run(null, null, null, "-d", classes.toString(), source.toString()));
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar))) {
+            out.putNextEntry(new JarEntry("lib/Lib.class"));
+            Files.copy(classes.resolve("lib/Lib.class"), out);
+            out.closeEntry();
+        }
+    }
+
     private static String getFileName(String path) {
         int separator = Math.max(path.lastIndexOf('/'), path.lastIndexOf('\\'));
         return path.substring(separator + 1);
     }
 
     private CompilerResult compile(Path tempDirectory, Path sourceDirectory, boolean fork) throws Exception {
-        File buildDirectory =
-                tempDirectory.resolve(fork ? "forked" : "in-process").toFile();
+        return compile(tempDirectory, sourceDirectory, fork, false);
+    }
+
+    private CompilerResult compile(
+            Path tempDirectory, Path sourceDirectory, boolean fork, boolean structuredDiagnostics) throws Exception {
+        File buildDirectory = tempDirectory
+                .resolve(structuredDiagnostics ? "structured" : fork ? "forked" : "in-process")
+                .toFile();
         Files.createDirectories(buildDirectory.toPath());
 
         CompilerConfiguration configuration = new CompilerConfiguration();
         configuration.setFork(fork);
+        configuration.setStructuredDiagnostics(structuredDiagnostics);
         configuration.setWorkingDirectory(tempDirectory.toFile());
         configuration.setBuildDirectory(buildDirectory);
         configuration.setOutputLocation(new File(buildDirectory, "classes").getAbsolutePath());
@@ -0,0 +1,9 @@
+package org.codehaus.plexus.compiler.javac;
+
+import org.codehaus.plexus.compiler.AbstractContinuousCompilerTest;
+
+public class JavacContinuousCompilerTest extends AbstractContinuousCompilerTest {
+    public JavacContinuousCompilerTest() {
+        this.roleHint = "javac";
+    }
+}
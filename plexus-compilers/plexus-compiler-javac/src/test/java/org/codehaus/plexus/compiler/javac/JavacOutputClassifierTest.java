@@ -0,0 +1,114 @@
+package org.codehaus.plexus.compiler.javac;
+
+/*
+ * Copyright 2026 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.regex.Pattern;
+
+import org.codehaus.plexus.compiler.javac.JavacOutputClassifier.LineType;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class JavacOutputClassifierTest {
+    /** The expressions the classifier replaces, which it must agree with. */
+    private static final Pattern STACK_TRACE_FIRST_LINE = Pattern.compile("^(?:[\\w+.-]+\\.)[\\w$]*?(?:"
+            + "Exception|Error|Throwable|Failure|Result|Abort|Fault|ThreadDeath|Overflow|Warning|"
+            + "NotSupported|NotFound|BadArgs|BadClassFile|Illegal|Invalid|Unexpected|Unchecked|Unmatched\\w+"
+            + ").*$");
+
+    private static final Pattern STACK_TRACE_OTHER_LINE =
+            Pattern.compile("^(?:Caused by:\\s.*|\\s*at .*|\\s*\\.\\.\\.\\s\\d+\\smore)$");
+
+    @ParameterizedTest
+    @ValueSource(
+            strings = {
+                "java.lang.NullPointerException",
+                "java.lang.IllegalStateException: boom",
+                "Exception in thread \"main\" java.lang.Error",
+                "com.sun.tools.javac.code.Symbol$CompletionFailure: class file for Foo not found",
+                "java.lang.StackOverflowError",
+                "java.lang.ThreadDeath",
+                "org.example.Unmatched",
+                "org.example.UnmatchedBrace",
+                "org.example.Foo$UnmatchedBrace: x",
+                "a.b$c.Exception",
+                "-.Error",
+                ".Error",
+                "Error",
+                "java.lang.Exception\u2028",
+                "java.lang.Exception more",
+                "/src/Foo.java:12: error: cannot find symbol",
+                "Caused by: java.lang.RuntimeException",
+                "Caused by:x",
+                "Caused by:",
+                "\tat com.sun.tools.javac.Main.compile(Main.java:176)",
+                "    at foo",
+                "at",
+                "\t... 42 more",
+                "... 42 more",
+                "... 42 more ",
+                "...\t7\tmore",
+                "\t... more",
+                "\t... 42 less",
+                ""
+            })
+    public void testStackTraceLinesMatchTheReplacedExpressions(String line) {
+        assertEquals(STACK_TRACE_FIRST_LINE.matcher(line).matches(), JavacOutputClassifier.isStackTraceFirstLine(line));
+        assertEquals(STACK_TRACE_OTHER_LINE.matcher(line).matches(), JavacOutputClassifier.isStackTraceOtherLine(line));
+    }
+
+    @ParameterizedTest
+    @ValueSource(
+            strings = {
+                "error: invalid flag",
+                "エラー: 無効なフラグ",
+                "warning: [options] bootstrap class path not set",
+                "警告: [options] ブートストラップ・クラスパスが設定されていません",
+                "Warnung: [options] Bootstrap-Classpath nicht festgelegt",
+                "Note: Some input files use unchecked or unsafe operations.",
+                "注: 某些输入文件使用了未经检查或不安全的操作。",
+                "[parsing started SimpleFileObject[/src/Foo.java]]",
+                "/src/Foo.java:12: error: cannot find symbol",
+                "errors: 2",
+                ""
+            })
+    public void testClassify(String line) {
+        String[][] prefixes = {
+            JavacCompiler.Messages.ERROR_PREFIXES,
+            JavacCompiler.Messages.WARNING_PREFIXES,
+            JavacCompiler.Messages.NOTE_PREFIXES,
+            JavacCompiler.Messages.MISC_PREFIXES
+        };
+        LineType[] types = {LineType.ERROR, LineType.WARNING, LineType.NOTE, LineType.MISC};
+
+        LineType expectedType = LineType.OTHER;
+        int expectedLength = 0;
+        for (int i = 0; i < prefixes.length && expectedType == LineType.OTHER; i++) {
+            for (String prefix : prefixes[i]) {
+                if (line.startsWith(prefix)) {
+                    expectedType = types[i];
+                    expectedLength = prefix.length();
+                    break;
+                }
+            }
+        }
+
+        assertEquals(expectedType, JavacOutputClassifier.classify(line));
+        assertEquals(expectedLength, JavacOutputClassifier.prefixLength(line));
+    }
+}
@@ -0,0 +1,9 @@
+package org.codehaus.plexus.compiler.javac;
+
+import org.codehaus.plexus.compiler.AbstractOutputManifestTest;
+
+public class JavacOutputManifestTest extends AbstractOutputManifestTest {
+    public JavacOutputManifestTest() {
+        this.roleHint = "javac";
+    }
+}
@@ -0,0 +1,139 @@
+package org.codehaus.plexus.compiler.javac;
+
+/*
+ * Copyright 2026 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.codehaus.plexus.compiler.CompilerMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the classification of javac output lines by {@link JavacOutputClassifier} with the regular expressions
+ * and prefix scans it replaced, over the output of a large module compiled with <code>-Xlint:all</code>.
+ * <p>
+ * The JMH harness is only generated with the <code>jmh</code> profile:
+ * <pre>
+ * mvn -Pjmh test-compile dependency:build-classpath -Dmdep.outputFile=target/classpath.txt
+ * java -cp target/test-classes:target/classes:$(cat target/classpath.txt) \
+ *     org.codehaus.plexus.compiler.javac.JavacOutputParsingBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JavacOutputParsingBenchmark {
+    private static final Pattern STACK_TRACE_FIRST_LINE = Pattern.compile("^(?:[\\w+.-]+\\.)[\\w$]*?(?:"
+            + "Exception|Error|Throwable|Failure|Result|Abort|Fault|ThreadDeath|Overflow|Warning|"
+            + "NotSupported|NotFound|BadArgs|BadClassFile|Illegal|Invalid|Unexpected|Unchecked|Unmatched\\w+"
+            + ").*$");
+
+    private static final Pattern STACK_TRACE_OTHER_LINE =
+            Pattern.compile("^(?:Caused by:\\s.*|\\s*at .*|\\s*\\.\\.\\.\\s\\d+\\smore)$");
+
+    private static final int WARNINGS = 10_000;
+
+    private String output;
+
+    private String[] lines;
+
+    @Setup
+    public void setUp() {
+        StringBuilder out = new StringBuilder();
+        for (int i = 0; i < WARNINGS; i++) {
+            out.append("/project/src/main/java/org/example/module")
+                    .append(i % 50)
+                    .append("/Service")
+                    .append(i)
+                    .append(".java:")
+                    .append(10 + i % 300)
+                    .append(": warning: [rawtypes] found raw type: List\n")
+                    .append("        List items = new ArrayList<>();\n")
+                    .append("        ^\n")
+                    .append("  missing type arguments for generic class List<E>\n")
+                    .append("  where E is a type-variable:\n")
+                    .append("    E extends Object declared in interface List\n");
+        }
+        out.append("Note: Some input files use unchecked or unsafe operations.\n");
+        out.append("Note: Recompile with -Xlint:unchecked for details.\n");
+        out.append(WARNINGS).append(" warnings\n");
+        output = out.toString();
+        lines = output.split("\n");
+    }
+
+    @Benchmark
+    public void classifyWithRegularExpressions(Blackhole blackhole) {
+        for (String line : lines) {
+            blackhole.consume(STACK_TRACE_FIRST_LINE.matcher(line).matches()
+                    || STACK_TRACE_OTHER_LINE.matcher(line).matches());
+            blackhole.consume(startsWithPrefix(line, JavacCompiler.Messages.ERROR_PREFIXES)
+                    || startsWithPrefix(line, JavacCompiler.Messages.WARNING_PREFIXES)
+                    || startsWithPrefix(line, JavacCompiler.Messages.NOTE_PREFIXES)
+                    || startsWithPrefix(line, JavacCompiler.Messages.MISC_PREFIXES));
+        }
+    }
+
+    @Benchmark
+    public void classifyWithClassifier(Blackhole blackhole) {
+        for (String line : lines) {
+            blackhole.consume(JavacOutputClassifier.isStackTraceFirstLine(line)
+                    || JavacOutputClassifier.isStackTraceOtherLine(line));
+            blackhole.consume(JavacOutputClassifier.classify(line));
+        }
+    }
+
+    @Benchmark
+    public List<CompilerMessage> parseModernStream() throws IOException {
+        return JavacCompiler.parseModernStream(0, new BufferedReader(new StringReader(output)));
+    }
+
+    private static boolean startsWithPrefix(String text, String[] prefixes) {
+        for (String prefix : prefixes) {
+            if (text.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                        .include(JavacOutputParsingBenchmark.class.getSimpleName())
+                        .build())
+                .run();
+    }
+}
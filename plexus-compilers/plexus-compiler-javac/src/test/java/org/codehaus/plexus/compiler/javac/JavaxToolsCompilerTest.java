@@ -18,9 +18,111 @@ package org.codehaus.plexus.compiler.javac;
  * under the License.
  */
 
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.codehaus.plexus.compiler.CompilerConfiguration;
+import org.codehaus.plexus.compiler.CompilerResult;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
 /**
  * @author Olivier Lamy
  */
 public class JavaxToolsCompilerTest extends AbstractJavacCompilerTest {
     // no op default is to javax.tools if available
+
+    private static final AtomicInteger CLOSED_FILE_MANAGERS = new AtomicInteger();
+
+    @Test
+    void testWarmFileManagersAreBounded(@TempDir Path tempDirectory) throws Exception {
+        Path source = tempDirectory.resolve("Test.java");
+        Files.write(source, Collections.singletonList("class Test {}"), StandardCharsets.UTF_8);
+        JavaxToolsCompiler compiler = new BoundedJavaxToolsCompiler();
+        CLOSED_FILE_MANAGERS.set(0);
+
+        // a file manager per encoding, the least recently used one being closed beyond two
+        compileWarm(compiler, tempDirectory, source, "UTF-8");
+        compileWarm(compiler, tempDirectory, source, "ISO-8859-1");
+        assertEquals(0, CLOSED_FILE_MANAGERS.get());
+        compileWarm(compiler, tempDirectory, source, "US-ASCII");
+        assertEquals(1, CLOSED_FILE_MANAGERS.get());
+        assertEquals(2, compiler.getWarmFileManagerCount());
+
+        // reused, and made the most recently used
+        compileWarm(compiler, tempDirectory, source, "ISO-8859-1");
+        assertEquals(1, CLOSED_FILE_MANAGERS.get());
+        compileWarm(compiler, tempDirectory, source, "UTF-8");
+        assertEquals(2, CLOSED_FILE_MANAGERS.get());
+        compileWarm(compiler, tempDirectory, source, "ISO-8859-1");
+        assertEquals(2, CLOSED_FILE_MANAGERS.get());
+        assertEquals(2, compiler.getWarmFileManagerCount());
+    }
+
+    private static void compileWarm(JavaxToolsCompiler compiler, Path tempDirectory, Path source, String encoding)
+            throws Exception {
+        CompilerConfiguration configuration = new CompilerConfiguration();
+        configuration.setCompilerReuseStrategy(CompilerConfiguration.CompilerReuseStrategy.ReuseSame);
+        configuration.setWarmContext(true);
+        configuration.setSourceEncoding(encoding);
+        configuration.setBuildDirectory(tempDirectory.resolve("build").toFile());
+        String output = tempDirectory.resolve("build/classes").toString();
+        Files.createDirectories(tempDirectory.resolve("build/classes"));
+        CompilerResult result =
+                compiler.compileInProcess(new String[] {"-d", output}, configuration, new String[] {source.toString()});
+        assertTrue(result.isSuccess(), result.getCompilerMessages().toString());
+    }
+
+    /**
+     * Keeps two warm file managers at most, and counts those closed.
+     */
+    private static final class BoundedJavaxToolsCompiler extends JavaxToolsCompiler {
+        @Override
+        protected JavaCompiler newJavaCompiler() {
+            JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+            return (JavaCompiler) Proxy.newProxyInstance(
+                    getClass().getClassLoader(), new Class<?>[] {JavaCompiler.class}, (proxy, method, args) -> {
+                        Object result = invoke(compiler, method, args);
+                        if ("getStandardFileManager".equals(method.getName())) {
+                            StandardJavaFileManager fileManager = (StandardJavaFileManager) result;
+                            return Proxy.newProxyInstance(
+                                    getClass().getClassLoader(),
+                                    new Class<?>[] {StandardJavaFileManager.class},
+                                    (fileManagerProxy, fileManagerMethod, fileManagerArgs) -> {
+                                        if ("close".equals(fileManagerMethod.getName())) {
+                                            CLOSED_FILE_MANAGERS.incrementAndGet();
+                                        }
+                                        return invoke(fileManager, fileManagerMethod, fileManagerArgs);
+                                    });
+                        }
+                        return result;
+                    });
+        }
+
+        @Override
+        protected int getMaxWarmFileManagers() {
+            return 2;
+        }
+
+        private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
 }